@@ -3,11 +3,15 @@ package ru.mephi.springfinal.booking;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import ru.mephi.springfinal.contracts.jdbc.JdbcDataSourceConfiguration;
+import ru.mephi.springfinal.contracts.loadbalancing.LoadBalancingConfiguration;
 
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableScheduling
+@Import({LoadBalancingConfiguration.class, JdbcDataSourceConfiguration.class})
 public class BookingApplication {
     public static void main(String[] args) {
         SpringApplication.run(BookingApplication.class, args);
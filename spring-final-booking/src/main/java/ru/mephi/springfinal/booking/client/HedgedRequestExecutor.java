@@ -0,0 +1,163 @@
+package ru.mephi.springfinal.booking.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Хеджирование идемпотентных запросов к Hotel Service.
+ * <p>
+ * Если ответ не пришел за задержку, равную заданному перцентилю недавних латентностей,
+ * тот же запрос отправляется повторно. {@code @LoadBalanced} WebClient выбирает инстанс
+ * при каждой подписке, а медленный инстанс с незавершенным запросом дороже для
+ * {@link ru.mephi.springfinal.contracts.loadbalancing.LatencyAwareLoadBalancer}, поэтому хедж уходит на другой инстанс; побеждает первый ответ.
+ * Доля хеджей ограничена бюджетом: каждый запрос пополняет его на {@code max-hedge-ratio},
+ * каждый хедж тратит единицу.
+ * <p>
+ * Перцентиль считается только по основным запросам: если основной отменен, потому что победил хедж,
+ * записывается время до отмены - нижняя граница его латентности. Иначе в окне остались бы только
+ * быстрые ответы, задержка хеджа снижалась бы и хеджей становилось бы все больше.
+ */
+@Slf4j
+@Component
+public class HedgedRequestExecutor {
+
+    private static final long TOKEN_SCALE = 1000;
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final long tokensPerRequest;
+    private final long maxTokens;
+
+    // кольцевой буфер последних латентностей (мс)
+    private final AtomicLongArray window;
+    private final AtomicInteger windowPosition = new AtomicInteger();
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile long hedgeDelayMillis;
+
+    private final AtomicLong hedgeTokens;
+
+    private final Counter requests;
+    private final Counter hedgesFired;
+    private final Counter hedgesWon;
+
+    public HedgedRequestExecutor(@Value("${hotel-service.hedging.enabled:true}") boolean enabled,
+                                 @Value("${hotel-service.hedging.percentile:0.95}") double percentile,
+                                 @Value("${hotel-service.hedging.min-delay:20}") long minDelayMillis,
+                                 @Value("${hotel-service.hedging.max-delay:1000}") long maxDelayMillis,
+                                 @Value("${hotel-service.hedging.max-hedge-ratio:0.1}") double maxHedgeRatio,
+                                 @Value("${hotel-service.hedging.window-size:512}") int windowSize,
+                                 MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.tokensPerRequest = Math.round(maxHedgeRatio * TOKEN_SCALE);
+        this.maxTokens = 10 * TOKEN_SCALE;
+        this.hedgeTokens = new AtomicLong(maxTokens);
+        this.window = new AtomicLongArray(windowSize);
+        this.hedgeDelayMillis = maxDelayMillis;
+
+        this.requests = Counter.builder("hotel.client.hedging.requests")
+                .description("Requests eligible for hedging")
+                .register(meterRegistry);
+        this.hedgesFired = Counter.builder("hotel.client.hedging.fired")
+                .description("Hedge requests sent to a second instance")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("hotel.client.hedging.won")
+                .description("Hedge requests that answered before the primary")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполнить запрос с хеджированием. {@code request} должен быть "холодным":
+     * каждая подписка выполняет новый HTTP-вызов.
+     */
+    public <T> Mono<T> execute(String operation, Mono<T> request) {
+        if (!enabled) {
+            return request;
+        }
+        return Mono.defer(() -> {
+            requests.increment();
+            refillBudget();
+
+            long delay = hedgeDelayMillis;
+            long primaryStart = System.nanoTime();
+            Mono<T> primary = request.doFinally(signal -> {
+                if (signal != SignalType.ON_ERROR) {
+                    recordLatency(primaryStart);
+                }
+            });
+
+            Mono<T> hedge = Mono.delay(Duration.ofMillis(delay))
+                    .flatMap(tick -> {
+                        if (!tryAcquireHedge()) {
+                            return Mono.<T>never();
+                        }
+                        hedgesFired.increment();
+                        log.debug("Hedging {} after {} ms", operation, delay);
+                        // латентность хеджа не записывается: в окно попали бы только его победы
+                        return request.doOnNext(v -> {
+                            hedgesWon.increment();
+                            log.debug("Hedge won for {}", operation);
+                        });
+                    })
+                    // ошибка хеджа не должна обгонять ответ основного запроса
+                    .onErrorResume(e -> Mono.never());
+
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    private void refillBudget() {
+        hedgeTokens.getAndUpdate(t -> Math.min(maxTokens, t + tokensPerRequest));
+    }
+
+    private boolean tryAcquireHedge() {
+        long current;
+        do {
+            current = hedgeTokens.get();
+            if (current < TOKEN_SCALE) {
+                return false;
+            }
+        } while (!hedgeTokens.compareAndSet(current, current - TOKEN_SCALE));
+        return true;
+    }
+
+    private void recordLatency(long startNanos) {
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        window.set(Math.floorMod(windowPosition.getAndIncrement(), window.length()), millis);
+        if (recorded.incrementAndGet() % RECOMPUTE_EVERY == 0) {
+            recomputeDelay();
+        }
+    }
+
+    private void recomputeDelay() {
+        int size = (int) Math.min(recorded.get(), window.length());
+        long[] snapshot = new long[size];
+        for (int i = 0; i < size; i++) {
+            snapshot[i] = window.get(i);
+        }
+        Arrays.sort(snapshot);
+        int index = (int) Math.min(size - 1, Math.ceil(percentile * size) - 1);
+        long value = snapshot[Math.max(0, index)];
+        hedgeDelayMillis = Math.max(minDelayMillis, Math.min(maxDelayMillis, value));
+    }
+}
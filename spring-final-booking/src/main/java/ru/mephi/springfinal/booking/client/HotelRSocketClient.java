@@ -0,0 +1,36 @@
+package ru.mephi.springfinal.booking.client;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.contracts.room.AvailabilityResponse;
+import ru.mephi.springfinal.contracts.room.ConfirmAvailabilityRequest;
+import ru.mephi.springfinal.contracts.room.ReleaseReservationRequest;
+
+/**
+ * Вызовы саги по RSocket: request-response для резервирования и компенсации к владельцу номера.
+ * Кандидаты автоподбора запрашиваются по HTTP ({@link HotelServiceClient#getRecommendedRoomsMono}):
+ * там запрос хеджируется, а инстанс выбирается по задержке.
+ */
+@Component
+@ConditionalOnProperty(name = "hotel-service.transport", havingValue = "rsocket")
+public class HotelRSocketClient {
+
+    private final RoomRSocketRequesters roomRequesters;
+
+    public HotelRSocketClient(RoomRSocketRequesters roomRSocketRequesters) {
+        this.roomRequesters = roomRSocketRequesters;
+    }
+
+    public Mono<AvailabilityResponse> confirmAvailability(Long roomId, ConfirmAvailabilityRequest request) {
+        return roomRequesters.forRoom(roomId, owner -> owner.route("rooms.{id}.confirm-availability", roomId)
+                .data(request)
+                .retrieveMono(AvailabilityResponse.class));
+    }
+
+    public Mono<Void> releaseReservation(Long roomId, String requestId) {
+        return roomRequesters.forRoom(roomId, owner -> owner.route("rooms.{id}.release", roomId)
+                .data(new ReleaseReservationRequest(requestId))
+                .retrieveMono(Void.class));
+    }
+}
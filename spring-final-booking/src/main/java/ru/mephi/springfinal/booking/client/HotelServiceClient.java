@@ -1,26 +1,45 @@
 package ru.mephi.springfinal.booking.client;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.loadbalancing.InstanceLatencyFilter;
+import ru.mephi.springfinal.contracts.room.AvailabilityResponse;
+import ru.mephi.springfinal.contracts.room.ConfirmAvailabilityRequest;
+import ru.mephi.springfinal.contracts.room.RoomView;
 
 import java.time.Duration;
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
 @Slf4j
 @Component
 public class HotelServiceClient {
 
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
     private final WebClient webClient;
+    // Формат тел внутренних HTTP-вызовов: Smile по умолчанию, JSON - для отладки
+    private final MediaType codecMediaType;
+    private final HedgedRequestExecutor hedgedRequestExecutor;
+    // null, если hotel-service.transport != rsocket
+    private final HotelRSocketClient rsocketClient;
+    private final InternalIdentityCodec identityCodec;
 
     @Value("${hotel-service.timeout:5000}")
     private int timeout;
@@ -34,39 +53,101 @@ public class HotelServiceClient {
     @Value("${hotel-service.retry.multiplier:2}")
     private int multiplier;
 
-    public HotelServiceClient(@Value("${hotel-service.url}") String hotelServiceUrl, WebClient.Builder webClientBuilder) {
+    public HotelServiceClient(@Value("${hotel-service.url}") String hotelServiceUrl,
+                              WebClient.Builder webClientBuilder,
+                              InstanceLatencyFilter instanceLatencyFilter,
+                              HedgedRequestExecutor hedgedRequestExecutor,
+                              ObjectProvider<HotelRSocketClient> rsocketClient,
+                              @Value("${hotel-service.codec:smile}") String codec,
+                              InternalIdentityCodec identityCodec) {
         log.info("Initializing HotelServiceClient with URL: {}", hotelServiceUrl);
-        // Создаем WebClient с baseUrl для LoadBalanced клиента
-        this.webClient = webClientBuilder.baseUrl(hotelServiceUrl).build();
-        log.info("HotelServiceClient initialized successfully");
+        // Создаем WebClient с baseUrl для LoadBalanced клиента; замер задержки добавляется после
+        // фильтра балансировщика, чтобы видеть выбранный инстанс
+        this.webClient = webClientBuilder.clone()
+                .filter(instanceLatencyFilter)
+                .baseUrl(hotelServiceUrl)
+                .build();
+        this.codecMediaType = "json".equalsIgnoreCase(codec) ? MediaType.APPLICATION_JSON : APPLICATION_SMILE;
+        this.hedgedRequestExecutor = hedgedRequestExecutor;
+        this.rsocketClient = rsocketClient.getIfAvailable();
+        this.identityCodec = identityCodec;
+        log.info("HotelServiceClient initialized successfully (transport: {}, codec: {})",
+                 this.rsocketClient != null ? "rsocket with HTTP fallback" : "http", codecMediaType);
     }
 
     /**
-     * Получить JWT токен из SecurityContext
+     * Получить credentials (JWT или проверенную Gateway личность) из SecurityContext
      */
-    private String getAuthToken() {
+    private Object getCredentials() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.getCredentials() != null) {
-            return authentication.getCredentials().toString();
+        if (authentication != null) {
+            return authentication.getCredentials();
         }
         return null;
     }
 
-    @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> getRecommendedRooms(Long hotelId, String roomType,
-                                                          LocalDate startDate, LocalDate endDate) {
-        log.info("Fetching recommended rooms: hotelId={}, type={}, dates={} to {}",
-                 hotelId, roomType, startDate, endDate);
+    /**
+     * Credentials для межсервисного вызова. Блокирующие методы вызываются в потоке запроса, и они
+     * берутся из SecurityContext в момент сборки Mono; шаги реактивной саги собираются на event loop,
+     * поэтому для них credentials читаются из ReactiveSecurityContextHolder в контексте Reactor.
+     */
+    private Mono<Optional<Object>> authToken() {
+        Object credentials = getCredentials();
+        if (credentials != null) {
+            return Mono.just(Optional.of(credentials));
+        }
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(authentication -> Optional.ofNullable(authentication.getCredentials()))
+                .defaultIfEmpty(Optional.empty());
+    }
 
-        String uri = String.format("/api/rooms/recommend?startDate=%s&endDate=%s%s%s",
-                startDate, endDate,
-                (hotelId != null ? "&hotelId=" + hotelId : ""),
-                (roomType != null ? "&roomType=" + roomType : ""));
-        log.debug("Request URI: {}", uri);
+    /**
+     * Личность, проверенная Gateway, передается в Hotel Service подписанным заголовком,
+     * чтобы он не разбирал JWT повторно; JWT - для запросов, пришедших в обход Gateway.
+     */
+    private void applyCredentials(HttpHeaders headers, Optional<Object> credentials) {
+        credentials.ifPresent(value -> {
+            if (value instanceof InternalIdentity identity) {
+                headers.set(InternalIdentityCodec.HEADER, identityCodec.encode(identity));
+            } else {
+                headers.setBearerAuth(value.toString());
+            }
+        });
+    }
 
-        String token = getAuthToken();
+    /**
+     * Выполнить вызов по номеру по RSocket, если канал включен; при ошибке или таймауте - по HTTP.
+     * Резервирование и компенсация идемпотентны по requestId, поэтому повтор по HTTP безопасен.
+     */
+    private <T> Mono<T> preferRSocket(String operation,
+                                      Function<HotelRSocketClient, Mono<T>> rsocketCall,
+                                      Mono<T> httpCall) {
+        if (rsocketClient == null) {
+            return httpCall;
+        }
+        return rsocketCall.apply(rsocketClient)
+                .timeout(Duration.ofMillis(timeout))
+                .onErrorResume(e -> {
+                    log.warn("RSocket call {} failed, falling back to HTTP: {}", operation, e.toString());
+                    return httpCall;
+                });
+    }
 
-        return webClient.get()
+    public List<RoomView> getRecommendedRooms(Long hotelId, String roomType,
+                                              LocalDate startDate, LocalDate endDate) {
+        return getRecommendedRoomsMono(hotelId, roomType, startDate, endDate).block();
+    }
+
+    public Mono<List<RoomView>> getRecommendedRoomsMono(Long hotelId, String roomType,
+                                                        LocalDate startDate, LocalDate endDate) {
+        log.info("Fetching recommended rooms: hotelId={}, type={}, dates={} to {}",
+                 hotelId, roomType, startDate, endDate);
+
+        // Запрос идемпотентный, поэтому медленный ответ хеджируется запросом к другому инстансу.
+        // Он всегда идет по HTTP, в том числе при transport=rsocket: инстанс выбирается по задержке,
+        // а тело передается в Smile
+        Mono<List<RoomView>> request = authToken().flatMap(token -> webClient.get()
                 .uri(uriBuilder -> {
                     var builder = uriBuilder.path("/api/rooms/recommend")
                             .queryParam("startDate", startDate.toString())
@@ -79,16 +160,20 @@ public class HotelServiceClient {
                     }
                     return builder.build();
                 })
+                .accept(codecMediaType)
                 .headers(headers -> {
-                    if (token != null) {
-                        headers.setBearerAuth(token);
+                    if (token.isPresent()) {
+                        applyCredentials(headers, token);
                         log.debug("Added Authorization header to request");
                     } else {
                         log.warn("No authentication token found in SecurityContext");
                     }
                 })
                 .retrieve()
-                .bodyToMono(List.class)
+                .bodyToFlux(RoomView.class)
+                .collectList());
+
+        return hedgedRequestExecutor.execute("getRecommendedRooms", request)
                 .timeout(Duration.ofMillis(timeout))
                 .retryWhen(Retry.backoff(maxAttempts, Duration.ofMillis(initialInterval))
                         .maxBackoff(Duration.ofSeconds(5))
@@ -97,68 +182,71 @@ public class HotelServiceClient {
                                 rs.totalRetries() + 1, rs.failure().getClass().getSimpleName())))
                 .doOnError(e -> log.error("Failed to fetch recommended rooms: {} - {}",
                         e.getClass().getSimpleName(), e.getMessage(), e))
-                .onErrorReturn(List.of())
-                .block();
+                .onErrorReturn(List.of());
     }
 
-    public Map<String, Object> confirmAvailability(Long roomId, String requestId, Long bookingId,
+    public AvailabilityResponse confirmAvailability(Long roomId, String requestId, Long bookingId,
                                                     LocalDate startDate, LocalDate endDate) {
+        return confirmAvailabilityMono(roomId, requestId, bookingId, startDate, endDate).block();
+    }
+
+    public Mono<AvailabilityResponse> confirmAvailabilityMono(Long roomId, String requestId, Long bookingId,
+                                                              LocalDate startDate, LocalDate endDate) {
         log.info("Confirming availability: roomId={}, requestId={}, bookingId={}",
                  roomId, requestId, bookingId);
 
+        ConfirmAvailabilityRequest request = new ConfirmAvailabilityRequest(requestId, bookingId, startDate, endDate);
 
-        Map<String, Object> request = new HashMap<>();
-        request.put("requestId", requestId);
-        request.put("bookingId", bookingId);
-        request.put("startDate", startDate.toString());
-        request.put("endDate", endDate.toString());
-
-        String token = getAuthToken();
-
-        return webClient.post()
-                .uri("/api/rooms/{id}/confirm-availability", roomId)
-                .headers(headers -> {
-                    if (token != null) {
-                        headers.setBearerAuth(token);
-                    }
-                })
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(Map.class)
+        Mono<AvailabilityResponse> httpCall = authToken().flatMap(token -> webClient.post()
+                        .uri("/api/rooms/{id}/confirm-availability", roomId)
+                        .contentType(codecMediaType)
+                        .accept(codecMediaType)
+                        .headers(headers -> applyCredentials(headers, token))
+                        .bodyValue(request)
+                        .retrieve()
+                        .bodyToMono(AvailabilityResponse.class))
                 .timeout(Duration.ofMillis(timeout))
                 .retryWhen(Retry.backoff(maxAttempts, Duration.ofMillis(initialInterval))
                         .maxBackoff(Duration.ofSeconds(5))
                         .filter(throwable -> !(throwable instanceof WebClientResponseException.BadRequest) &&
                                            !(throwable instanceof WebClientResponseException.Conflict)))
                 .doOnError(e -> log.error("Failed to confirm availability: {}", e.getMessage()))
-                .onErrorResume(e -> Mono.just(Map.of("available", false, "message", e.getMessage())))
-                .block();
+                .onErrorResume(e -> Mono.just(AvailabilityResponse.failure(e.getMessage())));
+
+        return preferRSocket("confirmAvailability",
+                client -> client.confirmAvailability(roomId, request),
+                httpCall);
     }
 
     public void releaseReservation(Long roomId, String requestId) {
+        releaseReservationMono(roomId, requestId).block();
+    }
+
+    /**
+     * Снять резервацию. Ошибки логируются и не пробрасываются: компенсация не должна падать,
+     * а оставшуюся резервацию снимет планировщик Hotel Service по истечении срока.
+     */
+    public Mono<Void> releaseReservationMono(Long roomId, String requestId) {
         log.info("Releasing reservation: roomId={}, requestId={}", roomId, requestId);
 
-        String token = getAuthToken();
-
-        try {
-            webClient.post()
-                    .uri(uriBuilder -> uriBuilder.path("/api/rooms/{id}/release")
-                            .queryParam("requestId", requestId)
-                            .build(roomId))
-                    .headers(headers -> {
-                        if (token != null) {
-                            headers.setBearerAuth(token);
-                        }
-                    })
-                    .retrieve()
-                    .bodyToMono(Void.class)
-                    .timeout(Duration.ofMillis(timeout))
-                    .retryWhen(Retry.backoff(2, Duration.ofMillis(100)))
-                    .block();
-            log.info("Successfully released reservation for roomId={}", roomId);
-        } catch (Exception e) {
-            log.error("Failed to release reservation for roomId={}: {}", roomId, e.getMessage());
-        }
+        Mono<Void> httpCall = authToken().flatMap(token -> webClient.post()
+                        .uri(uriBuilder -> uriBuilder.path("/api/rooms/{id}/release")
+                                .queryParam("requestId", requestId)
+                                .build(roomId))
+                        .accept(codecMediaType)
+                        .headers(headers -> applyCredentials(headers, token))
+                        .retrieve()
+                        .bodyToMono(Void.class))
+                .timeout(Duration.ofMillis(timeout))
+                .retryWhen(Retry.backoff(2, Duration.ofMillis(100)));
+
+        return preferRSocket("releaseReservation",
+                        client -> client.releaseReservation(roomId, requestId),
+                        httpCall)
+                .doOnSuccess(v -> log.info("Successfully released reservation for roomId={}", roomId))
+                .onErrorResume(e -> {
+                    log.error("Failed to release reservation for roomId={}: {}", roomId, e.getMessage());
+                    return Mono.empty();
+                });
     }
 }
-
@@ -0,0 +1,94 @@
+package ru.mephi.springfinal.booking.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.contracts.loadbalancing.LatencyScoreboard;
+import ru.mephi.springfinal.contracts.loadbalancing.RoomAffinityRouter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * RSocket-соединения к отдельным инстансам Hotel Service для вызовов по номеру.
+ * <p>
+ * Инстанс выбирается {@link RoomAffinityRouter} по тому же кольцу, что и для HTTP (ключ инстанса -
+ * HTTP-адрес из Eureka), поэтому владелец номера не зависит от транспорта. Соединение к инстансу
+ * устанавливается при первом вызове и закрывается, когда инстанс пропадает из Eureka.
+ */
+@Slf4j
+public class RoomRSocketRequesters {
+
+    private final RSocketRequester.Builder builder;
+    private final DiscoveryClient discoveryClient;
+    private final String serviceId;
+    private final int defaultPort;
+    private final RoomAffinityRouter router;
+    private final LatencyScoreboard scoreboard;
+    private final Map<String, RSocketRequester> requesters = new ConcurrentHashMap<>();
+
+    public RoomRSocketRequesters(RSocketRequester.Builder builder, DiscoveryClient discoveryClient, String serviceId,
+                                 int defaultPort, RoomAffinityRouter router, LatencyScoreboard scoreboard) {
+        this.builder = builder;
+        this.discoveryClient = discoveryClient;
+        this.serviceId = serviceId;
+        this.defaultPort = defaultPort;
+        this.router = router;
+        this.scoreboard = scoreboard;
+    }
+
+    /**
+     * Выполнить вызов на инстансе-владельце номера, учитывая его задержку и загрузку.
+     */
+    public <T> Mono<T> forRoom(Long roomId, Function<RSocketRequester, Mono<T>> call) {
+        return Mono.defer(() -> {
+            List<ServiceInstance> instances = discoveryClient.getInstances(serviceId);
+            if (instances.isEmpty()) {
+                return Mono.error(new IllegalStateException("No instances available for " + serviceId));
+            }
+            pruneRemoved(instances);
+
+            ServiceInstance instance = router.chooseForRoom(roomId, instances, RoomRSocketRequesters::instanceId);
+            String id = instanceId(instance);
+            RSocketRequester requester = requesters.computeIfAbsent(id, key -> connect(instance));
+
+            scoreboard.onStart(id);
+            long start = System.nanoTime();
+            AtomicBoolean failed = new AtomicBoolean();
+            return call.apply(requester)
+                    .doOnError(e -> failed.set(true))
+                    .doFinally(signal -> scoreboard.onComplete(id, System.nanoTime() - start, failed.get()));
+        });
+    }
+
+    private RSocketRequester connect(ServiceInstance instance) {
+        String port = instance.getMetadata().get("rsocket-port");
+        int rsocketPort = port != null ? Integer.parseInt(port) : defaultPort;
+        log.debug("Opening RSocket connection to {}:{}", instance.getHost(), rsocketPort);
+        return builder.tcp(instance.getHost(), rsocketPort);
+    }
+
+    // Сравниваются ключи, а не размеры: инстанс, замененный новым, не меняет их количество
+    private void pruneRemoved(List<ServiceInstance> instances) {
+        Set<String> current = instances.stream().map(RoomRSocketRequesters::instanceId).collect(Collectors.toSet());
+        requesters.entrySet().removeIf(entry -> {
+            if (current.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().dispose();
+            return true;
+        });
+    }
+
+    // Тот же ключ, что у HTTP-балансировщика
+    private static String instanceId(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,64 @@
+package ru.mephi.springfinal.booking.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.booking.client.RoomRSocketRequesters;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.loadbalancing.LatencyScoreboard;
+import ru.mephi.springfinal.contracts.loadbalancing.RoomAffinityRouter;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * RSocket-канал к Hotel Service ({@code hotel-service.transport=rsocket}).
+ * <p>
+ * Список инстансов берется из Eureka (порт - из метаданных {@code rsocket-port}); к каждому инстансу
+ * держится одно мультиплексированное TCP-соединение. Резервирование и компенсация по номеру идут через
+ * {@link RoomRSocketRequesters} к владельцу номера.
+ * <p>
+ * Hotel Service принимает соединение только с подписанной личностью в кадре SETUP
+ * ({@link InternalIdentityCodec#RSOCKET_MIME_TYPE}). Это личность самого Booking Service, а не пользователя:
+ * компенсации запускаются и планировщиком, без пользователя. Личность выпускается заново при каждом
+ * (пере)подключении, поэтому срок у нее короткий.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hotel-service.transport", havingValue = "rsocket")
+public class RSocketClientConfig {
+
+    private static final long SETUP_IDENTITY_TTL_SECONDS = 60;
+
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    @Value("${hotel-service.rsocket.service-id:spring-final-hotel}")
+    private String serviceId;
+
+    @Value("${hotel-service.rsocket.default-port:7081}")
+    private int defaultPort;
+
+    @Bean
+    public RoomRSocketRequesters roomRSocketRequesters(RSocketRequester.Builder builder, DiscoveryClient discoveryClient,
+                                                       RoomAffinityRouter roomAffinityRouter,
+                                                       LatencyScoreboard latencyScoreboard,
+                                                       InternalIdentityCodec identityCodec) {
+        // Значение вычисляется при каждой отправке SETUP, а не один раз при сборке билдера
+        builder.setupMetadata(Mono.fromSupplier(() -> setupIdentity(identityCodec)),
+                MimeType.valueOf(InternalIdentityCodec.RSOCKET_MIME_TYPE));
+        return new RoomRSocketRequesters(builder, discoveryClient, serviceId, defaultPort,
+                roomAffinityRouter, latencyScoreboard);
+    }
+
+    private String setupIdentity(InternalIdentityCodec identityCodec) {
+        long now = Instant.now().getEpochSecond();
+        return identityCodec.encode(new InternalIdentity(null, applicationName, List.of("ROLE_SERVICE"), null,
+                now, now + SETUP_IDENTITY_TTL_SECONDS));
+    }
+}
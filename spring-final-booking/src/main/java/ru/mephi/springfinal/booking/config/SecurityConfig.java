@@ -1,5 +1,6 @@
 package ru.mephi.springfinal.booking.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -29,15 +30,21 @@ public class SecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Асинхронный dispatch ответа Mono: исходный запрос уже прошел авторизацию
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 .requestMatchers("/actuator/**").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/user/register").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/user/auth").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/user/refresh").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/user/logout").authenticated()
+                .requestMatchers("/api/internal/**").hasRole("SERVICE")
                 .requestMatchers(HttpMethod.POST, "/api/user").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.DELETE, "/api/user/**").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.PATCH, "/api/user/**").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.POST, "/api/bookings").hasAnyRole("USER", "ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/v2/bookings").hasAnyRole("USER", "ADMIN")
                 .requestMatchers(HttpMethod.GET, "/api/bookings/**").hasAnyRole("USER", "ADMIN")
                 .requestMatchers(HttpMethod.DELETE, "/api/bookings/**").hasAnyRole("USER", "ADMIN")
                 .anyRequest().authenticated()
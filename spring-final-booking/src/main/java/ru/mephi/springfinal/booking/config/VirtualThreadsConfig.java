@@ -0,0 +1,27 @@
+package ru.mephi.springfinal.booking.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+/**
+ * Проверка профиля {@code virtual-threads}: на JDK ниже 21 Spring Boot молча игнорирует
+ * {@code spring.threads.virtual.enabled}, и сервис продолжает работать на пуле платформенных потоков.
+ */
+@Slf4j
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadsConfig {
+
+    public VirtualThreadsConfig(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Virtual threads enabled for request handling, @Scheduled tasks and the booking saga");
+        } else {
+            log.warn("Profile 'virtual-threads' is active but JDK {} does not support virtual threads; "
+                    + "running on platform threads (build with -Pjava21 and run on Java 21+)",
+                    Runtime.version().feature());
+        }
+    }
+}
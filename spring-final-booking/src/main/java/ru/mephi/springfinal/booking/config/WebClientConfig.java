@@ -1,17 +1,31 @@
 package ru.mephi.springfinal.booking.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 public class WebClientConfig {
 
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
     @Bean
     @LoadBalanced
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder webClientBuilder(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        // Smile-кодеки с теми же настройками Jackson, что и у JSON (hotel-service.codec=smile).
+        // Тип указывается явно: конструктор только с ObjectMapper регистрирует кодек для типов JSON
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        return WebClient.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, APPLICATION_SMILE));
+                    codecs.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE));
+                });
     }
 }
-
@@ -5,15 +5,18 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import ru.mephi.springfinal.booking.dto.BookingDto;
-import ru.mephi.springfinal.booking.entity.User;
+import ru.mephi.springfinal.booking.dto.BookingPage;
+import ru.mephi.springfinal.booking.entity.Booking;
 import ru.mephi.springfinal.booking.service.BookingService;
 import ru.mephi.springfinal.booking.service.UserService;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -23,6 +26,8 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class BookingController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingService;
     private final UserService userService;
 
@@ -30,9 +35,8 @@ public class BookingController {
     @Operation(summary = "Create a new booking")
     public ResponseEntity<BookingDto> createBooking(@RequestBody BookingDto dto,
                                                      Authentication authentication) {
-        // Установка userId из аутентификации
-        User user = userService.getUserByUsername(authentication.getName());
-        dto.setUserId(user.getId());
+        // Установка userId из аутентификации (claims токена, без запроса к таблице users)
+        dto.setUserId(userService.getActiveUserId(authentication));
 
         // Валидация обязательных полей
         if (dto.getStartDate() == null || dto.getEndDate() == null) {
@@ -44,11 +48,23 @@ public class BookingController {
     }
 
     @GetMapping
-    @Operation(summary = "Get user's booking history")
-    public ResponseEntity<List<BookingDto>> getUserBookings(Authentication authentication) {
-        User user = userService.getUserByUsername(authentication.getName());
-        List<BookingDto> bookings = bookingService.getUserBookings(user.getId());
-        return ResponseEntity.ok(bookings);
+    @Operation(summary = "Get user's booking history",
+               description = "Newest first, optionally filtered by status and stay period; "
+                       + "the next page cursor is returned in the X-Next-Cursor header")
+    public ResponseEntity<List<BookingDto>> getUserBookings(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Booking.BookingStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication authentication) {
+        BookingPage page = bookingService.getUserBookings(userService.getActiveUserId(authentication),
+                cursor, limit, status, from, to);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
     }
 
     @GetMapping("/{id}")
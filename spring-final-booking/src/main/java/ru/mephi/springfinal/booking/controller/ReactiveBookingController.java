@@ -0,0 +1,46 @@
+package ru.mephi.springfinal.booking.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.booking.dto.BookingDto;
+import ru.mephi.springfinal.booking.service.ReactiveBookingService;
+import ru.mephi.springfinal.booking.service.UserService;
+
+/**
+ * Реактивный вариант создания бронирования. Контроллер возвращает {@code Mono}, поэтому поток
+ * Tomcat освобождается сразу после сборки саги, а ответ отправляется асинхронно по ее завершении.
+ */
+@RestController
+@RequestMapping("/api/v2/bookings")
+@RequiredArgsConstructor
+@Tag(name = "Booking Management (reactive)", description = "Non-blocking booking saga")
+@SecurityRequirement(name = "bearerAuth")
+public class ReactiveBookingController {
+
+    private final ReactiveBookingService reactiveBookingService;
+    private final UserService userService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Create a new booking without blocking request threads")
+    public Mono<BookingDto> createBooking(@RequestBody BookingDto dto, Authentication authentication) {
+        // Установка userId из аутентификации (claims токена, без запроса к таблице users)
+        dto.setUserId(userService.getActiveUserId(authentication));
+
+        // Валидация обязательных полей
+        if (dto.getStartDate() == null || dto.getEndDate() == null) {
+            throw new IllegalArgumentException("Start date and end date are required");
+        }
+
+        // Шаги саги выполняются на event loop, токен для Hotel Service передается через контекст Reactor
+        return reactiveBookingService.createBooking(dto)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+    }
+}
@@ -0,0 +1,33 @@
+package ru.mephi.springfinal.booking.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.mephi.springfinal.booking.service.TokenRevocationService;
+import ru.mephi.springfinal.contracts.identity.RevocationBatch;
+
+import java.util.List;
+
+/**
+ * Журнал отзыва токенов для Gateway и Hotel Service. Доступен только сервисам
+ * (роль {@code ROLE_SERVICE} в заголовке {@code X-Internal-Identity}).
+ */
+@RestController
+@RequestMapping("/api/internal/revocations")
+@RequiredArgsConstructor
+@Tag(name = "Internal", description = "Service-to-service endpoints")
+public class RevocationController {
+
+    private final TokenRevocationService tokenRevocationService;
+
+    @GetMapping
+    @Operation(summary = "Token revocations of this instance's journal after the caller's cursor",
+               description = "Cursors have the form <source>@<sequence>; cursors of other journals are ignored")
+    public RevocationBatch getRevocations(@RequestParam(name = "cursor", required = false) List<String> cursors) {
+        return tokenRevocationService.changesFor(cursors);
+    }
+}
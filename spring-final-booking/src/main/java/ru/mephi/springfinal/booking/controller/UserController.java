@@ -6,9 +6,11 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import ru.mephi.springfinal.booking.dto.AuthRequest;
 import ru.mephi.springfinal.booking.dto.AuthResponse;
+import ru.mephi.springfinal.booking.dto.RefreshRequest;
 import ru.mephi.springfinal.booking.dto.UserDto;
 import ru.mephi.springfinal.booking.service.UserService;
 
@@ -34,6 +36,21 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/refresh")
+    @Operation(summary = "Exchange a refresh token for a new JWT token without a password")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        AuthResponse response = userService.refresh(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Revoke the current JWT token and, optionally, a refresh token")
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshRequest request,
+                                       Authentication authentication) {
+        userService.logout(authentication, request);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping
     @Operation(summary = "Create user (Admin only)")
     public ResponseEntity<UserDto> createUser(@Valid @RequestBody UserDto dto) {
@@ -11,5 +11,6 @@ public class AuthResponse {
     private String token;
     private String username;
     private Long userId;
+    private String refreshToken;
 }
 
@@ -0,0 +1,30 @@
+package ru.mephi.springfinal.booking.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция в истории бронирований пользователя: {@code (createdAt, id)} последнего выданного бронирования.
+ * Следующая страница начинается строго после нее в порядке {@code createdAt DESC, id DESC}, поэтому
+ * новые бронирования и перенос старых в историю не сдвигают страницы.
+ */
+public record BookingCursor(LocalDateTime createdAt, Long id) {
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingCursor decode(String value) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('|');
+            return new BookingCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid booking cursor");
+        }
+    }
+}
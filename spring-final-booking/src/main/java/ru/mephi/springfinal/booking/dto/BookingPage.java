@@ -0,0 +1,9 @@
+package ru.mephi.springfinal.booking.dto;
+
+import java.util.List;
+
+/**
+ * Страница истории бронирований; {@code nextCursor} - null на последней странице.
+ */
+public record BookingPage(List<BookingDto> items, String nextCursor) {
+}
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "bookings", indexes = {
     @Index(name = "idx_request_id", columnList = "request_id", unique = true),
-    @Index(name = "idx_user_id", columnList = "user_id"),
+    // страницы бронирований пользователя читаются по индексу в порядке выдачи, без сортировки
+    @Index(name = "idx_user_created", columnList = "user_id, created_at DESC, id DESC"),
     @Index(name = "idx_room_id", columnList = "room_id"),
     @Index(name = "idx_status", columnList = "status")
 })
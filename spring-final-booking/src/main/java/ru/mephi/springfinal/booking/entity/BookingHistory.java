@@ -0,0 +1,60 @@
+package ru.mephi.springfinal.booking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Завершенное бронирование, перенесенное из {@code bookings}: прошедшее подтвержденное, отмененное или
+ * компенсированное. Строки только добавляются и читаются, поэтому в таблице нет версии и срока
+ * ожидания - строка уже, чем в рабочей таблице.
+ */
+@Entity
+@Table(name = "booking_history", indexes = {
+    @Index(name = "idx_history_user_created", columnList = "user_id, created_at DESC, id DESC"),
+    @Index(name = "idx_history_request_id", columnList = "request_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingHistory {
+
+    // id из bookings
+    @Id
+    private Long id;
+
+    @Column(name = "request_id", nullable = false)
+    private String requestId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "hotel_id")
+    private Long hotelId;
+
+    @Column(name = "room_id")
+    private Long roomId;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Booking.BookingStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "compensation_reason")
+    private String compensationReason;
+
+    @Column(name = "moved_at", nullable = false)
+    private LocalDateTime movedAt;
+}
@@ -0,0 +1,43 @@
+package ru.mephi.springfinal.booking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись журнала отзыва токенов. {@code id} - номер записи в журнале: инстансы
+ * синхронизируются инкрементально, запрашивая записи с id больше последнего известного.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+    // уникальность ключа делает использование refresh-токена атомарным: вторая вставка того же jti падает
+    @Index(name = "idx_revocation_key", columnList = "revocation_key", unique = true),
+    @Index(name = "idx_revoked_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // jti токена или user:<id> для отзыва всех токенов пользователя
+    @Column(name = "revocation_key", nullable = false, length = 64)
+    private String revocationKey;
+
+    @Column(name = "not_before", nullable = false)
+    private Long notBefore;
+
+    @Column(name = "expires_at", nullable = false)
+    private Long expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "revoked_at", updatable = false)
+    private LocalDateTime revokedAt;
+}
@@ -1,16 +1,19 @@
 package ru.mephi.springfinal.booking.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestControllerAdvice
@@ -22,7 +25,8 @@ public class GlobalExceptionHandler {
 
         // Проверяем конкретные сообщения для определения статуса
         if (ex.getMessage() != null) {
-            if (ex.getMessage().contains("Invalid username or password")) {
+            if (ex.getMessage().contains("Invalid username or password")
+                    || ex.getMessage().contains("Invalid refresh token")) {
                 return buildErrorResponse(
                         HttpStatus.UNAUTHORIZED,
                         "Authentication failed",
@@ -62,6 +66,32 @@ public class GlobalExceptionHandler {
         );
     }
 
+    // Неизвестный статус или дата не в ISO-формате в параметрах запроса
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleTypeMismatchException(MethodArgumentTypeMismatchException ex) {
+        log.warn("Invalid request parameter '{}': {}", ex.getName(), ex.getValue());
+        return buildErrorResponse(
+                HttpStatus.BAD_REQUEST,
+                "Invalid request",
+                "Invalid value for parameter '" + ex.getName() + "'"
+        );
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ErrorResponse> handleRejectedExecutionException(RejectedExecutionException ex) {
+        // Перегрузка ожидаема при волне логинов: без stack trace, чтобы не раздувать логи
+        log.warn("Request rejected: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service overloaded",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDeniedException(AccessDeniedException ex) {
         log.error("Access denied: {}", ex.getMessage(), ex);
@@ -0,0 +1,52 @@
+package ru.mephi.springfinal.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.mephi.springfinal.booking.entity.Booking;
+import ru.mephi.springfinal.booking.entity.BookingHistory;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookingHistoryRepository extends JpaRepository<BookingHistory, Long> {
+
+    @Modifying
+    @Query("INSERT INTO BookingHistory (id, requestId, userId, hotelId, roomId, startDate, endDate, status, " +
+           "createdAt, compensationReason, movedAt) " +
+           "SELECT b.id, b.requestId, b.userId, b.hotelId, b.roomId, b.startDate, b.endDate, b.status, " +
+           "b.createdAt, b.compensationReason, :movedAt " +
+           "FROM Booking b WHERE b.id IN :ids")
+    int copyFromBookings(@Param("ids") Collection<Long> ids, @Param("movedAt") LocalDateTime movedAt);
+
+    @Query("SELECT h FROM BookingHistory h WHERE h.userId = :userId " +
+           "AND (:status IS NULL OR h.status = :status) " +
+           "AND (:from IS NULL OR h.endDate >= :from) " +
+           "AND (:to IS NULL OR h.startDate <= :to) " +
+           "ORDER BY h.createdAt DESC, h.id DESC")
+    List<BookingHistory> findPage(@Param("userId") Long userId,
+                                  @Param("status") Booking.BookingStatus status,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to,
+                                  Pageable pageable);
+
+    @Query("SELECT h FROM BookingHistory h WHERE h.userId = :userId " +
+           "AND h.createdAt <= :createdAt AND (h.createdAt < :createdAt OR h.id < :id) " +
+           "AND (:status IS NULL OR h.status = :status) " +
+           "AND (:from IS NULL OR h.endDate >= :from) " +
+           "AND (:to IS NULL OR h.startDate <= :to) " +
+           "ORDER BY h.createdAt DESC, h.id DESC")
+    List<BookingHistory> findPageAfter(@Param("userId") Long userId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       @Param("status") Booking.BookingStatus status,
+                                       @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to,
+                                       Pageable pageable);
+}
@@ -1,12 +1,16 @@
 package ru.mephi.springfinal.booking.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.mephi.springfinal.booking.entity.Booking;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,9 +21,57 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     List<Booking> findByUserId(Long userId);
 
-    List<Booking> findByUserIdOrderByCreatedAtDesc(Long userId);
-
     @Query("SELECT b FROM Booking b WHERE b.status = 'PENDING' AND b.expiresAt < :now")
     List<Booking> findExpiredPendingBookings(@Param("now") LocalDateTime now);
-}
 
+    /**
+     * Первая страница бронирований пользователя, новые первыми: чтение по индексу
+     * {@code idx_user_created} без сортировки. Пустой фильтр не ограничивает выборку;
+     * {@code from}/{@code to} - пересечение периода проживания с заданным.
+     */
+    @Query("SELECT b FROM Booking b WHERE b.userId = :userId " +
+           "AND (:status IS NULL OR b.status = :status) " +
+           "AND (:from IS NULL OR b.endDate >= :from) " +
+           "AND (:to IS NULL OR b.startDate <= :to) " +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    List<Booking> findPage(@Param("userId") Long userId,
+                           @Param("status") Booking.BookingStatus status,
+                           @Param("from") LocalDate from,
+                           @Param("to") LocalDate to,
+                           Pageable pageable);
+
+    /**
+     * Следующая страница после {@code (createdAt, id)} с теми же фильтрами, что и {@link #findPage}.
+     * Условие {@code createdAt <= :createdAt} дублирует keyset-условие, чтобы чтение индекса
+     * начиналось с позиции курсора, а не с начала диапазона пользователя.
+     */
+    @Query("SELECT b FROM Booking b WHERE b.userId = :userId " +
+           "AND b.createdAt <= :createdAt AND (b.createdAt < :createdAt OR b.id < :id) " +
+           "AND (:status IS NULL OR b.status = :status) " +
+           "AND (:from IS NULL OR b.endDate >= :from) " +
+           "AND (:to IS NULL OR b.startDate <= :to) " +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    List<Booking> findPageAfter(@Param("userId") Long userId,
+                                @Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") Long id,
+                                @Param("status") Booking.BookingStatus status,
+                                @Param("from") LocalDate from,
+                                @Param("to") LocalDate to,
+                                Pageable pageable);
+
+    /**
+     * Кандидаты в историю: отмененные и компенсированные, созданные раньше {@code createdBefore},
+     * подтвержденные с выездом раньше {@code endedBefore}.
+     */
+    @Query("SELECT b.id FROM Booking b " +
+           "WHERE (b.status IN ('CANCELLED', 'COMPENSATED') AND b.createdAt < :createdBefore) " +
+           "OR (b.status = 'CONFIRMED' AND b.endDate < :endedBefore) " +
+           "ORDER BY b.id")
+    List<Long> findIdsForHistory(@Param("createdBefore") LocalDateTime createdBefore,
+                                 @Param("endedBefore") LocalDate endedBefore,
+                                 Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Booking b WHERE b.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
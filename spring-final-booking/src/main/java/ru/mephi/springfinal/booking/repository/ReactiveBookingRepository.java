@@ -0,0 +1,111 @@
+package ru.mephi.springfinal.booking.repository;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.booking.entity.Booking;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC-доступ к таблице {@code bookings} для реактивного конвейера бронирования.
+ * <p>
+ * Таблица общая с {@link BookingRepository} (схему создает Hibernate), поэтому SQL повторяет
+ * JPA-отображение {@link Booking}: статус передается строкой (Hibernate создает для него
+ * ENUM-колонку, отсюда явный CAST), {@code version} проверяется и увеличивается при
+ * каждом обновлении, как при оптимистичной блокировке на стороне JPA.
+ * Репозитории Spring Data R2DBC не используются: их {@code @Transactional} без реактивного
+ * TransactionManager открывал бы JPA-транзакцию на event loop.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveBookingRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Booking> findByRequestId(String requestId) {
+        return databaseClient.sql("SELECT * FROM bookings WHERE request_id = :requestId")
+                .bind("requestId", requestId)
+                .map(ReactiveBookingRepository::toBooking)
+                .one();
+    }
+
+    public Mono<Booking> insert(Booking booking) {
+        booking.setVersion(0);
+        return databaseClient.sql("""
+                        INSERT INTO bookings (request_id, user_id, hotel_id, room_id, start_date, end_date,
+                                              status, created_at, expires_at, version)
+                        VALUES (:requestId, :userId, :hotelId, :roomId, :startDate, :endDate,
+                                CAST(:status AS VARCHAR(16)), :createdAt, :expiresAt, :version)
+                        """)
+                .bind("requestId", booking.getRequestId())
+                .bind("userId", booking.getUserId())
+                .bindNull("hotelId", Long.class)
+                .bindNull("roomId", Long.class)
+                .bind("startDate", booking.getStartDate())
+                .bind("endDate", booking.getEndDate())
+                .bind("status", booking.getStatus().name())
+                .bind("createdAt", booking.getCreatedAt())
+                .bind("expiresAt", booking.getExpiresAt())
+                .bind("version", booking.getVersion())
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    booking.setId(id);
+                    return booking;
+                });
+    }
+
+    /**
+     * Сохранить результат шага саги: статус, выбранный номер и причину компенсации.
+     *
+     * @throws OptimisticLockingFailureException строку успели изменить (например, отменить через JPA)
+     */
+    public Mono<Booking> updateSagaState(Booking booking) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
+                        UPDATE bookings
+                        SET status = CAST(:status AS VARCHAR(16)), hotel_id = :hotelId, room_id = :roomId,
+                            compensation_reason = :reason, version = version + 1
+                        WHERE id = :id AND version = :version
+                        """)
+                .bind("status", booking.getStatus().name())
+                .bind("id", booking.getId())
+                .bind("version", booking.getVersion());
+        spec = booking.getHotelId() != null ? spec.bind("hotelId", booking.getHotelId()) : spec.bindNull("hotelId", Long.class);
+        spec = booking.getRoomId() != null ? spec.bind("roomId", booking.getRoomId()) : spec.bindNull("roomId", Long.class);
+        spec = booking.getCompensationReason() != null
+                ? spec.bind("reason", booking.getCompensationReason())
+                : spec.bindNull("reason", String.class);
+        return spec.fetch().rowsUpdated()
+                .flatMap(updated -> {
+                    if (updated != 1) {
+                        return Mono.error(new OptimisticLockingFailureException(
+                                "Booking " + booking.getId() + " was modified concurrently"));
+                    }
+                    booking.setVersion(booking.getVersion() + 1);
+                    return Mono.just(booking);
+                });
+    }
+
+    private static Booking toBooking(Readable row) {
+        Booking booking = new Booking();
+        booking.setId(row.get("id", Long.class));
+        booking.setRequestId(row.get("request_id", String.class));
+        booking.setUserId(row.get("user_id", Long.class));
+        booking.setHotelId(row.get("hotel_id", Long.class));
+        booking.setRoomId(row.get("room_id", Long.class));
+        booking.setStartDate(row.get("start_date", LocalDate.class));
+        booking.setEndDate(row.get("end_date", LocalDate.class));
+        booking.setStatus(Booking.BookingStatus.valueOf(row.get("status", String.class)));
+        booking.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        booking.setExpiresAt(row.get("expires_at", LocalDateTime.class));
+        booking.setCompensationReason(row.get("compensation_reason", String.class));
+        booking.setVersion(row.get("version", Integer.class));
+        return booking;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.mephi.springfinal.booking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.mephi.springfinal.booking.entity.RevokedToken;
+
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    List<RevokedToken> findTop1000ByIdGreaterThanOrderByIdAsc(Long id);
+
+    boolean existsByRevocationKey(String revocationKey);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.revocationKey = :key")
+    int deleteByRevocationKey(@Param("key") String revocationKey);
+
+    @Modifying
+    long deleteByExpiresAtLessThanEqual(Long epochSeconds);
+}
@@ -10,5 +10,12 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
-}
 
+    // Проекция без EAGER-загрузки user_roles: для проверки, что пользователь существует и не отключен
+    Optional<UserStatus> findStatusById(Long id);
+
+    interface UserStatus {
+        Long getId();
+        Boolean getEnabled();
+    }
+}
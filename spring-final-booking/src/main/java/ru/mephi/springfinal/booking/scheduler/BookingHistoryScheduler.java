@@ -0,0 +1,42 @@
+package ru.mephi.springfinal.booking.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.mephi.springfinal.booking.service.BookingHistoryService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingHistoryScheduler {
+
+    private final BookingHistoryService bookingHistoryService;
+
+    @Value("${booking.history.batch-size:500}")
+    private int batchSize;
+
+    @Value("${booking.history.finished-age:30d}")
+    private Duration finishedAge;
+
+    @Scheduled(fixedDelayString = "${booking.history.interval:600000}") // default: every 10 minutes
+    public void moveFinishedBookings() {
+        LocalDateTime createdBefore = LocalDateTime.now().minus(finishedAge);
+        LocalDate endedBefore = LocalDate.now().minusDays(finishedAge.toDays());
+        int total = 0;
+        int moved;
+        // пакетами, каждый в своей транзакции: блокировки рабочей таблицы держатся недолго
+        do {
+            moved = bookingHistoryService.moveBatch(createdBefore, endedBefore, batchSize);
+            total += moved;
+        } while (moved == batchSize);
+        if (total > 0) {
+            log.info("Moved {} finished bookings to history", total);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.mephi.springfinal.booking.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.mephi.springfinal.booking.service.TokenRevocationService;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RevocationSyncScheduler {
+
+    private final TokenRevocationService tokenRevocationService;
+
+    @Scheduled(fixedDelayString = "${revocation.sync.interval:1000}")
+    public void syncRevocations() {
+        tokenRevocationService.sync();
+    }
+
+    @Scheduled(fixedDelayString = "${revocation.purge.interval:3600000}") // default: every hour
+    public void purgeExpiredRevocations() {
+        log.debug("Running revocation purge task");
+        tokenRevocationService.purgeExpired();
+    }
+}
@@ -0,0 +1,19 @@
+package ru.mephi.springfinal.booking.security;
+
+import java.security.Principal;
+
+/**
+ * Principal аутентифицированного запроса: userId берется из claims JWT или заголовка
+ * идентичности Gateway, поэтому контроллерам не нужно искать пользователя по username.
+ *
+ * @param userId    {@code null} для токенов без claim {@code userId}
+ * @param tokenId   {@code jti} токена запроса, по нему выполняется logout
+ * @param expiresAt срок действия токена, epoch seconds
+ */
+public record AuthenticatedUser(Long userId, String username, String tokenId, long expiresAt) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,6 +1,5 @@
 package ru.mephi.springfinal.booking.security;
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,10 +11,13 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import ru.mephi.springfinal.booking.service.TokenRevocationService;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.identity.VerifiedTokenCache;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.Instant;
 
 @Slf4j
 @Component
@@ -23,6 +25,9 @@ import java.util.stream.Collectors;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final InternalIdentityCodec identityCodec;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -30,6 +35,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                    FilterChain filterChain)
             throws ServletException, IOException {
 
+        // Запрос через Gateway: JWT уже проверен, достаточно сверить HMAC заголовка идентичности
+        String identityHeader = request.getHeader(InternalIdentityCodec.HEADER);
+        if (identityHeader != null) {
+            authenticateIdentity(identityHeader);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         String header = request.getHeader("Authorization");
 
         if (header == null || !header.startsWith("Bearer ")) {
@@ -39,23 +52,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String token = header.substring(7);
-            Claims claims = jwtUtil.extractClaims(token);
-
-            String username = claims.getSubject();
-            @SuppressWarnings("unchecked")
-            List<String> roles = claims.get("roles", List.class);
-
-            if (username != null && roles != null) {
-                List<SimpleGrantedAuthority> authorities = roles.stream()
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
+            // Подпись и claims проверяются только при первом появлении токена
+            VerifiedTokenCache.VerifiedToken verified = verifiedTokenCache.get(token, jwtUtil::verify);
 
+            // Отзыв проверяется на каждом запросе, в том числе при попадании в кэш
+            if (verified != null && tokenRevocationService.isRevoked(
+                    verified.tokenId(), verified.userId(), verified.issuedAt())) {
+                log.debug("Revoked token used by user: {}", verified.username());
+            } else if (verified != null) {
                 // Сохраняем токен в credentials для использования в межсервисных вызовах
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(username, token, authorities);
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        new AuthenticatedUser(verified.userId(), verified.username(), verified.tokenId(),
+                                verified.expiresAt() != null ? verified.expiresAt().getEpochSecond() : 0),
+                        token, verified.authorities());
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                log.debug("Authentication set for user: {}", username);
+                log.debug("Authentication set for user: {}", verified.username());
             }
         } catch (Exception e) {
             log.error("JWT validation failed: {}", e.getMessage());
@@ -63,5 +75,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
 
+    private void authenticateIdentity(String identityHeader) {
+        try {
+            InternalIdentity identity = identityCodec.decode(identityHeader, Instant.now());
+            // Gateway проверяет отзыв сам, но журнал Booking обновляется раньше
+            if (tokenRevocationService.isRevoked(identity.tokenId(), identity.userId(), identity.issuedAt())) {
+                log.debug("Revoked token used by user: {}", identity.username());
+                return;
+            }
+            // Личность сохраняется в credentials: HotelServiceClient передает ее дальше вместо JWT
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    new AuthenticatedUser(identity.userId(), identity.username(), identity.tokenId(),
+                            identity.expiresAt()),
+                    identity,
+                    identity.roles().stream().map(SimpleGrantedAuthority::new).toList());
+
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        } catch (IllegalArgumentException e) {
+            log.warn("Internal identity header rejected: {}", e.getMessage());
+        }
+    }
+}
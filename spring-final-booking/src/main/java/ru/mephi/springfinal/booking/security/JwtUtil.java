@@ -1,29 +1,44 @@
 package ru.mephi.springfinal.booking.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
+import ru.mephi.springfinal.contracts.identity.VerifiedTokenCache;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 @Slf4j
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private static final String TOKEN_TYPE_CLAIM = "typ";
+    private static final String REFRESH_TOKEN_TYPE = "refresh";
 
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    private final Long expiration;
+    private final Long refreshExpiration;
+    // Ключ и парсер потокобезопасны и строятся один раз, а не на каждый запрос
+    private final SecretKey signingKey;
+    private final JwtParser parser;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") Long expiration,
+                   @Value("${jwt.refresh-expiration:604800000}") Long refreshExpiration) {
+        this.expiration = expiration;
+        this.refreshExpiration = refreshExpiration;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
     public String generateToken(String username, List<String> roles, Long userId) {
@@ -31,21 +46,76 @@ public class JwtUtil {
         Date expiryDate = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .claim("roles", roles)
                 .claim("userId", userId)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * Refresh-токен без ролей: по нему нельзя обратиться к API, только получить новый access-токен
+     * через {@code /api/user/refresh} без повторной проверки пароля (BCrypt).
+     */
+    public String generateRefreshToken(String username, Long userId) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + refreshExpiration);
+
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(username)
+                .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE)
+                .claim("userId", userId)
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .signWith(signingKey)
+                .compact();
+    }
+
+    /**
+     * Проверить подпись и тип refresh-токена.
+     *
+     * @throws IllegalArgumentException если токен не refresh-токен или в нем нет userId
+     */
+    public Claims extractRefreshClaims(String refreshToken) {
+        Claims claims = extractClaims(refreshToken);
+        if (!REFRESH_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM, String.class))
+                || claims.get("userId", Long.class) == null) {
+            throw new IllegalArgumentException("Not a refresh token");
+        }
+        return claims;
+    }
+
     public Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    /**
+     * Проверить подпись и срок токена и собрать principal для {@link VerifiedTokenCache}.
+     * Возвращает {@code null}, если в токене нет subject или ролей, а также для refresh-токенов.
+     */
+    public VerifiedTokenCache.VerifiedToken verify(String token) {
+        Claims claims = extractClaims(token);
+
+        String username = claims.getSubject();
+        @SuppressWarnings("unchecked")
+        List<String> roles = claims.get("roles", List.class);
+        if (username == null || roles == null || claims.containsKey(TOKEN_TYPE_CLAIM)) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        Long userId = claims.get("userId", Long.class);
+        Date issuedAt = claims.getIssuedAt();
+        Date expiresAt = claims.getExpiration();
+        return new VerifiedTokenCache.VerifiedToken(username, userId, authorities, claims.getId(),
+                issuedAt != null ? issuedAt.toInstant().getEpochSecond() : 0,
+                expiresAt != null ? expiresAt.toInstant() : null);
     }
 
     public String extractUsername(String token) {
@@ -62,4 +132,3 @@ public class JwtUtil {
         }
     }
 }
-
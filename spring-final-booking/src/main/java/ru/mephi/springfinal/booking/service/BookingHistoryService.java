@@ -0,0 +1,45 @@
+package ru.mephi.springfinal.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mephi.springfinal.booking.repository.BookingHistoryRepository;
+import ru.mephi.springfinal.booking.repository.BookingRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Перенос завершенных бронирований из рабочей таблицы {@code bookings} в {@code booking_history}.
+ * В рабочей таблице остаются ожидающие, предстоящие и недавно завершенные бронирования, по ним идут
+ * запросы саги и очистки; история только дописывается и читается при выдаче списка бронирований.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookingHistoryService {
+
+    private final BookingRepository bookingRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
+
+    /**
+     * Перенести до {@code batchSize} бронирований одной транзакцией: копия и удаление фиксируются
+     * вместе, поэтому при слиянии источников бронирование не пропадает и не повторяется.
+     *
+     * @return число перенесенных бронирований
+     */
+    @Transactional
+    public int moveBatch(LocalDateTime createdBefore, LocalDate endedBefore, int batchSize) {
+        List<Long> ids = bookingRepository.findIdsForHistory(createdBefore, endedBefore, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        bookingHistoryRepository.copyFromBookings(ids, LocalDateTime.now());
+        bookingRepository.deleteByIdIn(ids);
+        log.debug("Moved {} bookings to history", ids.size());
+        return ids.size();
+    }
+}
@@ -3,32 +3,55 @@ package ru.mephi.springfinal.booking.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.mephi.springfinal.booking.client.HotelServiceClient;
+import ru.mephi.springfinal.booking.dto.BookingCursor;
 import ru.mephi.springfinal.booking.dto.BookingDto;
+import ru.mephi.springfinal.booking.dto.BookingPage;
 import ru.mephi.springfinal.booking.entity.Booking;
+import ru.mephi.springfinal.booking.entity.BookingHistory;
+import ru.mephi.springfinal.booking.repository.BookingHistoryRepository;
 import ru.mephi.springfinal.booking.repository.BookingRepository;
+import ru.mephi.springfinal.contracts.room.AvailabilityResponse;
+import ru.mephi.springfinal.contracts.room.RoomView;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookingService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final Comparator<BookingDto> NEWEST_FIRST =
+            Comparator.comparing(BookingDto::getCreatedAt).thenComparing(BookingDto::getId).reversed();
+
     private final BookingRepository bookingRepository;
+    private final BookingHistoryRepository bookingHistoryRepository;
     private final HotelServiceClient hotelServiceClient;
 
     @Value("${booking.pending-timeout-minutes:5}")
     private int pendingTimeoutMinutes;
 
-    @Transactional
+    @Value("${booking.history.page-size:50}")
+    private int defaultPageSize;
+
+    /**
+     * Сага бронирования. Метод намеренно не транзакционный: каждый локальный шаг (PENDING,
+     * CONFIRMED, компенсация) коммитится отдельно через репозиторий, а вызовы Hotel Service идут
+     * вне транзакции и не удерживают соединение из пула на время сетевого ожидания.
+     */
     public BookingDto createBooking(BookingDto dto) {
         String requestId = dto.getRequestId() != null ? dto.getRequestId() : UUID.randomUUID().toString();
         log.info("Creating booking with requestId: {}", requestId);
@@ -87,7 +110,7 @@ public class BookingService {
         log.info("Auto-selecting room for booking: {}", booking.getId());
 
         // Получение рекомендованных комнат (отсортированных по times_booked)
-        List<Map<String, Object>> rooms = hotelServiceClient.getRecommendedRooms(
+        List<RoomView> rooms = hotelServiceClient.getRecommendedRooms(
                 dto.getHotelId(),
                 dto.getRoomType(),
                 dto.getStartDate(),
@@ -100,11 +123,11 @@ public class BookingService {
         }
 
         // Попытка подтверждения каждой комнаты по порядку
-        for (Map<String, Object> room : rooms) {
-            Long roomId = getLongValue(room.get("id"));
+        for (RoomView room : rooms) {
+            Long roomId = room.id();
             log.info("Trying to confirm room: {} for booking: {}", roomId, booking.getId());
 
-            Map<String, Object> response = hotelServiceClient.confirmAvailability(
+            AvailabilityResponse response = hotelServiceClient.confirmAvailability(
                     roomId,
                     booking.getRequestId(),
                     booking.getId(),
@@ -112,14 +135,13 @@ public class BookingService {
                     booking.getEndDate()
             );
 
-            Boolean available = (Boolean) response.get("available");
-            if (Boolean.TRUE.equals(available)) {
+            if (response.available()) {
                 booking.setRoomId(roomId);
-                booking.setHotelId(getLongValue(room.get("hotelId")));
+                booking.setHotelId(room.hotelId());
                 log.info("Successfully confirmed room: {} for booking: {}", roomId, booking.getId());
                 return true;
             } else {
-                log.warn("Room {} not available: {}", roomId, response.get("message"));
+                log.warn("Room {} not available: {}", roomId, response.message());
             }
         }
 
@@ -129,7 +151,7 @@ public class BookingService {
     private boolean confirmSpecificRoom(Booking booking, Long roomId) {
         log.info("Confirming specific room: {} for booking: {}", roomId, booking.getId());
 
-        Map<String, Object> response = hotelServiceClient.confirmAvailability(
+        AvailabilityResponse response = hotelServiceClient.confirmAvailability(
                 roomId,
                 booking.getRequestId(),
                 booking.getId(),
@@ -137,18 +159,16 @@ public class BookingService {
                 booking.getEndDate()
         );
 
-        Boolean available = (Boolean) response.get("available");
-        if (Boolean.TRUE.equals(available)) {
+        if (response.available()) {
             booking.setRoomId(roomId);
             log.info("Successfully confirmed room: {} for booking: {}", roomId, booking.getId());
             return true;
         } else {
-            log.warn("Room {} not available: {}", roomId, response.get("message"));
+            log.warn("Room {} not available: {}", roomId, response.message());
             return false;
         }
     }
 
-    @Transactional
     protected void compensateBooking(Booking booking, String reason) {
         log.info("Compensating booking: {}, reason: {}", booking.getId(), reason);
 
@@ -168,28 +188,78 @@ public class BookingService {
         log.info("Booking compensated: id={}", booking.getId());
     }
 
+    /**
+     * Страница бронирований пользователя, новые первыми. Рабочая таблица и история читаются
+     * keyset-запросами после {@code cursor} не дальше {@code limit + 1} строк каждая и сливаются по
+     * {@code (createdAt, id)}: стоимость страницы не зависит от длины истории.
+     * <p>
+     * Фильтры по статусу и периоду проживания ({@code from}/{@code to}, пересечение) выполняются в тех же
+     * запросах; курсор действителен только с теми же фильтрами.
+     */
     @Transactional(readOnly = true)
-    public List<BookingDto> getUserBookings(Long userId) {
-        log.info("Fetching bookings for user: {}", userId);
-        List<Booking> bookings = bookingRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return bookings.stream().map(this::toDto).collect(Collectors.toList());
+    public BookingPage getUserBookings(Long userId, String cursor, Integer limit,
+                                       Booking.BookingStatus status, LocalDate from, LocalDate to) {
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        log.info("Fetching bookings for user: {}, cursor: {}, status: {}, from: {}, to: {}",
+                userId, cursor, status, from, to);
+
+        Pageable window = PageRequest.of(0, pageSize + 1);
+        List<Booking> hot;
+        List<BookingHistory> cold;
+        if (cursor == null) {
+            hot = bookingRepository.findPage(userId, status, from, to, window);
+            cold = bookingHistoryRepository.findPage(userId, status, from, to, window);
+        } else {
+            BookingCursor after = BookingCursor.decode(cursor);
+            hot = bookingRepository.findPageAfter(userId, after.createdAt(), after.id(), status, from, to, window);
+            cold = bookingHistoryRepository.findPageAfter(userId, after.createdAt(), after.id(), status, from, to,
+                    window);
+        }
+
+        // Рабочая таблица читается раньше истории: бронирование, которое BookingHistoryService перенес между
+        // запросами, попадет в оба списка, но не пропадет. Дубль убирается до сортировки и курсора
+        Map<Long, BookingDto> distinct = new LinkedHashMap<>(hot.size() + cold.size());
+        hot.forEach(booking -> distinct.putIfAbsent(booking.getId(), toDto(booking)));
+        cold.forEach(booking -> distinct.putIfAbsent(booking.getId(), toDto(booking)));
+        List<BookingDto> merged = new ArrayList<>(distinct.values());
+        merged.sort(NEWEST_FIRST);
+        if (merged.size() <= pageSize) {
+            return new BookingPage(merged, null);
+        }
+        List<BookingDto> page = new ArrayList<>(merged.subList(0, pageSize));
+        BookingDto last = page.get(pageSize - 1);
+        return new BookingPage(page, new BookingCursor(last.getCreatedAt(), last.getId()).encode());
     }
 
     @Transactional(readOnly = true)
     public BookingDto getBookingById(Long id) {
         log.info("Fetching booking: {}", id);
-        Booking booking = bookingRepository.findById(id)
+        return bookingRepository.findById(id)
+                .map(BookingService::toDto)
+                .or(() -> bookingHistoryRepository.findById(id).map(BookingService::toDto))
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
-        return toDto(booking);
     }
 
-    @Transactional
+    // Как и createBooking, не держит транзакцию на время вызова releaseReservation
     public void cancelBooking(Long id) {
         log.info("Cancelling booking: {}", id);
 
-        Booking booking = bookingRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
+        Optional<Booking> found = bookingRepository.findById(id);
+        if (found.isEmpty()) {
+            if (!bookingHistoryRepository.existsById(id)) {
+                throw new RuntimeException("Booking not found");
+            }
+            log.warn("Booking already finished and moved to history: {}", id);
+            return;
+        }
 
+        Booking booking = found.get();
         if (booking.getStatus() == Booking.BookingStatus.CANCELLED ||
             booking.getStatus() == Booking.BookingStatus.COMPENSATED) {
             log.warn("Booking already cancelled/compensated: {}", id);
@@ -211,7 +281,6 @@ public class BookingService {
         log.info("Booking cancelled: {}", id);
     }
 
-    @Transactional
     public void cleanupExpiredBookings() {
         log.info("Cleaning up expired bookings");
 
@@ -225,7 +294,7 @@ public class BookingService {
         log.info("Cleaned up {} expired bookings", expired.size());
     }
 
-    private BookingDto toDto(Booking booking) {
+    static BookingDto toDto(Booking booking) {
         BookingDto dto = new BookingDto();
         dto.setId(booking.getId());
         dto.setRequestId(booking.getRequestId());
@@ -241,12 +310,19 @@ public class BookingService {
         return dto;
     }
 
-    private Long getLongValue(Object value) {
-        if (value == null) return null;
-        if (value instanceof Long) return (Long) value;
-        if (value instanceof Integer) return ((Integer) value).longValue();
-        if (value instanceof String) return Long.parseLong((String) value);
-        return null;
+    static BookingDto toDto(BookingHistory booking) {
+        BookingDto dto = new BookingDto();
+        dto.setId(booking.getId());
+        dto.setRequestId(booking.getRequestId());
+        dto.setUserId(booking.getUserId());
+        dto.setHotelId(booking.getHotelId());
+        dto.setRoomId(booking.getRoomId());
+        dto.setStartDate(booking.getStartDate());
+        dto.setEndDate(booking.getEndDate());
+        dto.setStatus(booking.getStatus().name());
+        dto.setCreatedAt(booking.getCreatedAt());
+        dto.setCompensationReason(booking.getCompensationReason());
+        return dto;
     }
 }
 
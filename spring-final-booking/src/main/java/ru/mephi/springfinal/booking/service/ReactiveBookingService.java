@@ -0,0 +1,165 @@
+package ru.mephi.springfinal.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.booking.client.HotelServiceClient;
+import ru.mephi.springfinal.booking.dto.BookingDto;
+import ru.mephi.springfinal.booking.entity.Booking;
+import ru.mephi.springfinal.booking.repository.ReactiveBookingRepository;
+import ru.mephi.springfinal.contracts.room.RoomView;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Неблокирующий вариант саги {@link BookingService#createBooking}: те же шаги и статусы,
+ * но собранные из {@code Mono} клиента Hotel Service и R2DBC-запросов. Ни один поток не ждет
+ * ответа, поэтому тысячи саг обслуживаются небольшим фиксированным пулом event loop.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReactiveBookingService {
+
+    private final ReactiveBookingRepository bookingRepository;
+    private final HotelServiceClient hotelServiceClient;
+
+    @Value("${booking.pending-timeout-minutes:5}")
+    private int pendingTimeoutMinutes;
+
+    public Mono<BookingDto> createBooking(BookingDto dto) {
+        String requestId = dto.getRequestId() != null ? dto.getRequestId() : UUID.randomUUID().toString();
+        log.info("Creating booking (reactive) with requestId: {}", requestId);
+
+        // Идемпотентность: при повторе с тем же requestId возвращается существующее бронирование
+        return bookingRepository.findByRequestId(requestId)
+                .doOnNext(existing -> log.info("Booking already exists for requestId: {}", requestId))
+                .switchIfEmpty(Mono.defer(() -> createPending(dto, requestId)
+                        .flatMap(booking -> runSaga(booking, dto))
+                        // Параллельный запрос с тем же requestId успел вставить строку первым
+                        .onErrorResume(DataIntegrityViolationException.class,
+                                e -> bookingRepository.findByRequestId(requestId))))
+                .map(BookingService::toDto);
+    }
+
+    private Mono<Booking> createPending(BookingDto dto, String requestId) {
+        Booking booking = new Booking();
+        booking.setRequestId(requestId);
+        booking.setUserId(dto.getUserId());
+        booking.setStartDate(dto.getStartDate());
+        booking.setEndDate(dto.getEndDate());
+        booking.setStatus(Booking.BookingStatus.PENDING);
+        booking.setCreatedAt(LocalDateTime.now());
+        booking.setExpiresAt(LocalDateTime.now().plusMinutes(pendingTimeoutMinutes));
+
+        return bookingRepository.insert(booking)
+                .doOnNext(saved -> log.info("Created PENDING booking: id={}, requestId={}", saved.getId(), requestId));
+    }
+
+    private Mono<Booking> runSaga(Booking booking, BookingDto dto) {
+        Mono<Boolean> confirmation;
+        if (Boolean.TRUE.equals(dto.getAutoSelect())) {
+            confirmation = autoSelectAndConfirmRoom(booking, dto);
+        } else if (dto.getRoomId() != null) {
+            confirmation = confirmSpecificRoom(booking, dto.getRoomId());
+        } else {
+            confirmation = Mono.error(new RuntimeException("Either roomId or autoSelect must be specified"));
+        }
+
+        return confirmation
+                .flatMap(confirmed -> {
+                    if (!confirmed) {
+                        return compensateBooking(booking, "No available rooms");
+                    }
+                    booking.setStatus(Booking.BookingStatus.CONFIRMED);
+                    return bookingRepository.updateSagaState(booking)
+                            .doOnNext(saved -> log.info("Booking CONFIRMED: id={}, roomId={}",
+                                    saved.getId(), saved.getRoomId()));
+                })
+                .onErrorResume(e -> !(e instanceof OptimisticLockingFailureException), e -> {
+                    log.error("Error confirming booking: {}", e.getMessage(), e);
+                    return compensateBooking(booking, "Error: " + e.getMessage());
+                })
+                .onErrorResume(OptimisticLockingFailureException.class, e -> concurrentlyModified(booking));
+    }
+
+    /**
+     * Бронирование изменили параллельно (отмена через {@link BookingService#cancelBooking}), пока шла сага:
+     * его статус не перезаписывается, подтвержденная сагой резервация снимается - отмена о ней не знала.
+     */
+    private Mono<Booking> concurrentlyModified(Booking booking) {
+        log.warn("Booking {} was modified during saga, keeping its current state", booking.getId());
+        Mono<Void> release = booking.getRoomId() != null
+                ? hotelServiceClient.releaseReservationMono(booking.getRoomId(), booking.getRequestId())
+                        .onErrorResume(e -> {
+                            log.error("Failed to release reservation for booking {}: {}", booking.getId(), e.getMessage());
+                            return Mono.empty();
+                        })
+                : Mono.empty();
+        return release.then(bookingRepository.findByRequestId(booking.getRequestId()));
+    }
+
+    private Mono<Boolean> autoSelectAndConfirmRoom(Booking booking, BookingDto dto) {
+        log.info("Auto-selecting room for booking: {}", booking.getId());
+
+        // Номера перебираются по порядку рекомендаций, следующий запрашивается только после отказа
+        return hotelServiceClient.getRecommendedRoomsMono(
+                        dto.getHotelId(), dto.getRoomType(), dto.getStartDate(), dto.getEndDate())
+                .flatMapMany(Flux::fromIterable)
+                .concatMap(room -> confirmRoom(booking, room.id())
+                        .filter(Boolean::booleanValue)
+                        .map(confirmed -> room))
+                .next()
+                .map((RoomView room) -> {
+                    booking.setRoomId(room.id());
+                    booking.setHotelId(room.hotelId());
+                    log.info("Successfully confirmed room: {} for booking: {}", room.id(), booking.getId());
+                    return true;
+                })
+                .defaultIfEmpty(false);
+    }
+
+    private Mono<Boolean> confirmSpecificRoom(Booking booking, Long roomId) {
+        log.info("Confirming specific room: {} for booking: {}", roomId, booking.getId());
+
+        return confirmRoom(booking, roomId)
+                .doOnNext(confirmed -> {
+                    if (confirmed) {
+                        booking.setRoomId(roomId);
+                        log.info("Successfully confirmed room: {} for booking: {}", roomId, booking.getId());
+                    }
+                });
+    }
+
+    private Mono<Boolean> confirmRoom(Booking booking, Long roomId) {
+        return hotelServiceClient.confirmAvailabilityMono(
+                        roomId, booking.getRequestId(), booking.getId(), booking.getStartDate(), booking.getEndDate())
+                .map(response -> {
+                    if (!response.available()) {
+                        log.warn("Room {} not available: {}", roomId, response.message());
+                    }
+                    return response.available();
+                });
+    }
+
+    private Mono<Booking> compensateBooking(Booking booking, String reason) {
+        log.info("Compensating booking: {}, reason: {}", booking.getId(), reason);
+
+        // Снятие резервации в Hotel Service, если была установлена
+        Mono<Void> release = booking.getRoomId() != null
+                ? hotelServiceClient.releaseReservationMono(booking.getRoomId(), booking.getRequestId())
+                : Mono.empty();
+
+        return release.then(Mono.defer(() -> {
+            booking.setStatus(Booking.BookingStatus.COMPENSATED);
+            booking.setCompensationReason(reason);
+            return bookingRepository.updateSagaState(booking);
+        })).doOnNext(saved -> log.info("Booking compensated: id={}", saved.getId()));
+    }
+}
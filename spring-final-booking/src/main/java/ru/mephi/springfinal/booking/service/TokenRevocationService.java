@@ -0,0 +1,209 @@
+package ru.mephi.springfinal.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.mephi.springfinal.booking.entity.RevokedToken;
+import ru.mephi.springfinal.booking.repository.RevokedTokenRepository;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.identity.Revocation;
+import ru.mephi.springfinal.contracts.identity.RevocationBatch;
+import ru.mephi.springfinal.contracts.identity.RevocationList;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Отзыв токенов до истечения срока.
+ * <p>
+ * Журнал отзывов хранится в таблице {@code revoked_tokens}, проверка на каждом запросе идет
+ * по локальной {@link RevocationList} (фильтр Блума + точное множество) без обращения к БД.
+ * Gateway, Hotel Service и другие инстансы Booking опрашивают каждый инстанс через
+ * {@code GET /api/internal/revocations?cursor=<журнал>@<номер>}.
+ * <p>
+ * БД у каждого инстанса своя (in-memory), номера записей разных инстансов не сравнимы: журнал
+ * инстанса получает случайный идентификатор при старте, курсоры ведутся по нему. Поэтому отзыв,
+ * принятый соседним инстансом, доходит сюда только опросом соседа из Eureka, а не через свою БД.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final RevocationList revocations;
+    private final String source = UUID.randomUUID().toString();
+    // сколько последних записей перечитывать: запись с меньшим id может закоммититься позже
+    private final long syncOverlap;
+    // Отзыв всех токенов пользователя должен пережить самый долгоживущий токен - refresh
+    private final long maxTokenLifetimeSeconds;
+    private final RestClient restClient = RestClient.create();
+    private final DiscoveryClient discoveryClient;
+    private final InternalIdentityCodec identityCodec;
+    private final String serviceId;
+    private final boolean peerSyncEnabled;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  DiscoveryClient discoveryClient,
+                                  InternalIdentityCodec identityCodec,
+                                  @Value("${spring.application.name}") String serviceId,
+                                  @Value("${revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${jwt.refresh-expiration:604800000}") long refreshExpirationMillis,
+                                  @Value("${revocation.sync.overlap:100}") long syncOverlap,
+                                  @Value("${revocation.sync.peers-enabled:true}") boolean peerSyncEnabled) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.discoveryClient = discoveryClient;
+        this.identityCodec = identityCodec;
+        this.serviceId = serviceId;
+        this.syncOverlap = syncOverlap;
+        this.peerSyncEnabled = peerSyncEnabled;
+        this.revocations = new RevocationList(expectedEntries);
+        this.maxTokenLifetimeSeconds = refreshExpirationMillis / 1000;
+    }
+
+    public boolean isRevoked(String tokenId, Long userId, long issuedAt) {
+        return revocations.isRevoked(tokenId, userId, issuedAt);
+    }
+
+    /**
+     * Отозвать токен; повторный отзыв того же токена ничего не делает.
+     */
+    @Transactional
+    public void revokeToken(String tokenId, long expiresAt) {
+        if (tokenId == null || revokedTokenRepository.existsByRevocationKey(tokenId)) {
+            return;
+        }
+        log.info("Revoking token {}", tokenId);
+        record(tokenId, 0, expiresAt);
+    }
+
+    /**
+     * Использовать одноразовый токен: отозвать его, если он еще не отозван.
+     *
+     * @throws DataIntegrityViolationException токен уже использован, в том числе параллельным запросом
+     */
+    @Transactional
+    public void consumeToken(String tokenId, long expiresAt) {
+        record(tokenId, 0, expiresAt);
+    }
+
+    /**
+     * Отозвать все токены пользователя, выпущенные до текущего момента.
+     */
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        log.info("Revoking all tokens of user {}", userId);
+        long now = Instant.now().getEpochSecond();
+        // ключ уникален: прежний отзыв заменяется новой записью журнала, чтобы ее забрали синхронизации
+        revokedTokenRepository.deleteByRevocationKey(Revocation.userKey(userId));
+        record(Revocation.userKey(userId), now, now + maxTokenLifetimeSeconds);
+    }
+
+    /**
+     * Записи журнала этого инстанса после его курсора из {@code cursors}; курсоры других журналов игнорируются.
+     */
+    @Transactional(readOnly = true)
+    public RevocationBatch changesFor(List<String> cursors) {
+        return new RevocationBatch(source, changesAfter(RevocationList.sequenceFor(source, cursors)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Revocation> changesAfter(long sequence) {
+        return revokedTokenRepository.findTop1000ByIdGreaterThanOrderByIdAsc(sequence).stream()
+                .map(TokenRevocationService::toRevocation)
+                .toList();
+    }
+
+    /**
+     * Продвинуть курсор своего журнала и забрать новые записи журналов других инстансов Booking.
+     * <p>
+     * Свои записи в память попадают сразу после коммита, здесь только сдвигается номер журнала.
+     * Записи соседей забираются по HTTP у каждого инстанса из Eureka, как это делает Hotel Service.
+     */
+    public void sync() {
+        List<Revocation> changes;
+        do {
+            changes = changesAfter(Math.max(0, revocations.lastSequence(source) - syncOverlap));
+            revocations.applyChanges(source, changes);
+        } while (changes.size() == PAGE_SIZE);
+        if (peerSyncEnabled) {
+            syncPeers();
+        }
+    }
+
+    @Transactional
+    public void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        long deleted = revokedTokenRepository.deleteByExpiresAtLessThanEqual(now);
+        revocations.purgeExpired(now);
+        log.debug("Purged {} expired revocations, {} active", deleted, revocations.size());
+    }
+
+    private void syncPeers() {
+        for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+            try {
+                RevocationBatch batch;
+                do {
+                    batch = fetch(instance.getUri());
+                    if (source.equals(batch.source())) {
+                        // это сам инстанс: свой журнал читается из БД
+                        break;
+                    }
+                    revocations.applyChanges(batch);
+                } while (batch.revocations().size() == PAGE_SIZE);
+            } catch (Exception e) {
+                // Сосед может быть еще недоступен: повторим на следующем тике
+                log.debug("Revocation sync with {} failed: {}", instance.getUri(), e.getMessage());
+            }
+        }
+    }
+
+    private RevocationBatch fetch(URI instance) {
+        long now = Instant.now().getEpochSecond();
+        String identity = identityCodec.encode(
+                new InternalIdentity(null, serviceId, List.of("ROLE_SERVICE"), null, now, now + 60));
+        URI uri = UriComponentsBuilder.fromUri(instance)
+                .path("/api/internal/revocations")
+                .queryParam("cursor", revocations.cursors(syncOverlap).toArray())
+                .build()
+                .toUri();
+        RevocationBatch batch = restClient.get()
+                .uri(uri)
+                .header(InternalIdentityCodec.HEADER, identity)
+                .retrieve()
+                .body(RevocationBatch.class);
+        if (batch == null) {
+            throw new IllegalStateException("Empty revocation response from " + instance);
+        }
+        return batch;
+    }
+
+    private void record(String key, long notBefore, long expiresAt) {
+        RevokedToken saved = revokedTokenRepository.save(new RevokedToken(null, key, notBefore, expiresAt, null));
+        // Локально отзыв действует сразу после фиксации: откаченный отзыв (например, refresh отключенного
+        // пользователя) не должен остаться в памяти. Номер журнала продвигает только sync
+        Revocation revocation = toRevocation(saved);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revocations.add(revocation);
+            }
+        });
+    }
+
+    private static Revocation toRevocation(RevokedToken token) {
+        return new Revocation(token.getId(), token.getRevocationKey(), token.getNotBefore(), token.getExpiresAt());
+    }
+}
@@ -1,17 +1,29 @@
 package ru.mephi.springfinal.booking.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.mephi.springfinal.booking.dto.AuthRequest;
 import ru.mephi.springfinal.booking.dto.AuthResponse;
+import ru.mephi.springfinal.booking.dto.RefreshRequest;
 import ru.mephi.springfinal.booking.dto.UserDto;
 import ru.mephi.springfinal.booking.entity.User;
 import ru.mephi.springfinal.booking.repository.UserRepository;
+import ru.mephi.springfinal.booking.security.AuthenticatedUser;
 import ru.mephi.springfinal.booking.security.JwtUtil;
+import ru.mephi.springfinal.booking.security.PasswordHashingExecutor;
 
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -21,11 +33,24 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final String INVALID_REFRESH_TOKEN = "Invalid refresh token";
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashing;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
 
-    @Transactional
+    /**
+     * userId -> признак активности. Изменения через updateUser/deleteUser сбрасывают запись сразу,
+     * TTL ограничивает устаревание при изменениях на других инстансах.
+     */
+    private final Cache<Long, Boolean> activeUsers = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    // Без @Transactional: соединение с БД не удерживается, пока пароль ждет пул BCrypt.
+    // Гонку одинаковых username отсекает уникальный индекс users.username
     public AuthResponse register(AuthRequest request) {
         log.info("Registering new user: {}", request.getUsername());
 
@@ -35,7 +60,7 @@ public class UserService {
 
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashing.encode(request.getPassword()));
         Set<String> roles = new HashSet<>();
         roles.add("ROLE_USER");
         user.setRoles(roles);
@@ -43,23 +68,17 @@ public class UserService {
 
         User saved = userRepository.save(user);
 
-        String token = jwtUtil.generateToken(
-                saved.getUsername(),
-                List.copyOf(saved.getRoles()),
-                saved.getId()
-        );
-
-        return new AuthResponse(token, saved.getUsername(), saved.getId());
+        return issueTokens(saved);
     }
 
-    @Transactional(readOnly = true)
+    // Без @Transactional по той же причине, что и register: роли загружаются вместе с пользователем
     public AuthResponse authenticate(AuthRequest request) {
         log.info("Authenticating user: {}", request.getUsername());
 
         User user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new RuntimeException("Invalid username or password"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashing.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid username or password");
         }
 
@@ -67,13 +86,63 @@ public class UserService {
             throw new RuntimeException("User is disabled");
         }
 
-        String token = jwtUtil.generateToken(
-                user.getUsername(),
-                List.copyOf(user.getRoles()),
-                user.getId()
-        );
+        return issueTokens(user);
+    }
+
+    /**
+     * Новая пара токенов по refresh-токену: подпись HMAC и чтение пользователя вместо BCrypt.
+     * Отключенный или удаленный пользователь токены не получает. Refresh-токен одноразовый:
+     * использованный отзывается, в ответе выдается новый. Отзыв - вставка по уникальному ключу,
+     * поэтому из параллельных запросов с одним refresh-токеном новую пару получает только один.
+     */
+    @Transactional
+    public AuthResponse refresh(RefreshRequest request) {
+        Claims claims;
+        try {
+            claims = jwtUtil.extractRefreshClaims(request.getRefreshToken());
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new RuntimeException(INVALID_REFRESH_TOKEN);
+        }
+        Long userId = claims.get("userId", Long.class);
+        if (claims.getId() == null
+                || tokenRevocationService.isRevoked(claims.getId(), userId, claims.getIssuedAt().toInstant().getEpochSecond())) {
+            throw new RuntimeException(INVALID_REFRESH_TOKEN);
+        }
+        try {
+            tokenRevocationService.consumeToken(claims.getId(), claims.getExpiration().toInstant().getEpochSecond());
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Refresh token {} of user {} was reused", claims.getId(), userId);
+            throw new RuntimeException(INVALID_REFRESH_TOKEN);
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException(INVALID_REFRESH_TOKEN));
+        if (!user.getEnabled()) {
+            throw new RuntimeException(INVALID_REFRESH_TOKEN);
+        }
+        activeUsers.put(user.getId(), true);
+
+        return issueTokens(user);
+    }
 
-        return new AuthResponse(token, user.getUsername(), user.getId());
+    /**
+     * Отозвать токен текущего запроса и, если передан, refresh-токен того же пользователя.
+     */
+    @Transactional
+    public void logout(Authentication authentication, RefreshRequest request) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            tokenRevocationService.revokeToken(user.tokenId(), user.expiresAt());
+        }
+        if (request != null && request.getRefreshToken() != null) {
+            try {
+                Claims claims = jwtUtil.extractRefreshClaims(request.getRefreshToken());
+                if (claims.getSubject().equals(authentication.getName())) {
+                    tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration().toInstant().getEpochSecond());
+                }
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Ignoring invalid refresh token on logout: {}", e.getMessage());
+            }
+        }
     }
 
     @Transactional
@@ -86,7 +155,7 @@ public class UserService {
 
         User user = new User();
         user.setUsername(dto.getUsername());
-        user.setPassword(passwordEncoder.encode(dto.getPassword()));
+        user.setPassword(passwordHashing.encode(dto.getPassword()));
         user.setRoles(dto.getRoles() != null ? dto.getRoles() : Set.of("ROLE_USER"));
         user.setEnabled(dto.getEnabled() != null ? dto.getEnabled() : true);
 
@@ -100,27 +169,37 @@ public class UserService {
 
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        // Смена username, пароля, ролей или отключение отзывают все выданные токены
+        boolean revokeTokens = false;
 
         if (dto.getUsername() != null && !dto.getUsername().equals(user.getUsername())) {
             if (userRepository.existsByUsername(dto.getUsername())) {
                 throw new RuntimeException("Username already exists");
             }
             user.setUsername(dto.getUsername());
+            revokeTokens = true;
         }
 
         if (dto.getPassword() != null && !dto.getPassword().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(dto.getPassword()));
+            user.setPassword(passwordHashing.encode(dto.getPassword()));
+            revokeTokens = true;
         }
 
-        if (dto.getRoles() != null) {
+        if (dto.getRoles() != null && !dto.getRoles().equals(user.getRoles())) {
             user.setRoles(dto.getRoles());
+            revokeTokens = true;
         }
 
         if (dto.getEnabled() != null) {
+            revokeTokens |= user.getEnabled() && !dto.getEnabled();
             user.setEnabled(dto.getEnabled());
         }
 
         User updated = userRepository.save(user);
+        if (revokeTokens) {
+            tokenRevocationService.revokeAllForUser(id);
+        }
+        evictAfterCommit(id);
         return toDto(updated);
     }
 
@@ -128,6 +207,32 @@ public class UserService {
     public void deleteUser(Long id) {
         log.info("Deleting user: {}", id);
         userRepository.deleteById(id);
+        tokenRevocationService.revokeAllForUser(id);
+        evictAfterCommit(id);
+    }
+
+    /**
+     * userId текущего пользователя без обращения к таблице users на горячем пути:
+     * id берется из principal, активность - из кэша. Для токенов без userId -
+     * поиск по username.
+     *
+     * @throws AccessDeniedException если пользователь отключен или удален
+     */
+    public Long getActiveUserId(Authentication authentication) {
+        Long userId = authentication.getPrincipal() instanceof AuthenticatedUser user ? user.userId() : null;
+        if (userId == null) {
+            User user = getUserByUsername(authentication.getName());
+            activeUsers.put(user.getId(), user.getEnabled());
+            userId = user.getId();
+        }
+
+        Boolean active = activeUsers.get(userId, id -> userRepository.findStatusById(id)
+                .map(UserRepository.UserStatus::getEnabled)
+                .orElse(false));
+        if (!Boolean.TRUE.equals(active)) {
+            throw new AccessDeniedException("User is disabled or deleted");
+        }
+        return userId;
     }
 
     @Transactional(readOnly = true)
@@ -136,6 +241,31 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    private AuthResponse issueTokens(User user) {
+        String token = jwtUtil.generateToken(
+                user.getUsername(),
+                List.copyOf(user.getRoles()),
+                user.getId()
+        );
+        String refreshToken = jwtUtil.generateRefreshToken(user.getUsername(), user.getId());
+
+        return new AuthResponse(token, user.getUsername(), user.getId(), refreshToken);
+    }
+
+    // Сброс после коммита: иначе параллельный запрос может снова закэшировать старое значение
+    private void evictAfterCommit(Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    activeUsers.invalidate(id);
+                }
+            });
+        } else {
+            activeUsers.invalidate(id);
+        }
+    }
+
     private UserDto toDto(User user) {
         UserDto dto = new UserDto();
         dto.setId(user.getId());
@@ -11,15 +11,39 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.mephi.springfinal.booking.dto.AuthRequest;
 import ru.mephi.springfinal.booking.dto.BookingDto;
+import ru.mephi.springfinal.booking.dto.RefreshRequest;
+import ru.mephi.springfinal.booking.entity.Booking;
+import ru.mephi.springfinal.booking.repository.BookingHistoryRepository;
 import ru.mephi.springfinal.booking.repository.BookingRepository;
+import ru.mephi.springfinal.booking.repository.UserRepository;
+import ru.mephi.springfinal.booking.service.BookingHistoryService;
+import ru.mephi.springfinal.booking.service.TokenRevocationService;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -37,6 +61,24 @@ class BookingIntegrationTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingHistoryRepository bookingHistoryRepository;
+
+    @Autowired
+    private BookingHistoryService bookingHistoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private InternalIdentityCodec identityCodec;
+
     private String adminToken;
     private String userToken;
 
@@ -44,6 +86,7 @@ class BookingIntegrationTest {
     void setUp() throws Exception {
         // Очищаем базу перед каждым тестом
         bookingRepository.deleteAll();
+        bookingHistoryRepository.deleteAll();
 
         // Получаем токены для тестов
         adminToken = authenticate("admin", "admin123");
@@ -112,6 +155,28 @@ class BookingIntegrationTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    @DisplayName("Реактивное создание бронирования - ответ отправляется асинхронно")
+    void testCreateBookingReactive() throws Exception {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setStartDate(LocalDate.now().plusDays(1));
+        bookingDto.setEndDate(LocalDate.now().plusDays(5));
+        bookingDto.setRoomId(1L);
+
+        MvcResult result = mockMvc.perform(post("/api/v2/bookings")
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookingDto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Hotel Service в тестах недоступен, поэтому сага завершается компенсацией
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").exists())
+                .andExpect(jsonPath("$.status").value("COMPENSATED"));
+    }
+
     @Test
     @DisplayName("Получение списка бронирований текущего пользователя")
     void testGetUserBookings() throws Exception {
@@ -121,6 +186,141 @@ class BookingIntegrationTest {
                 .andExpect(jsonPath("$").isArray());
     }
 
+    @Test
+    @DisplayName("История бронирований: слияние рабочей таблицы и архива постранично по курсору")
+    void testUserBookingsMergedAcrossHistoryByCursor() throws Exception {
+        Long userId = userRepository.findByUsername("user").orElseThrow().getId();
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Booking booking = new Booking();
+            booking.setRequestId("history-" + i);
+            booking.setUserId(userId);
+            booking.setStartDate(LocalDate.now().plusDays(10 + i));
+            booking.setEndDate(LocalDate.now().plusDays(12 + i));
+            // отмененные чередуются с подтвержденными, чтобы страницы брали строки из обоих источников
+            booking.setStatus(i % 2 == 0 ? Booking.BookingStatus.CANCELLED : Booking.BookingStatus.CONFIRMED);
+            created.add(bookingRepository.save(booking).getId());
+        }
+
+        int moved = bookingHistoryService.moveBatch(LocalDateTime.now().plusMinutes(1), LocalDate.now(), 100);
+        assertThat(moved).isEqualTo(3);
+        assertThat(bookingRepository.count()).isEqualTo(2);
+
+        List<Long> pages = new ArrayList<>();
+        String cursor = null;
+        int requests = 0;
+        do {
+            var request = get("/api/bookings")
+                    .header("Authorization", "Bearer " + userToken)
+                    .param("limit", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MvcResult result = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn();
+            objectMapper.readTree(result.getResponse().getContentAsString())
+                    .forEach(booking -> pages.add(booking.get("id").asLong()));
+            cursor = result.getResponse().getHeader("X-Next-Cursor");
+            requests++;
+        } while (cursor != null);
+
+        assertThat(requests).isEqualTo(3);
+        Collections.reverse(created);
+        assertThat(pages).containsExactlyElementsOf(created);
+
+        mockMvc.perform(get("/api/bookings/" + created.get(4))
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CANCELLED"));
+
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + userToken)
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("История бронирований: фильтры по статусу и периоду проживания в обеих таблицах")
+    void testUserBookingsFilteredByStatusAndStay() throws Exception {
+        Long userId = userRepository.findByUsername("user").orElseThrow().getId();
+        LocalDate base = LocalDate.now().plusDays(30);
+        for (int i = 0; i < 6; i++) {
+            Booking booking = new Booking();
+            booking.setRequestId("filter-" + i);
+            booking.setUserId(userId);
+            booking.setStartDate(base.plusDays(i * 10L));
+            booking.setEndDate(base.plusDays(i * 10L + 2));
+            booking.setStatus(i % 2 == 0 ? Booking.BookingStatus.CANCELLED : Booking.BookingStatus.CONFIRMED);
+            bookingRepository.save(booking);
+        }
+        // отмененные уходят в историю, подтвержденные остаются в рабочей таблице
+        assertThat(bookingHistoryService.moveBatch(LocalDateTime.now().plusMinutes(1), LocalDate.now(), 100))
+                .isEqualTo(3);
+
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + userToken)
+                        .param("status", "CANCELLED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].requestId").value("filter-4"));
+
+        // пересечение с [base + 11; base + 31]: проживания 1 (base+10..12), 2, 3 (base+30..32)
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + userToken)
+                        .param("from", base.plusDays(11).toString())
+                        .param("to", base.plusDays(31).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].requestId").value("filter-3"))
+                .andExpect(jsonPath("$[2].requestId").value("filter-1"));
+
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + userToken)
+                        .param("status", "CONFIRMED")
+                        .param("to", base.plusDays(20).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].requestId").value("filter-1"));
+
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + userToken)
+                        .param("status", "UNKNOWN"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Токен с подмененной подписью отклоняется, даже если валидный токен уже в кэше")
+    void testTamperedTokenNotServedFromCache() throws Exception {
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk());
+
+        String signature = userToken.substring(userToken.lastIndexOf('.') + 1);
+        String tampered = userToken.substring(0, userToken.lastIndexOf('.') + 1)
+                + new StringBuilder(signature).reverse();
+
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + tampered))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Заголовок идентичности от Gateway принимается без JWT, поддельный - отклоняется")
+    void testInternalIdentityHeader() throws Exception {
+        InternalIdentity identity = new InternalIdentity(2L, "user", List.of("ROLE_USER"),
+                "test-token", Instant.now().getEpochSecond(), Instant.now().plusSeconds(600).getEpochSecond());
+
+        mockMvc.perform(get("/api/bookings")
+                        .header(InternalIdentityCodec.HEADER, identityCodec.encode(identity)))
+                .andExpect(status().isOk());
+
+        String forged = new InternalIdentityCodec("attacker-secret").encode(identity);
+        mockMvc.perform(get("/api/bookings")
+                        .header(InternalIdentityCodec.HEADER, forged))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @DisplayName("Валидация дат бронирования - endDate раньше startDate")
     void testBookingValidationEndDateBeforeStartDate() throws Exception {
@@ -176,6 +376,202 @@ class BookingIntegrationTest {
                 .andExpect(jsonPath("$.username").value("newuser123"));
     }
 
+    @Test
+    @DisplayName("Отключенный пользователь теряет доступ сразу, несмотря на кэш и действующий токен")
+    void testDisabledUserCutOff() throws Exception {
+        AuthRequest registerRequest = new AuthRequest();
+        registerRequest.setUsername("tobedisabled");
+        registerRequest.setPassword("password123");
+
+        MvcResult registered = mockMvc.perform(post("/api/user/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        var body = objectMapper.readTree(registered.getResponse().getContentAsString());
+        String token = body.get("token").asText();
+        long userId = body.get("userId").asLong();
+
+        // Первый запрос кэширует активность пользователя
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(patch("/api/user/{id}", userId)
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"tobedisabled\",\"enabled\":false}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Обновление токена по refresh-токену без пароля; refresh-токен не дает доступа к API")
+    void testRefreshToken() throws Exception {
+        AuthRequest authRequest = new AuthRequest();
+        authRequest.setUsername("user");
+        authRequest.setPassword("user123");
+
+        MvcResult result = mockMvc.perform(post("/api/user/auth")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refreshToken").exists())
+                .andReturn();
+        String refreshToken = objectMapper.readTree(result.getResponse().getContentAsString())
+                .get("refreshToken").asText();
+
+        MvcResult refreshed = mockMvc.perform(post("/api/user/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshRequest(refreshToken))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("user"))
+                .andReturn();
+        String token = objectMapper.readTree(refreshed.getResponse().getContentAsString()).get("token").asText();
+
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + refreshToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Logout отзывает access- и refresh-токен, в том числе уже закэшированный фильтром")
+    void testLogoutRevokesTokens() throws Exception {
+        AuthRequest authRequest = new AuthRequest();
+        authRequest.setUsername("user");
+        authRequest.setPassword("user123");
+
+        MvcResult result = mockMvc.perform(post("/api/user/auth")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+        var body = objectMapper.readTree(result.getResponse().getContentAsString());
+        String token = body.get("token").asText();
+        String refreshToken = body.get("refreshToken").asText();
+
+        // Токен попадает в кэш проверенных JWT
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/user/logout")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshRequest(refreshToken))))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/bookings")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/user/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshRequest(refreshToken))))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    @DisplayName("Параллельные запросы с одним refresh-токеном - новую пару получает только один")
+    void testConcurrentRefreshTokenReuse() throws Exception {
+        AuthRequest authRequest = new AuthRequest();
+        authRequest.setUsername("user");
+        authRequest.setPassword("user123");
+        MvcResult result = mockMvc.perform(post("/api/user/auth")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String refreshBody = objectMapper.writeValueAsString(new RefreshRequest(
+                objectMapper.readTree(result.getResponse().getContentAsString()).get("refreshToken").asText()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<MvcResult>> replays = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                replays.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/user/refresh")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(refreshBody))
+                            .andReturn();
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<MvcResult> replay : replays) {
+                MvcResult response = replay.get(30, TimeUnit.SECONDS);
+                if (response.getResponse().getStatus() == 200) {
+                    succeeded++;
+                } else {
+                    assertThat(response.getResponse().getStatus()).isEqualTo(401);
+                    assertThat(response.getResponse().getContentAsString()).contains("Invalid refresh token");
+                }
+            }
+            assertThat(succeeded).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Откаченный отзыв токена не остается в локальном журнале")
+    void testRolledBackRevocationIsNotApplied() {
+        long expiresAt = Instant.now().plusSeconds(3600).getEpochSecond();
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            tokenRevocationService.revokeToken("rolled-back-jti", expiresAt);
+            tx.setRollbackOnly();
+        });
+        assertThat(tokenRevocationService.isRevoked("rolled-back-jti", null, 0)).isFalse();
+
+        tokenRevocationService.revokeToken("committed-jti", expiresAt);
+        assertThat(tokenRevocationService.isRevoked("committed-jti", null, 0)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Журнал отзыва отдается по курсору своего инстанса, курсоры других журналов игнорируются")
+    void testRevocationJournalCursorPerSource() throws Exception {
+        tokenRevocationService.revokeToken("journal-jti", Instant.now().plusSeconds(3600).getEpochSecond());
+        long now = Instant.now().getEpochSecond();
+        String service = identityCodec.encode(
+                new InternalIdentity(null, "api-gateway", List.of("ROLE_SERVICE"), null, now, now + 60));
+
+        MvcResult full = mockMvc.perform(get("/api/internal/revocations")
+                        .header(InternalIdentityCodec.HEADER, service))
+                .andExpect(status().isOk())
+                .andReturn();
+        var batch = objectMapper.readTree(full.getResponse().getContentAsString());
+        String source = batch.get("source").asText();
+        long last = 0;
+        List<String> keys = new ArrayList<>();
+        for (var revocation : batch.get("revocations")) {
+            keys.add(revocation.get("key").asText());
+            last = Math.max(last, revocation.get("sequence").asLong());
+        }
+        assertThat(keys).contains("journal-jti");
+
+        mockMvc.perform(get("/api/internal/revocations")
+                        .header(InternalIdentityCodec.HEADER, service)
+                        .param("cursor", "other-instance@" + (last + 1000), source + "@" + last))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.source").value(source))
+                .andExpect(jsonPath("$.revocations.length()").value(0));
+
+        // курсор чужого журнала: записи этого инстанса отдаются с начала
+        mockMvc.perform(get("/api/internal/revocations")
+                        .header(InternalIdentityCodec.HEADER, service)
+                        .param("cursor", "other-instance@" + (last + 1000)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.revocations.length()").value(keys.size()));
+    }
+
     @Test
     @DisplayName("Регистрация с существующим username - конфликт")
     void testUserRegistrationDuplicateUsername() throws Exception {
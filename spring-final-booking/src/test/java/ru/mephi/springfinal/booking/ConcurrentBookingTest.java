@@ -6,14 +6,22 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
 import ru.mephi.springfinal.booking.config.TestHotelServiceConfig;
 import ru.mephi.springfinal.booking.dto.BookingDto;
+import ru.mephi.springfinal.booking.dto.BookingPage;
 import ru.mephi.springfinal.booking.entity.Booking;
+import ru.mephi.springfinal.booking.entity.BookingHistory;
+import ru.mephi.springfinal.booking.repository.BookingHistoryRepository;
 import ru.mephi.springfinal.booking.repository.BookingRepository;
+import ru.mephi.springfinal.booking.repository.ReactiveBookingRepository;
 import ru.mephi.springfinal.booking.service.BookingService;
+import ru.mephi.springfinal.booking.service.ReactiveBookingService;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
@@ -29,9 +37,18 @@ class ConcurrentBookingTest {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private ReactiveBookingService reactiveBookingService;
+
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private ReactiveBookingRepository reactiveBookingRepository;
+
+    @Autowired
+    private BookingHistoryRepository bookingHistoryRepository;
+
     @BeforeEach
     void setUp() {
         bookingRepository.deleteAll();
@@ -232,7 +249,97 @@ class ConcurrentBookingTest {
             bookingService.createBooking(dto);
         }
 
-        List<BookingDto> userBookings = bookingService.getUserBookings(userId);
-        assertTrue(userBookings.size() >= 1, "Должны быть бронирования для пользователя");
+        // Проходим все страницы по курсору: маленький лимит дает несколько страниц
+        List<BookingDto> userBookings = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookingPage page = bookingService.getUserBookings(userId, cursor, 2, null, null, null);
+            userBookings.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertTrue(userBookings.size() >= 3, "Должны быть все бронирования пользователя, а не только первая страница");
+        assertEquals(userBookings.size(), userBookings.stream().map(BookingDto::getId).distinct().count(),
+                "Страницы не должны повторять бронирования");
+    }
+
+    @Test
+    @DisplayName("Бронирование, перенесенное в историю между чтениями таблиц, выдается один раз")
+    void testGetUserBookingsDeduplicatesMovedBooking() {
+        Long userId = 501L;
+        BookingDto dto = new BookingDto();
+        dto.setUserId(userId);
+        dto.setStartDate(LocalDate.now().plusDays(90));
+        dto.setEndDate(LocalDate.now().plusDays(92));
+        dto.setAutoSelect(true);
+        dto.setRoomType("DOUBLE");
+        BookingDto created = bookingService.createBooking(dto);
+
+        // Рабочая таблица прочитана до фиксации переноса, история - после: строка видна в обеих
+        Booking booking = bookingRepository.findById(created.getId()).orElseThrow();
+        bookingHistoryRepository.save(new BookingHistory(booking.getId(), booking.getRequestId(), booking.getUserId(),
+                booking.getHotelId(), booking.getRoomId(), booking.getStartDate(), booking.getEndDate(),
+                booking.getStatus(), booking.getCreatedAt(), booking.getCompensationReason(), LocalDateTime.now()));
+
+        BookingPage page = bookingService.getUserBookings(userId, null, 1, null, null, null);
+
+        assertEquals(List.of(created.getId()), page.items().stream().map(BookingDto::getId).toList());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Реактивная сага - параллельные бронирования одной комнаты")
+    void testReactiveConcurrentBookingsForSameRoom() {
+        LocalDate startDate = LocalDate.now().plusDays(200);
+        LocalDate endDate = LocalDate.now().plusDays(205);
+
+        List<BookingDto> results = Flux.range(1, 10)
+                .flatMap(i -> {
+                    BookingDto dto = new BookingDto();
+                    dto.setUserId((long) i);
+                    dto.setRoomId(2L);
+                    dto.setStartDate(startDate);
+                    dto.setEndDate(endDate);
+                    dto.setAutoSelect(false);
+                    return reactiveBookingService.createBooking(dto);
+                })
+                .collectList()
+                .block();
+
+        assertNotNull(results);
+        assertEquals(10, results.size());
+        assertEquals(1, results.stream().filter(b -> "CONFIRMED".equals(b.getStatus())).count(),
+                "Только одно бронирование должно быть подтверждено");
+        assertEquals(9, results.stream().filter(b -> "COMPENSATED".equals(b.getStatus())).count());
+
+        // Записи R2DBC видны через JPA-репозиторий: таблица общая
+        assertEquals(10, bookingRepository.findAll().stream()
+                .filter(b -> b.getStartDate().equals(startDate))
+                .count());
+    }
+
+    @Test
+    @DisplayName("Реактивная сага не перезаписывает параллельную отмену")
+    void testReactiveSagaStepDoesNotOverwriteCancellation() {
+        Booking pending = new Booking();
+        pending.setRequestId("saga-conflict");
+        pending.setUserId(1L);
+        pending.setStartDate(LocalDate.now().plusDays(300));
+        pending.setEndDate(LocalDate.now().plusDays(302));
+        pending.setStatus(Booking.BookingStatus.PENDING);
+        pending.setCreatedAt(LocalDateTime.now());
+        pending.setExpiresAt(LocalDateTime.now().plusMinutes(5));
+        Booking saga = reactiveBookingRepository.insert(pending).block();
+        assertNotNull(saga);
+
+        // пока сага ждет Hotel Service, бронирование отменяют через JPA
+        bookingService.cancelBooking(saga.getId());
+
+        saga.setStatus(Booking.BookingStatus.CONFIRMED);
+        saga.setRoomId(1L);
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> reactiveBookingRepository.updateSagaState(saga).block());
+        assertEquals(Booking.BookingStatus.CANCELLED,
+                bookingRepository.findById(saga.getId()).orElseThrow().getStatus());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+package ru.mephi.springfinal.booking.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Нагрузочный тест создания бронирований: держит {@code concurrency} одновременных запросов
+ * {@code POST /api/bookings} к запущенному Booking Service и выводит пропускную способность,
+ * пик одновременных запросов и перцентили латентности.
+ * <p>
+ * На платформенных потоках параллельность ограничена {@code server.tomcat.threads.max} (200),
+ * и при concurrency выше этого лимита латентность растет за счет очереди; в профиле
+ * {@code virtual-threads} пропускная способность растет вместе с concurrency.
+ * <p>
+ * Реактивный конвейер ({@code -Dload.path=/api/v2/bookings}) освобождает поток Tomcat сразу,
+ * и сага выполняется на event loop, поэтому лимит пула не действует и без виртуальных потоков.
+ * <p>
+ * С {@code -Dload.login-flood=N} параллельно идут N непрерывных потоков {@code POST /api/user/auth}:
+ * выводятся логины в секунду и доля 503 от пула BCrypt, а p99 бронирований показывает,
+ * вытесняет ли волна логинов основной трафик.
+ * <p>
+ * Запуск: {@code make start && make load CONCURRENCY=2000 REQUESTS=20000}
+ * (сравнить с {@code make start-booking-vt}, {@code make load LOAD_PATH=/api/v2/bookings}
+ * и {@code make load LOGIN_FLOOD=500}).
+ * Параметры: {@code -Dbooking.url}, {@code -Dload.path}, {@code -Dload.concurrency}, {@code -Dload.requests},
+ * {@code -Dload.login-flood}.
+ */
+public class BookingLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("booking.url", "http://localhost:8082");
+        String path = System.getProperty("load.path", "/api/bookings");
+        int concurrency = Integer.getInteger("load.concurrency", 2000);
+        int requests = Integer.getInteger("load.requests", 20000);
+        int loginFlood = Integer.getInteger("load.login-flood", 0);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        HttpResponse<String> auth = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/user/auth"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                objectMapper.writeValueAsString(Map.of("username", "user", "password", "user123"))))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        String token = objectMapper.readTree(auth.body()).get("token").asText();
+
+        AtomicBoolean flooding = new AtomicBoolean(true);
+        Map<Integer, AtomicInteger> loginStatuses = new ConcurrentHashMap<>();
+        HttpRequest login = HttpRequest.newBuilder(URI.create(baseUrl + "/api/user/auth"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        objectMapper.writeValueAsString(Map.of("username", "user", "password", "user123"))))
+                .build();
+        for (int i = 0; i < loginFlood; i++) {
+            floodLogins(client, login, flooding, loginStatuses);
+        }
+
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        AtomicLongArray latencies = new AtomicLongArray(requests);
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            permits.acquire();
+            // Разные даты, чтобы бронирования не конкурировали за одни и те же номера
+            LocalDate startDate = LocalDate.now().plusDays(30 + i % 3000);
+            String body = objectMapper.writeValueAsString(Map.of(
+                    "requestId", UUID.randomUUID().toString(),
+                    "autoSelect", true,
+                    "startDate", startDate.toString(),
+                    "endDate", startDate.plusDays(1).toString()));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + token)
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+
+            int index = i;
+            long requestStart = System.nanoTime();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            futures[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies.set(index, System.nanoTime() - requestStart);
+                        int status = error != null ? -1 : response.statusCode();
+                        statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+                        inFlight.decrementAndGet();
+                        permits.release();
+                    });
+        }
+        CompletableFuture.allOf(futures).exceptionally(e -> null).join();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        flooding.set(false);
+
+        long[] sorted = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+
+        System.out.printf("path=%s requests=%d concurrency=%d peakInFlight=%d%n",
+                path, requests, concurrency, peakInFlight.get());
+        System.out.printf("throughput=%.1f req/s, total=%.1f s%n", requests / seconds, seconds);
+        System.out.printf("latency ms: p50=%.1f p99=%.1f max=%.1f%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[requests - 1] / 1e6);
+        System.out.println("statuses (-1 = client error): " + statuses);
+        if (loginFlood > 0) {
+            int logins = loginStatuses.getOrDefault(200, new AtomicInteger()).get();
+            System.out.printf("login flood=%d: logins=%.1f /s, statuses: %s%n",
+                    loginFlood, logins / seconds, loginStatuses);
+        }
+    }
+
+    // Один "клиент" волны логинов: следующий запрос отправляется по завершении предыдущего
+    private static void floodLogins(HttpClient client, HttpRequest login, AtomicBoolean flooding,
+                                    Map<Integer, AtomicInteger> statuses) {
+        if (!flooding.get()) {
+            return;
+        }
+        client.sendAsync(login, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    int status = error != null ? -1 : response.statusCode();
+                    statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+                    floodLogins(client, login, flooding, statuses);
+                });
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
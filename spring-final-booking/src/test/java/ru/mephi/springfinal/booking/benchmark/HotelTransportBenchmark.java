@@ -0,0 +1,84 @@
+package ru.mephi.springfinal.booking.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import ru.mephi.springfinal.contracts.room.AvailabilityResponse;
+import ru.mephi.springfinal.contracts.room.ConfirmAvailabilityRequest;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вызовы confirm-availability по HTTP/1.1 (WebClient) и по RSocket против запущенного Hotel Service.
+ * <p>
+ * Используется один и тот же requestId, поэтому после первого вызова сервис отвечает по ветке
+ * идемпотентности, и разница определяется транспортом. Режим SampleTime дает p99,
+ * Throughput - вызовы в секунду. Параметры: {@code -Dhotel.host}, {@code -Dhotel.http-port},
+ * {@code -Dhotel.rsocket-port}, {@code -Dhotel.room-id}.
+ * <p>
+ * Запуск: {@code make start-hotel && make bench BENCH=HotelTransportBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class HotelTransportBenchmark {
+
+    private static final String HOST = System.getProperty("hotel.host", "localhost");
+    private static final int HTTP_PORT = Integer.getInteger("hotel.http-port", 8081);
+    private static final int RSOCKET_PORT = Integer.getInteger("hotel.rsocket-port", 7081);
+    private static final long ROOM_ID = Long.getLong("hotel.room-id", 1L);
+
+    private WebClient webClient;
+    private RSocketRequester requester;
+    private ConfirmAvailabilityRequest request;
+
+    @Setup
+    public void setUp() {
+        webClient = WebClient.create("http://" + HOST + ":" + HTTP_PORT);
+
+        var cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        RSocketStrategies strategies = RSocketStrategies.builder()
+                .encoders(encoders -> encoders.add(new Jackson2CborEncoder(cborMapper, MediaType.APPLICATION_CBOR)))
+                .decoders(decoders -> decoders.add(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR)))
+                .build();
+        requester = RSocketRequester.builder()
+                .rsocketStrategies(strategies)
+                .tcp(HOST, RSOCKET_PORT);
+
+        LocalDate start = LocalDate.now().plusYears(1);
+        request = new ConfirmAvailabilityRequest("transport-benchmark", 0L, start, start.plusDays(1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        requester.dispose();
+    }
+
+    @Benchmark
+    public AvailabilityResponse http() {
+        return webClient.post()
+                .uri("/api/rooms/{id}/confirm-availability", ROOM_ID)
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(AvailabilityResponse.class)
+                .block();
+    }
+
+    @Benchmark
+    public AvailabilityResponse rsocket() {
+        return requester.route("rooms.{id}.confirm-availability", ROOM_ID)
+                .data(request)
+                .retrieveMono(AvailabilityResponse.class)
+                .block();
+    }
+}
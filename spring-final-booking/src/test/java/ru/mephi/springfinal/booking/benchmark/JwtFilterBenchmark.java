@@ -0,0 +1,106 @@
+package ru.mephi.springfinal.booking.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ru.mephi.springfinal.booking.security.JwtAuthenticationFilter;
+import ru.mephi.springfinal.booking.security.JwtUtil;
+import ru.mephi.springfinal.booking.service.TokenRevocationService;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.identity.VerifiedTokenCache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость аутентификации запроса по JWT:
+ * <ul>
+ *     <li>{@code perRequestParser} - прежний путь: ключ и парсер строятся на каждый запрос</li>
+ *     <li>{@code prebuiltParser} - ключ и парсер построены один раз, подпись и JSON проверяются каждый раз</li>
+ *     <li>{@code cachedFilter} - полный проход {@link JwtAuthenticationFilter} с попаданием в {@link VerifiedTokenCache} и проверкой отзыва</li>
+ *     <li>{@code identityHeaderFilter} - запрос через Gateway: проверка HMAC заголовка {@link InternalIdentityCodec#HEADER}</li>
+ * </ul>
+ * Запуск: {@code make bench BENCH=JwtFilterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationAndValidation1234567890";
+    private static final FilterChain NOOP_CHAIN = (request, response) -> { };
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private String token;
+    private String identityHeader;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 3_600_000L, 604_800_000L);
+        InternalIdentityCodec identityCodec = new InternalIdentityCodec("internalIdentityHeaderSecret");
+        // Проверка отзыва идет по копии журнала в памяти, репозиторий на этом пути не нужен
+        TokenRevocationService revocations = new TokenRevocationService(null, null, null, "benchmark", 100_000, 604_800_000L, 100, false);
+        filter = new JwtAuthenticationFilter(jwtUtil, new VerifiedTokenCache(10_000), identityCodec, revocations);
+        token = jwtUtil.generateToken("user", List.of("ROLE_USER"), 2L);
+        identityHeader = identityCodec.encode(new InternalIdentity(2L, "user", List.of("ROLE_USER"),
+                "bench-token", Instant.now().getEpochSecond(), Instant.now().plusSeconds(3600).getEpochSecond()));
+    }
+
+    @Benchmark
+    public Object perRequestParser() {
+        Claims claims = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        return claims.get("roles", List.class);
+    }
+
+    @Benchmark
+    public Object prebuiltParser() {
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public Object cachedFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/bookings");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), NOOP_CHAIN);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    @Benchmark
+    public Object identityHeaderFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/bookings");
+        request.addHeader(InternalIdentityCodec.HEADER, identityHeader);
+        filter.doFilter(request, new MockHttpServletResponse(), NOOP_CHAIN);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.mephi.springfinal.booking.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mephi.springfinal.contracts.room.ConfirmAvailabilityRequest;
+import ru.mephi.springfinal.contracts.room.RoomView;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Размер и стоимость (де)сериализации тел внутренних вызовов в JSON, Smile и CBOR.
+ * <p>
+ * Каждая операция - полный цикл одного шага саги на обеих сторонах: запрос confirm-availability
+ * кодируется и декодируется, ответ recommend из {@code rooms} номеров - тоже. Размеры тел
+ * печатаются в {@code @Setup}, время на вызов - результат бенчмарка (AverageTime).
+ * <p>
+ * Запуск: {@code make bench BENCH=RoomPayloadCodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomPayloadCodecBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String codec;
+
+    @Param({"5", "50"})
+    private int rooms;
+
+    private ConfirmAvailabilityRequest request;
+    private List<RoomView> views;
+
+    private ObjectWriter writer;
+    private ObjectReader requestReader;
+    private ObjectReader roomsReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonFactory factory = switch (codec) {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        ObjectMapper objectMapper = new ObjectMapper(factory).registerModule(new JavaTimeModule());
+
+        LocalDate start = LocalDate.of(2026, 6, 1);
+        request = new ConfirmAvailabilityRequest("7f1d2c3e-5b6a-4c8d-9e0f-1a2b3c4d5e6f", 42L, start, start.plusDays(5));
+        views = new ArrayList<>();
+        for (long i = 1; i <= rooms; i++) {
+            views.add(new RoomView(i, i % 3 + 1, "R" + i, "DOUBLE", new BigDecimal("8000.00"), (int) i, true));
+        }
+
+        writer = objectMapper.writer();
+        requestReader = objectMapper.readerFor(ConfirmAvailabilityRequest.class);
+        roomsReader = objectMapper.readerFor(new TypeReference<List<RoomView>>() { });
+
+        System.out.printf("%n%s: confirm-availability request %d bytes, recommend response (%d rooms) %d bytes%n",
+                codec, writer.writeValueAsBytes(request).length, rooms, writer.writeValueAsBytes(views).length);
+    }
+
+    @Benchmark
+    public Object confirmAvailabilityRoundTrip() throws IOException {
+        return requestReader.readValue(writer.writeValueAsBytes(request));
+    }
+
+    @Benchmark
+    public Object recommendRoundTrip() throws IOException {
+        return roomsReader.readValue(writer.writeValueAsBytes(views));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RoomPayloadCodecBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
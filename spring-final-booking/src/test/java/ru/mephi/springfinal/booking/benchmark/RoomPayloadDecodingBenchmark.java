@@ -0,0 +1,90 @@
+package ru.mephi.springfinal.booking.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.mephi.springfinal.contracts.room.RoomView;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение декодирования ответа {@code /api/rooms/recommend}: {@code Map<String, Object>}
+ * с ручным извлечением id против типизированных {@link RoomView}.
+ * <p>
+ * Запуск: {@code make bench BENCH=RoomPayloadDecodingBenchmark} (профайлер {@code -prof gc}
+ * выводит скорость аллокаций, {@code gc.alloc.rate.norm} - байт на операцию).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomPayloadDecodingBenchmark {
+
+    @Param({"5", "50"})
+    private int rooms;
+
+    private byte[] payload;
+    private ObjectReader mapReader;
+    private ObjectReader typedReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        List<RoomView> views = new ArrayList<>();
+        for (long i = 1; i <= rooms; i++) {
+            views.add(new RoomView(i, i % 3 + 1, "R" + i, "DOUBLE", new BigDecimal("8000.00"), (int) i, true));
+        }
+        payload = objectMapper.writeValueAsBytes(views);
+        mapReader = objectMapper.readerFor(new TypeReference<List<Map<String, Object>>>() { });
+        typedReader = objectMapper.readerFor(new TypeReference<List<RoomView>>() { });
+    }
+
+    @Benchmark
+    public long mapDecoding() throws IOException {
+        List<Map<String, Object>> decoded = mapReader.readValue(payload);
+        long sum = 0;
+        for (Map<String, Object> room : decoded) {
+            sum += toLong(room.get("id")) + toLong(room.get("hotelId"));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long typedDecoding() throws IOException {
+        List<RoomView> decoded = typedReader.readValue(payload);
+        long sum = 0;
+        for (RoomView room : decoded) {
+            sum += room.id() + room.hotelId();
+        }
+        return sum;
+    }
+
+    // То же преобразование, что выполнял BookingService.getLongValue до перехода на контракты
+    private static long toLong(Object value) {
+        if (value instanceof Integer) return ((Integer) value).longValue();
+        if (value instanceof Long) return (Long) value;
+        if (value instanceof String) return Long.parseLong((String) value);
+        return 0;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RoomPayloadDecodingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,93 @@
+package ru.mephi.springfinal.booking.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Hedged Request Executor Tests")
+class HedgedRequestExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HedgedRequestExecutor executor(double maxHedgeRatio) {
+        return new HedgedRequestExecutor(true, 0.95, 50, 50, maxHedgeRatio, 64, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Медленный основной запрос - побеждает хедж ко второму инстансу")
+    void testHedgeWinsWhenPrimaryIsSlow() {
+        AtomicInteger attempts = new AtomicInteger();
+        // первая подписка имитирует "зависший" инстанс, вторая отвечает сразу
+        Mono<String> request = Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.just("primary").delayElement(Duration.ofSeconds(2))
+                : Mono.just("hedge"));
+
+        String result = executor(0.1).execute("test", request).block(Duration.ofSeconds(1));
+
+        assertEquals("hedge", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1.0, meterRegistry.counter("hotel.client.hedging.fired").count());
+        assertEquals(1.0, meterRegistry.counter("hotel.client.hedging.won").count());
+    }
+
+    @Test
+    @DisplayName("Быстрый основной запрос - хедж не отправляется")
+    void testNoHedgeWhenPrimaryIsFast() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> request = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.just("primary");
+        });
+
+        String result = executor(0.1).execute("test", request).block(Duration.ofSeconds(1));
+
+        assertEquals("primary", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0.0, meterRegistry.counter("hotel.client.hedging.fired").count());
+    }
+
+    @Test
+    @DisplayName("Доля хеджей ограничена бюджетом")
+    void testHedgeRateIsCapped() {
+        HedgedRequestExecutor executor = executor(0.0);
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> slow = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.just("slow").delayElement(Duration.ofMillis(150));
+        });
+
+        // начальный запас бюджета - 10 хеджей, при нулевом пополнении больше не будет
+        for (int i = 0; i < 12; i++) {
+            executor.execute("test", slow).block(Duration.ofSeconds(1));
+        }
+
+        assertEquals(10.0, meterRegistry.counter("hotel.client.hedging.fired").count());
+        assertEquals(22, attempts.get());
+    }
+
+    @Test
+    @DisplayName("Отмененный основной запрос учитывается в перцентиле - задержка хеджа не падает")
+    void testCancelledPrimaryKeepsHedgeDelay() {
+        HedgedRequestExecutor executor = new HedgedRequestExecutor(true, 0.95, 5, 60, 1.0, 64, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+        // основной запрос всегда медленный, хедж отвечает сразу
+        Mono<String> request = Mono.defer(() -> attempts.incrementAndGet() % 2 == 1
+                ? Mono.just("primary").delayElement(Duration.ofSeconds(1))
+                : Mono.just("hedge"));
+
+        for (int i = 0; i < 64; i++) {
+            assertEquals("hedge", executor.execute("test", request).block(Duration.ofSeconds(1)));
+        }
+
+        // время до отмены основного запроса - не меньше текущей задержки хеджа
+        assertTrue(executor.getHedgeDelayMillis() >= 50,
+                "hedge delay collapsed to " + executor.getHedgeDelayMillis() + " ms");
+    }
+}
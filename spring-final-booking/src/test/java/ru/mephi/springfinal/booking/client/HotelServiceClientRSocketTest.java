@@ -0,0 +1,187 @@
+package ru.mephi.springfinal.booking.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.rsocket.core.RSocketServer;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.messaging.rsocket.annotation.ConnectMapping;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.room.AvailabilityResponse;
+import ru.mephi.springfinal.contracts.room.ConfirmAvailabilityRequest;
+import ru.mephi.springfinal.contracts.room.ReleaseReservationRequest;
+import ru.mephi.springfinal.contracts.room.RoomView;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link HotelServiceClient} с транспортом по умолчанию ({@code hotel-service.transport=rsocket}) против
+ * заглушки Hotel Service: HTTP-сервер для автоподбора и RSocket-сервер для шагов саги по номеру.
+ * Инстанс заглушки объявлен через simple discovery вместо Eureka.
+ */
+@SpringBootTest(properties = {
+        "hotel-service.transport=rsocket",
+        "hotel-service.url=http://spring-final-hotel",
+        "eureka.client.enabled=false"
+})
+@ActiveProfiles("test")
+@DisplayName("Hotel Service Client RSocket Transport Tests")
+class HotelServiceClientRSocketTest {
+
+    private static final RoomView ROOM = new RoomView(1L, 1L, "101", "DOUBLE", new BigDecimal("2000"), 0, true);
+
+    private static final List<String> httpCalls = new CopyOnWriteArrayList<>();
+    private static final StubRoomRoutes rsocketRoutes = new StubRoomRoutes();
+    private static DisposableServer httpServer;
+    private static CloseableChannel rsocketServer;
+
+    @Autowired
+    private HotelServiceClient hotelServiceClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private InternalIdentityCodec identityCodec;
+
+    @BeforeAll
+    static void startHotelStub() throws Exception {
+        byte[] rooms = new ObjectMapper(new SmileFactory()).writeValueAsBytes(List.of(ROOM));
+        httpServer = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get("/api/rooms/recommend", (request, response) -> {
+                    httpCalls.add(request.path() + " " + request.requestHeaders().get("Accept"));
+                    return response.header("Content-Type", "application/x-jackson-smile")
+                            .sendByteArray(Mono.just(rooms));
+                }))
+                .bindNow();
+
+        var cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        RSocketMessageHandler handler = new RSocketMessageHandler();
+        handler.setRSocketStrategies(RSocketStrategies.builder()
+                .encoders(encoders -> encoders.add(new Jackson2CborEncoder(cborMapper, MediaType.APPLICATION_CBOR)))
+                .decoders(decoders -> decoders.add(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR)))
+                .metadataExtractorRegistry(registry -> registry.metadataToExtract(
+                        MimeType.valueOf(InternalIdentityCodec.RSOCKET_MIME_TYPE), String.class, "identity"))
+                .build());
+        handler.setHandlers(List.of(rsocketRoutes));
+        handler.afterPropertiesSet();
+        rsocketServer = RSocketServer.create(handler.responder())
+                .bind(TcpServerTransport.create("localhost", 0))
+                .block();
+    }
+
+    @AfterAll
+    static void stopHotelStub() {
+        httpServer.disposeNow();
+        rsocketServer.dispose();
+    }
+
+    @DynamicPropertySource
+    static void hotelInstance(DynamicPropertyRegistry registry) {
+        String instance = "spring.cloud.discovery.client.simple.instances.spring-final-hotel[0].";
+        registry.add(instance + "uri", () -> "http://localhost:" + httpServer.port());
+        registry.add(instance + "metadata.rsocket-port", () -> rsocketServer.address().getPort());
+    }
+
+    @BeforeEach
+    void resetCalls() {
+        httpCalls.clear();
+        rsocketRoutes.calls.clear();
+    }
+
+    @Test
+    @DisplayName("Автоподбор идет по HTTP с хеджированием и Smile, а не по RSocket")
+    void testRecommendUsesHedgedHttp() {
+        double hedgedBefore = meterRegistry.counter("hotel.client.hedging.requests").count();
+
+        List<RoomView> rooms = hotelServiceClient.getRecommendedRoomsMono(1L, "DOUBLE",
+                LocalDate.now().plusDays(10), LocalDate.now().plusDays(12)).block(Duration.ofSeconds(10));
+
+        assertEquals(List.of(ROOM), rooms);
+        assertEquals(List.of("api/rooms/recommend application/x-jackson-smile"), httpCalls);
+        assertTrue(rsocketRoutes.calls.isEmpty());
+        assertEquals(hedgedBefore + 1, meterRegistry.counter("hotel.client.hedging.requests").count());
+    }
+
+    @Test
+    @DisplayName("Резервирование и компенсация идут по RSocket к владельцу номера")
+    void testSagaStepsUseRSocket() {
+        LocalDate start = LocalDate.now().plusDays(20);
+
+        AvailabilityResponse response = hotelServiceClient.confirmAvailabilityMono(7L, "rsocket-request", 42L,
+                start, start.plusDays(2)).block(Duration.ofSeconds(10));
+        hotelServiceClient.releaseReservationMono(7L, "rsocket-request").block(Duration.ofSeconds(10));
+
+        assertTrue(response.available());
+        assertEquals(List.of("confirm 7 rsocket-request", "release 7 rsocket-request"), rsocketRoutes.calls);
+        assertTrue(httpCalls.isEmpty());
+        // соединение открыто с подписанной сервисной личностью Booking
+        assertFalse(rsocketRoutes.setupIdentities.isEmpty());
+        for (String header : rsocketRoutes.setupIdentities) {
+            InternalIdentity identity = identityCodec.decode(header, Instant.now());
+            assertEquals("spring-final-booking-test", identity.username());
+        }
+    }
+
+    static class StubRoomRoutes {
+
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final List<String> setupIdentities = new CopyOnWriteArrayList<>();
+
+        @ConnectMapping
+        public void connect(@Header("identity") String identity) {
+            setupIdentities.add(identity);
+        }
+
+        @MessageMapping("rooms.{id}.confirm-availability")
+        public Mono<AvailabilityResponse> confirmAvailability(@DestinationVariable Long id,
+                                                              @Payload ConfirmAvailabilityRequest request) {
+            calls.add("confirm " + id + " " + request.requestId());
+            return Mono.just(AvailabilityResponse.success(id));
+        }
+
+        @MessageMapping("rooms.{id}.release")
+        public Mono<Void> releaseReservation(@DestinationVariable Long id,
+                                             @Payload ReleaseReservationRequest request) {
+            calls.add("release " + id + " " + request.requestId());
+            return Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.mephi.springfinal.booking.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.contracts.loadbalancing.LatencyScoreboard;
+import ru.mephi.springfinal.contracts.loadbalancing.RoomAffinityRouter;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Room RSocket Requesters Tests")
+class RoomRSocketRequestersTest {
+
+    private static final String SERVICE_ID = "spring-final-hotel";
+
+    private final RSocketRequester.Builder builder = mock(RSocketRequester.Builder.class);
+    private final DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+    private final LatencyScoreboard scoreboard = new LatencyScoreboard(10_000_000_000L, 1_000_000_000L);
+    private final RoomRSocketRequesters requesters = new RoomRSocketRequesters(builder, discoveryClient, SERVICE_ID,
+            7081, new RoomAffinityRouter(scoreboard, true, 128, 1.25), scoreboard);
+
+    @Test
+    @DisplayName("Соединение к инстансу, замененному новым, закрывается, хотя число инстансов не изменилось")
+    void testReplacedInstanceDisposed() {
+        RSocketRequester old = mock(RSocketRequester.class);
+        RSocketRequester replacement = mock(RSocketRequester.class);
+        when(builder.tcp("10.0.0.1", 7081)).thenReturn(old);
+        when(builder.tcp("10.0.0.2", 7081)).thenReturn(replacement);
+
+        when(discoveryClient.getInstances(SERVICE_ID)).thenReturn(List.of(instance("10.0.0.1")));
+        requesters.forRoom(1L, requester -> Mono.just("ok")).block();
+        when(discoveryClient.getInstances(SERVICE_ID)).thenReturn(List.of(instance("10.0.0.2")));
+        requesters.forRoom(1L, requester -> Mono.just("ok")).block();
+
+        verify(old).dispose();
+        verify(replacement, never()).dispose();
+    }
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host, SERVICE_ID, host, 8082, false, Map.of("rsocket-port", "7081"));
+    }
+}
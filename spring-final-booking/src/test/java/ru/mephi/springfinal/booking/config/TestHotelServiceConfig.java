@@ -1,11 +1,16 @@
 package ru.mephi.springfinal.booking.config;
 
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import reactor.core.publisher.Mono;
 import ru.mephi.springfinal.booking.client.HotelServiceClient;
+import ru.mephi.springfinal.contracts.room.AvailabilityResponse;
+import ru.mephi.springfinal.contracts.room.RoomView;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -24,10 +29,10 @@ public class TestHotelServiceConfig {
     public HotelServiceClient mockHotelServiceClient() {
         HotelServiceClient mock = Mockito.mock(HotelServiceClient.class);
 
-        // Мокируем getRecommendedRooms - возвращаем список доступных комнат как Map
-        Map<String, Object> room1 = createMockRoom(1L, 1L, "101", "SINGLE", new BigDecimal("1000"));
-        Map<String, Object> room2 = createMockRoom(2L, 1L, "201", "DOUBLE", new BigDecimal("2000"));
-        Map<String, Object> room3 = createMockRoom(3L, 2L, "301", "SUITE", new BigDecimal("5000"));
+        // Мокируем getRecommendedRooms - возвращаем список доступных комнат
+        RoomView room1 = createMockRoom(1L, 1L, "101", "SINGLE", new BigDecimal("1000"));
+        RoomView room2 = createMockRoom(2L, 1L, "201", "DOUBLE", new BigDecimal("2000"));
+        RoomView room3 = createMockRoom(3L, 2L, "301", "SUITE", new BigDecimal("5000"));
 
         Mockito.when(mock.getRecommendedRooms(
             Mockito.any(),
@@ -35,7 +40,7 @@ public class TestHotelServiceConfig {
             Mockito.any(LocalDate.class),
             Mockito.any(LocalDate.class)
         )).thenAnswer(invocation -> {
-            // возвращаем обычный список (не Mono) — метод в клиенте ожидает List<Map<String,Object>>
+            // возвращаем обычный список (не Mono) — метод в клиенте ожидает List<RoomView>
             return Arrays.asList(room1, room2, room3);
         });
 
@@ -43,26 +48,16 @@ public class TestHotelServiceConfig {
         Set<Long> knownRoomIds = Set.of(1L, 2L, 3L);
 
         // confirmAvailability должна проверять наличие пересечения и быть идемпотентной по requestId
-        Mockito.when(mock.confirmAvailability(
-                Mockito.anyLong(),
-                Mockito.anyString(),
-                Mockito.anyLong(),
-                Mockito.any(LocalDate.class),
-                Mockito.any(LocalDate.class)
-        )).thenAnswer(invocation -> {
+        Answer<AvailabilityResponse> confirmAnswer = invocation -> {
             Long roomId = invocation.getArgument(0);
             String requestId = invocation.getArgument(1);
             // Long bookingId = invocation.getArgument(2);
             LocalDate start = invocation.getArgument(3);
             LocalDate end = invocation.getArgument(4);
 
-            Map<String, Object> resp = new HashMap<>();
-
             // Если номер не существует в нашем мок-отеле — отклоняем (available=false)
             if (!knownRoomIds.contains(roomId)) {
-                resp.put("available", false);
-                resp.put("message", "Room not found");
-                return resp;
+                return AvailabilityResponse.failure("Room not found");
             }
 
             // Идемпотентность: если уже есть резервация с таким requestId для этого номера — вернуть available=true
@@ -70,27 +65,28 @@ public class TestHotelServiceConfig {
             Map<String, DateRange> roomRes = reservations.get(roomId);
             synchronized (roomRes) {
                 if (roomRes.containsKey(requestId)) {
-                    resp.put("available", true);
-                    resp.put("roomId", roomId);
-                    return resp;
+                    return AvailabilityResponse.success(roomId);
                 }
                 // Проверяем пересечение с существующими
                 boolean conflict = roomRes.values().stream().anyMatch(range -> range.overlaps(start, end));
-                if (!conflict) {
-                    // Резервируем
-                    roomRes.put(requestId, new DateRange(start, end));
-                    resp.put("available", true);
-                    resp.put("roomId", roomId);
-                } else {
-                    resp.put("available", false);
-                    resp.put("message", "Room is already booked for the requested dates");
+                if (conflict) {
+                    return AvailabilityResponse.failure("Room is already booked for the requested dates");
                 }
+                // Резервируем
+                roomRes.put(requestId, new DateRange(start, end));
+                return AvailabilityResponse.success(roomId);
             }
-            return resp;
-        });
+        };
+        Mockito.when(mock.confirmAvailability(
+                Mockito.anyLong(),
+                Mockito.anyString(),
+                Mockito.anyLong(),
+                Mockito.any(LocalDate.class),
+                Mockito.any(LocalDate.class)
+        )).thenAnswer(confirmAnswer);
 
         // releaseReservation: снять резерв по requestId
-        Mockito.doAnswer(invocation -> {
+        Answer<Void> releaseAnswer = invocation -> {
             Long roomId = invocation.getArgument(0);
             String requestId = invocation.getArgument(1);
             Map<String, DateRange> roomRes = reservations.get(roomId);
@@ -100,21 +96,39 @@ public class TestHotelServiceConfig {
                 }
             }
             return null;
-        }).when(mock).releaseReservation(Mockito.anyLong(), Mockito.anyString());
+        };
+        Mockito.doAnswer(releaseAnswer).when(mock).releaseReservation(Mockito.anyLong(), Mockito.anyString());
+
+        // Реактивные варианты для ReactiveBookingService используют те же ответы
+        Mockito.when(mock.getRecommendedRoomsMono(
+            Mockito.any(),
+            Mockito.any(),
+            Mockito.any(LocalDate.class),
+            Mockito.any(LocalDate.class)
+        )).thenAnswer(invocation -> Mono.just(Arrays.asList(room1, room2, room3)));
+        Mockito.when(mock.confirmAvailabilityMono(
+                Mockito.anyLong(),
+                Mockito.anyString(),
+                Mockito.anyLong(),
+                Mockito.any(LocalDate.class),
+                Mockito.any(LocalDate.class)
+        )).thenAnswer(invocation -> Mono.fromSupplier(() -> call(confirmAnswer, invocation)));
+        Mockito.when(mock.releaseReservationMono(Mockito.anyLong(), Mockito.anyString()))
+                .thenAnswer(invocation -> Mono.fromRunnable(() -> call(releaseAnswer, invocation)));
 
         return mock;
     }
 
-    private Map<String, Object> createMockRoom(Long id, Long hotelId, String number, String type, BigDecimal price) {
-        Map<String, Object> room = new HashMap<>();
-        room.put("id", id);
-        room.put("hotelId", hotelId);
-        room.put("roomNumber", number);
-        room.put("type", type);
-        room.put("pricePerNight", price);
-        room.put("available", true);
-        room.put("timesBooked", 0);
-        return room;
+    private static <T> T call(Answer<T> answer, InvocationOnMock invocation) {
+        try {
+            return answer.answer(invocation);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private RoomView createMockRoom(Long id, Long hotelId, String number, String type, BigDecimal price) {
+        return new RoomView(id, hotelId, number, type, price, 0, true);
     }
 
     // Внутренний класс для хранения диапазона дат и проверки перекрытия
@@ -0,0 +1,61 @@
+package ru.mephi.springfinal.booking.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Password Hashing Executor Tests")
+class PasswordHashingExecutorTest {
+
+    @Test
+    @DisplayName("Заполненные пул и очередь - запрос отклоняется сразу, принятые завершаются")
+    void testRejectsWhenSaturated() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals(encode(rawPassword));
+            }
+        };
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(slowEncoder, 1, 1, 5000, meterRegistry);
+
+        // первый запрос занимает единственный поток, второй ждет в очереди
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> executor.encode("first"));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.encode("second"));
+        while (meterRegistry.get("auth.hashing.queue").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(RejectedExecutionException.class, () -> executor.encode("third"));
+        assertEquals(1.0, meterRegistry.counter("auth.hashing.rejected").count());
+
+        release.countDown();
+        assertEquals("hash:first", running.get(1, TimeUnit.SECONDS));
+        assertEquals("hash:second", queued.get(1, TimeUnit.SECONDS));
+        executor.destroy();
+    }
+}
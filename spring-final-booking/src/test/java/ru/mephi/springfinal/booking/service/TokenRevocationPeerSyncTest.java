@@ -0,0 +1,104 @@
+package ru.mephi.springfinal.booking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.identity.Revocation;
+import ru.mephi.springfinal.contracts.identity.RevocationBatch;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Синхронизация журнала отзывов между инстансами Booking: соседний инстанс (заглушка) объявлен
+ * через simple discovery под именем этого сервиса, у него своя БД и свой журнал.
+ */
+@SpringBootTest(properties = {
+        "eureka.client.enabled=false",
+        "revocation.sync.interval=3600000"
+})
+@ActiveProfiles("test")
+@DisplayName("Token Revocation Peer Sync Tests")
+class TokenRevocationPeerSyncTest {
+
+    private static final String PEER_JOURNAL = "peer-journal";
+
+    private static final List<String> cursors = new CopyOnWriteArrayList<>();
+    private static final List<String> identities = new CopyOnWriteArrayList<>();
+    private static DisposableServer peer;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private InternalIdentityCodec identityCodec;
+
+    @BeforeAll
+    static void startPeer() throws Exception {
+        long expiresAt = Instant.now().plusSeconds(3600).getEpochSecond();
+        byte[] batch = new ObjectMapper().writeValueAsBytes(new RevocationBatch(PEER_JOURNAL, List.of(
+                new Revocation(1, "peer-token", 0, expiresAt),
+                new Revocation(2, Revocation.userKey(77L), Instant.now().getEpochSecond(), expiresAt))));
+        peer = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get("/api/internal/revocations", (request, response) -> {
+                    cursors.add(request.uri());
+                    identities.add(request.requestHeaders().get(InternalIdentityCodec.HEADER));
+                    return response.header("Content-Type", "application/json")
+                            .sendByteArray(Mono.just(batch));
+                }))
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopPeer() {
+        peer.disposeNow();
+    }
+
+    @DynamicPropertySource
+    static void peerInstance(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.spring-final-booking-test[0].uri",
+                () -> "http://localhost:" + peer.port());
+    }
+
+    @Test
+    @DisplayName("Отзыв, принятый соседним инстансом, применяется здесь после синхронизации")
+    void testPeerRevocationApplied() {
+        tokenRevocationService.sync();
+
+        assertTrue(tokenRevocationService.isRevoked("peer-token", null, 0));
+        assertTrue(tokenRevocationService.isRevoked("other-token", 77L, Instant.now().minusSeconds(60).getEpochSecond()));
+        assertFalse(tokenRevocationService.isRevoked("other-token", 78L, 0));
+    }
+
+    @Test
+    @DisplayName("Сосед опрашивается с сервисной личностью и курсором своего журнала")
+    void testPeerPolledWithServiceIdentityAndCursor() {
+        tokenRevocationService.sync();
+        tokenRevocationService.sync();
+
+        assertTrue(cursors.stream().anyMatch(uri -> uri.contains("cursor=" + PEER_JOURNAL + "@")));
+        assertFalse(identities.isEmpty());
+        for (String header : identities) {
+            InternalIdentity identity = identityCodec.decode(header, Instant.now());
+            assertTrue(identity.roles().contains("ROLE_SERVICE"));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.mephi.springfinal.contracts.identity;
+
+import java.util.List;
+
+/**
+ * Личность пользователя, проверенная Gateway по JWT и передаваемая сервисам
+ * в заголовке {@link InternalIdentityCodec#HEADER}.
+ *
+ * @param tokenId   {@code jti} исходного JWT, для проверки по журналу отзыва
+ * @param issuedAt  момент выпуска исходного JWT, epoch seconds
+ * @param expiresAt срок действия исходного JWT, epoch seconds
+ */
+public record InternalIdentity(
+        Long userId,
+        String username,
+        List<String> roles,
+        String tokenId,
+        long issuedAt,
+        long expiresAt
+) {
+}
@@ -0,0 +1,106 @@
+package ru.mephi.springfinal.contracts.identity;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Кодирование {@link InternalIdentity} в компактный заголовок {@code base64url(payload).base64url(HMAC-SHA256)}.
+ * <p>
+ * Payload - {@code userId|username|role1,role2|jti|iat|exp}. Проверка заголовка - один HMAC над сотней байт
+ * вместо разбора и проверки JWT. Ключ общий для Gateway и сервисов и не совпадает с ключом JWT,
+ * поэтому внешний клиент не может выпустить заголовок сам.
+ */
+public final class InternalIdentityCodec {
+
+    public static final String HEADER = "X-Internal-Identity";
+
+    // Тот же заголовок во внутреннем RSocket-канале: запись composite metadata кадра SETUP
+    public static final String RSOCKET_MIME_TYPE = "message/x.internal-identity";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ThreadLocal<Mac> mac;
+
+    public InternalIdentityCodec(String secret) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        // Mac не потокобезопасен: экземпляр на поток, ключ инициализируется один раз
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+            }
+        });
+    }
+
+    public String encode(InternalIdentity identity) {
+        String payload = (identity.userId() != null ? identity.userId() : "") + "|"
+                + identity.username() + "|"
+                + String.join(",", identity.roles()) + "|"
+                + (identity.tokenId() != null ? identity.tokenId() : "") + "|"
+                + identity.issuedAt() + "|"
+                + identity.expiresAt();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * Проверить подпись и срок заголовка.
+     *
+     * @throws IllegalArgumentException если заголовок поврежден, подделан или истек
+     */
+    public InternalIdentity decode(String header, Instant now) {
+        int dot = header.indexOf('.');
+        if (dot <= 0) {
+            throw new IllegalArgumentException("Malformed identity header");
+        }
+        byte[] payloadBytes = DECODER.decode(header.substring(0, dot));
+        byte[] signature = DECODER.decode(header.substring(dot + 1));
+        if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+            throw new IllegalArgumentException("Invalid identity header signature");
+        }
+
+        // username может содержать '|', поэтому поля после него отделяются с конца
+        String payload = new String(payloadBytes, StandardCharsets.UTF_8);
+        int first = payload.indexOf('|');
+        int[] tail = new int[4];
+        int position = payload.length();
+        for (int i = tail.length - 1; i >= 0; i--) {
+            position = payload.lastIndexOf('|', position - 1);
+            tail[i] = position;
+        }
+        if (first < 0 || tail[0] <= first) {
+            throw new IllegalArgumentException("Malformed identity header");
+        }
+
+        long expiresAt = Long.parseLong(payload.substring(tail[3] + 1));
+        if (expiresAt <= now.getEpochSecond()) {
+            throw new IllegalArgumentException("Identity header expired");
+        }
+        String userId = payload.substring(0, first);
+        String roles = payload.substring(tail[0] + 1, tail[1]);
+        String tokenId = payload.substring(tail[1] + 1, tail[2]);
+        return new InternalIdentity(
+                userId.isEmpty() ? null : Long.valueOf(userId),
+                payload.substring(first + 1, tail[0]),
+                roles.isEmpty() ? List.of() : Arrays.asList(roles.split(",")),
+                tokenId.isEmpty() ? null : tokenId,
+                Long.parseLong(payload.substring(tail[2] + 1, tail[3])),
+                expiresAt);
+    }
+
+    private byte[] sign(byte[] payload) {
+        return mac.get().doFinal(payload);
+    }
+}
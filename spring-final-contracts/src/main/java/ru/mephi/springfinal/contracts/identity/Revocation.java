@@ -0,0 +1,21 @@
+package ru.mephi.springfinal.contracts.identity;
+
+/**
+ * Запись журнала отзыва токенов.
+ *
+ * @param sequence  монотонный номер записи: инстансы забирают только записи после последнего известного
+ * @param key       {@code jti} отозванного токена или {@code user:<id>} для отзыва всех токенов пользователя
+ * @param notBefore для {@code user:<id>} - токены, выпущенные не позже этого момента (epoch seconds), отозваны
+ * @param expiresAt после этого момента запись не нужна: отозванные ею токены истекли сами
+ */
+public record Revocation(
+        long sequence,
+        String key,
+        long notBefore,
+        long expiresAt
+) {
+
+    public static String userKey(Long userId) {
+        return "user:" + userId;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.mephi.springfinal.contracts.identity;
+
+import java.util.List;
+
+/**
+ * Порция журнала отзыва одного инстанса Booking Service.
+ *
+ * @param source      идентификатор журнала инстанса: номера записей разных журналов не сравнимы
+ * @param revocations записи журнала по возрастанию номера
+ */
+public record RevocationBatch(
+        String source,
+        List<Revocation> revocations
+) {
+}
@@ -0,0 +1,190 @@
+package ru.mephi.springfinal.contracts.identity;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Локальная копия журнала отзыва токенов: фильтр Блума перед точным множеством.
+ * <p>
+ * Для неотозванного токена (подавляющее большинство запросов) проверка {@code jti} - несколько чтений
+ * битового массива без блокировок и аллокаций; в точное множество идут только срабатывания
+ * фильтра, включая ложные (около 1% при заполнении до {@code expectedEntries}).
+ * Отзывов "всех токенов пользователя" единицы, они хранятся в отдельной карте userId -> момент отзыва.
+ * Удалять из фильтра Блума нельзя, поэтому {@link #purgeExpired} перестраивает его из оставшихся записей.
+ * <p>
+ * У каждого инстанса Booking свой журнал и своя нумерация записей, поэтому номер последней
+ * примененной записи хранится отдельно для каждого журнала ({@link RevocationBatch#source()}).
+ * Синхронизация перечитывает несколько последних записей ({@code overlap}): запись с меньшим номером,
+ * закоммиченная позже записи с большим, иначе была бы пропущена. Повторное применение записи ничего не меняет.
+ */
+public final class RevocationList {
+
+    private static final String USER_KEY_PREFIX = "user:";
+    private static final int HASHES = 7;
+    private static final char CURSOR_SEPARATOR = '@';
+    // журнал, о котором сутки ничего не слышно, считается исчезнувшим (инстанс остановлен или перезапущен)
+    private static final long STALE_SOURCE_SECONDS = 86_400;
+
+    private final int bits;
+    private volatile AtomicLongArray bloom;
+    private final Map<String, Revocation> tokens = new ConcurrentHashMap<>();
+    private final Map<Long, Revocation> users = new ConcurrentHashMap<>();
+    private final Map<String, Cursor> cursors = new ConcurrentHashMap<>();
+
+    /**
+     * @param expectedEntries ожидаемое число одновременно действующих отзывов
+     */
+    public RevocationList(int expectedEntries) {
+        // ~10 бит на запись при 7 хешах дают ~1% ложных срабатываний
+        this.bits = Math.max(1024, expectedEntries * 10);
+        this.bloom = new AtomicLongArray((bits + 63) / 64);
+    }
+
+    /**
+     * Отозван ли токен: по собственному {@code jti} или отзывом всех токенов пользователя.
+     *
+     * @param issuedAt момент выпуска токена, epoch seconds
+     */
+    public boolean isRevoked(String tokenId, Long userId, long issuedAt) {
+        if (tokenId != null && mightContain(tokenId) && tokens.containsKey(tokenId)) {
+            return true;
+        }
+        if (userId != null && !users.isEmpty()) {
+            Revocation revocation = users.get(userId);
+            return revocation != null && issuedAt <= revocation.notBefore();
+        }
+        return false;
+    }
+
+    /**
+     * Добавить отзыв без продвижения номера журнала (отзыв, выполненный на этом инстансе).
+     */
+    public void add(Revocation revocation) {
+        String key = revocation.key();
+        if (key.startsWith(USER_KEY_PREFIX)) {
+            // для пользователя действует самый поздний отзыв
+            users.merge(Long.valueOf(key.substring(USER_KEY_PREFIX.length())), revocation,
+                    (current, next) -> next.notBefore() >= current.notBefore() ? next : current);
+        } else {
+            tokens.put(key, revocation);
+            put(bloom, key);
+        }
+    }
+
+    /**
+     * Применить порцию журнала {@code source}, полученную синхронизацией, и продвинуть его номер.
+     */
+    public void applyChanges(String source, Collection<Revocation> revocations) {
+        long last = 0;
+        for (Revocation revocation : revocations) {
+            add(revocation);
+            last = Math.max(last, revocation.sequence());
+        }
+        Cursor seen = new Cursor(last, Instant.now().getEpochSecond());
+        cursors.merge(source, seen, (current, next) -> new Cursor(Math.max(current.sequence(), next.sequence()), next.seenAt()));
+    }
+
+    public void applyChanges(RevocationBatch batch) {
+        applyChanges(batch.source(), batch.revocations());
+    }
+
+    /**
+     * Номер последней примененной записи журнала {@code source}; 0 - журнал еще не читался.
+     */
+    public long lastSequence(String source) {
+        Cursor cursor = cursors.get(source);
+        return cursor != null ? cursor.sequence() : 0;
+    }
+
+    /**
+     * Курсоры всех известных журналов для запроса {@code GET /api/internal/revocations?cursor=...},
+     * отступившие на {@code overlap} записей назад. Инстанс Booking берет курсор своего журнала.
+     */
+    public List<String> cursors(long overlap) {
+        List<String> result = new ArrayList<>(cursors.size());
+        cursors.forEach((source, cursor) ->
+                result.add(source + CURSOR_SEPARATOR + Math.max(0, cursor.sequence() - overlap)));
+        return result;
+    }
+
+    /**
+     * Номер, после которого запрошены записи журнала {@code source}; 0, если курсора этого журнала нет.
+     */
+    public static long sequenceFor(String source, Collection<String> cursors) {
+        if (cursors == null) {
+            return 0;
+        }
+        String prefix = source + CURSOR_SEPARATOR;
+        for (String cursor : cursors) {
+            if (cursor.startsWith(prefix)) {
+                try {
+                    return Long.parseLong(cursor, prefix.length(), cursor.length(), 10);
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    public int size() {
+        return tokens.size() + users.size();
+    }
+
+    public synchronized void purgeExpired(long nowEpochSeconds) {
+        tokens.values().removeIf(revocation -> revocation.expiresAt() <= nowEpochSeconds);
+        users.values().removeIf(revocation -> revocation.expiresAt() <= nowEpochSeconds);
+        cursors.values().removeIf(cursor -> cursor.seenAt() + STALE_SOURCE_SECONDS <= nowEpochSeconds);
+        AtomicLongArray rebuilt = new AtomicLongArray(bloom.length());
+        tokens.keySet().forEach(key -> put(rebuilt, key));
+        bloom = rebuilt;
+        // записи, добавленные во время перестройки в старый массив, переносятся в новый
+        tokens.keySet().forEach(key -> put(rebuilt, key));
+    }
+
+    private boolean mightContain(String key) {
+        AtomicLongArray current = bloom;
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            if ((current.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void put(AtomicLongArray target, String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= HASHES; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            long mask = 1L << bit;
+            target.getAndUpdate(bit >>> 6, word -> word | mask);
+        }
+    }
+
+    // 64-битный FNV-1a по символам с финальным перемешиванием: половины дают независимые h1 и h2
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private record Cursor(long sequence, long seenAt) {
+    }
+}
@@ -0,0 +1,90 @@
+package ru.mephi.springfinal.contracts.identity;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Кэш проверенных JWT: SHA-256 дайджест токена -> principal и authorities.
+ * <p>
+ * Повторный запрос с тем же токеном не проверяет HMAC-подпись и не разбирает JSON claims.
+ * Запись живет до {@code exp} токена, размер кэша ограничен {@code jwt.cache.max-size}.
+ * Невалидные токены не кэшируются: исключение верификатора пробрасывается вызывающему.
+ * Отзыв токена кэш не учитывает: он проверяется отдельно на каждом запросе.
+ * <p>
+ * Общий для Booking Service и Hotel Service; бин создается в их {@code InternalIdentityConfig}.
+ */
+public class VerifiedTokenCache {
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        return untilExpiration(value);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime,
+                                                  long currentDuration) {
+                        return untilExpiration(value);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Вернуть проверенный токен из кэша или проверить его через {@code verifier}.
+     * {@code null} от верификатора (нет subject или ролей) не кэшируется.
+     */
+    public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+        return cache.get(digest(token), key -> verifier.apply(token));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static long untilExpiration(VerifiedToken value) {
+        if (value.expiresAt() == null) {
+            return 0;
+        }
+        return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @param tokenId  {@code jti} токена для проверки по журналу отзыва
+     * @param issuedAt момент выпуска, epoch seconds
+     */
+    public record VerifiedToken(String username, Long userId, List<GrantedAuthority> authorities,
+                                String tokenId, long issuedAt, Instant expiresAt) {
+    }
+}
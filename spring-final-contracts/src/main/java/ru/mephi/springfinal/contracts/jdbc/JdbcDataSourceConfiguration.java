@@ -0,0 +1,25 @@
+package ru.mephi.springfinal.contracts.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JDBC DataSource для JPA в сервисах, где рядом с JPA подключен R2DBC. Когда на classpath есть
+ * R2DBC ConnectionFactory, автоконфигурация DataSource в Spring Boot отключается, поэтому пул Hikari
+ * объявлен явно по свойствам {@code spring.datasource.*} и {@code spring.datasource.hikari.*}.
+ * Подключается сервисом через {@code @Import}.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class JdbcDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
@@ -0,0 +1,131 @@
+package ru.mephi.springfinal.contracts.loadbalancing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Кольцо консистентного хеширования с виртуальными узлами и ограниченной нагрузкой.
+ * <p>
+ * Каждый инстанс занимает {@code virtualNodes} точек кольца; владелец ключа - первый узел по часовой
+ * стрелке от хеша ключа. При уходе инстанса переезжают только его ключи (к соседям по кольцу),
+ * остальные сохраняют владельца. Ограничение нагрузки: узел, у которого запросов в работе не меньше
+ * {@code ceil(loadFactor * (всего + 1) / инстансов)}, пропускается, и ключ временно обслуживает
+ * следующий по кольцу - так "горячий" ключ не перегружает своего владельца. Так же обходится инстанс,
+ * который сейчас отвечает ошибками.
+ * <p>
+ * Кольцо неизменяемо; при смене состава инстансов строится новое.
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> members;
+    private final long[] points;
+    private final String[] nodes;
+
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("Ring requires at least one member and one virtual node");
+        }
+        this.members = members.stream().distinct().sorted().toList();
+
+        int size = this.members.size() * virtualNodes;
+        long[] unsortedPoints = new long[size];
+        Integer[] order = new Integer[size];
+        String[] owners = new String[size];
+        int position = 0;
+        for (String member : this.members) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                unsortedPoints[position] = hash(member + "#" + replica);
+                owners[position] = member;
+                order[position] = position;
+                position++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(unsortedPoints[a], unsortedPoints[b]));
+
+        this.points = new long[size];
+        this.nodes = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = unsortedPoints[order[i]];
+            nodes[i] = owners[order[i]];
+        }
+    }
+
+    /**
+     * Инстансы кольца в отсортированном порядке.
+     */
+    public List<String> members() {
+        return members;
+    }
+
+    /**
+     * Владелец ключа без учета нагрузки.
+     */
+    public String owner(long key) {
+        return nodes[startIndex(key)];
+    }
+
+    /**
+     * Владелец ключа с ограничением нагрузки. Недоступные инстансы пропускаются, их ключи получает
+     * следующий по кольцу - тот же, что и при удалении инстанса из кольца.
+     *
+     * @param load       запросы в работе по инстансу
+     * @param available  доступен ли инстанс; если недоступны все, возвращается владелец без учета доступности
+     * @param loadFactor допустимое превышение средней нагрузки, например 1.25
+     */
+    public String owner(long key, ToIntFunction<String> load, Predicate<String> available, double loadFactor) {
+        int total = 0;
+        int availableMembers = 0;
+        for (String member : members) {
+            if (available.test(member)) {
+                total += load.applyAsInt(member);
+                availableMembers++;
+            }
+        }
+        int start = startIndex(key);
+        if (availableMembers == 0) {
+            return nodes[start];
+        }
+        int capacity = (int) Math.ceil(loadFactor * (total + 1) / availableMembers);
+
+        for (int i = 0; i < nodes.length; i++) {
+            String node = nodes[(start + i) % nodes.length];
+            if (available.test(node) && load.applyAsInt(node) < capacity) {
+                return node;
+            }
+        }
+        return nodes[start];
+    }
+
+    private int startIndex(long key) {
+        long point = mix(key);
+        int index = Arrays.binarySearch(points, point);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index == points.length ? 0 : index;
+    }
+
+    // FNV-1a с финальным перемешиванием: точки узлов равномерно распределены по кольцу
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // fmix64 из MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
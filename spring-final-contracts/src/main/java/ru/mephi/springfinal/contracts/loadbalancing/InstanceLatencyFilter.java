@@ -0,0 +1,39 @@
+package ru.mephi.springfinal.contracts.loadbalancing;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Замер задержки WebClient до заголовков ответа по инстансу для {@link LatencyAwareLoadBalancer}.
+ * <p>
+ * Фильтр должен стоять после фильтра балансировщика, когда URL уже указывает на выбранный инстанс.
+ * Запрос учитывается и при отмене (проигравший хедж, таймаут): колбэки жизненного цикла
+ * балансировщика на отмену не вызываются, и счетчик запросов в работе расходился бы.
+ */
+public class InstanceLatencyFilter implements ExchangeFilterFunction {
+
+    private final LatencyScoreboard scoreboard;
+
+    public InstanceLatencyFilter(LatencyScoreboard scoreboard) {
+        this.scoreboard = scoreboard;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String instance = request.url().getHost() + ":" + request.url().getPort();
+        return Mono.defer(() -> {
+            scoreboard.onStart(instance);
+            long start = System.nanoTime();
+            AtomicBoolean failed = new AtomicBoolean();
+            return next.exchange(request)
+                    .doOnNext(response -> failed.set(response.statusCode().is5xxServerError()))
+                    .doOnError(e -> failed.set(true))
+                    .doFinally(signal -> scoreboard.onComplete(instance, System.nanoTime() - start, failed.get()));
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package ru.mephi.springfinal.contracts.loadbalancing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Балансировщик {@code @LoadBalanced} WebClient и {@code lb://}-маршрутов Gateway: из двух случайных
+ * инстансов выбирает тот, у которого меньше сглаженная задержка с учетом запросов в работе
+ * (см. {@link LatencyScoreboard}). Запросы {@code /api/rooms/{id}/...} направляются владельцу номера
+ * по консистентному хешу ({@link RoomAffinityRouter}). Замеры WebClient записывает
+ * {@link InstanceLatencyFilter}, маршрутов Gateway - его глобальный фильтр.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyAwareLoadBalancer.class);
+
+    private final String serviceId;
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final RoomAffinityRouter router;
+
+    public LatencyAwareLoadBalancer(String serviceId,
+                                    ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                    RoomAffinityRouter router) {
+        this.serviceId = serviceId;
+        this.supplierProvider = supplierProvider;
+        this.router = router;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String path = path(request);
+        return supplier.get(request).next().map(instances -> choose(path, instances));
+    }
+
+    private Response<ServiceInstance> choose(String path, List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            log.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+        return new DefaultResponse(router.choose(path, instances, LatencyAwareLoadBalancer::instanceId));
+    }
+
+    private static String path(Request<?> request) {
+        if (request.getContext() instanceof RequestDataContext context && context.getClientRequest() != null) {
+            return context.getClientRequest().getUrl().getPath();
+        }
+        return null;
+    }
+
+    /**
+     * Ключ инстанса в {@link LatencyScoreboard}: тот же ключ должны использовать фильтры замеров.
+     */
+    public static String instanceId(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
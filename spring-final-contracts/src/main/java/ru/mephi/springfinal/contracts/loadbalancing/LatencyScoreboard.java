@@ -0,0 +1,117 @@
+package ru.mephi.springfinal.contracts.loadbalancing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Оценка инстансов сервиса для балансировки "power of two choices".
+ * <p>
+ * Для каждого инстанса хранятся запросы в работе и экспоненциально сглаженная по времени задержка
+ * (peak EWMA: рост задержки учитывается сразу, снижение - постепенно). Стоимость инстанса -
+ * {@code ewma * (inFlight + 1)}; из двух случайных кандидатов выбирается более дешевый.
+ * Без обращений к инстансу его оценка затухает к нулю, поэтому медленный инстанс периодически
+ * снова получает пробный запрос и возвращается в работу, когда восстановится.
+ * <p>
+ * Общий для Booking Service ({@code @LoadBalanced WebClient}) и Gateway ({@code lb://}-маршруты).
+ */
+public final class LatencyScoreboard {
+
+    private final double decayNanos;
+    private final long failurePenaltyNanos;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * @param decayNanos          постоянная времени сглаживания, нс
+     * @param failurePenaltyNanos задержка, засчитываемая за ошибку соединения или 5xx, нс
+     */
+    public LatencyScoreboard(long decayNanos, long failurePenaltyNanos) {
+        this.decayNanos = decayNanos;
+        this.failurePenaltyNanos = failurePenaltyNanos;
+    }
+
+    public <T> T choose(List<T> candidates, Function<T, String> idFunction) {
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        T a = candidates.get(first);
+        T b = candidates.get(second);
+        long now = System.nanoTime();
+        return cost(idFunction.apply(a), now) <= cost(idFunction.apply(b), now) ? a : b;
+    }
+
+    public void onStart(String instanceId) {
+        stats(instanceId).inFlight.incrementAndGet();
+    }
+
+    public void onComplete(String instanceId, long latencyNanos, boolean failed) {
+        Stats instance = stats(instanceId);
+        instance.inFlight.decrementAndGet();
+        instance.failed = failed;
+        instance.observe(failed ? Math.max(latencyNanos, failurePenaltyNanos) : latencyNanos, System.nanoTime(), decayNanos);
+    }
+
+    /**
+     * Запросы к инстансу, которые сейчас в работе.
+     */
+    public int inFlight(String instanceId) {
+        Stats instance = stats.get(instanceId);
+        return instance != null ? instance.inFlight.get() : 0;
+    }
+
+    /**
+     * Последний запрос к инстансу завершился ошибкой, и с тех пор прошло меньше постоянной сглаживания.
+     */
+    public boolean isFailing(String instanceId) {
+        Stats instance = stats.get(instanceId);
+        return instance != null && instance.failed && System.nanoTime() - instance.updatedAt < decayNanos;
+    }
+
+    double cost(String instanceId, long now) {
+        Stats instance = stats.get(instanceId);
+        if (instance == null) {
+            return 0;
+        }
+        return instance.ewma(now, decayNanos) * (instance.inFlight.get() + 1);
+    }
+
+    private Stats stats(String instanceId) {
+        Stats instance = stats.get(instanceId);
+        return instance != null ? instance : stats.computeIfAbsent(instanceId, id -> new Stats());
+    }
+
+    private static final class Stats {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile double ewma;
+        private volatile boolean failed;
+        private volatile long updatedAt = System.nanoTime();
+
+        double ewma(long now, double decayNanos) {
+            return ewma * Math.exp(-Math.max(0, now - updatedAt) / decayNanos);
+        }
+
+        // Замеры приходят из потоков ответов; редкая гонка теряет один замер, что для оценки несущественно
+        void observe(long latencyNanos, long now, double decayNanos) {
+            double current = ewma;
+            if (latencyNanos > current) {
+                ewma = latencyNanos;
+            } else {
+                // чем дольше не было замеров, тем больше вес нового
+                double weight = Math.exp(-Math.max(0, now - updatedAt) / decayNanos);
+                ewma = current * weight + latencyNanos * (1 - weight);
+            }
+            updatedAt = now;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.mephi.springfinal.contracts.loadbalancing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Балансировка с учетом задержки для всех сервисов, вызываемых через {@code @LoadBalanced} WebClient
+ * или {@code lb://}-маршруты. Подключается сервисом через {@code @Import}; оценки инстансов общие
+ * для всех дочерних контекстов балансировщика.
+ */
+@Configuration(proxyBeanMethods = false)
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancingConfiguration {
+
+    @Bean
+    public LatencyScoreboard latencyScoreboard(@Value("${loadbalancer.latency.decay:10s}") Duration decay,
+                                               @Value("${loadbalancer.latency.failure-penalty:1s}") Duration failurePenalty) {
+        return new LatencyScoreboard(decay.toNanos(), failurePenalty.toNanos());
+    }
+
+    @Bean
+    public RoomAffinityRouter roomAffinityRouter(LatencyScoreboard latencyScoreboard,
+                                                 @Value("${loadbalancer.room-affinity.enabled:true}") boolean enabled,
+                                                 @Value("${loadbalancer.room-affinity.virtual-nodes:128}") int virtualNodes,
+                                                 @Value("${loadbalancer.room-affinity.load-factor:1.25}") double loadFactor) {
+        return new RoomAffinityRouter(latencyScoreboard, enabled, virtualNodes, loadFactor);
+    }
+
+    @Bean
+    public InstanceLatencyFilter instanceLatencyFilter(LatencyScoreboard latencyScoreboard) {
+        return new InstanceLatencyFilter(latencyScoreboard);
+    }
+}
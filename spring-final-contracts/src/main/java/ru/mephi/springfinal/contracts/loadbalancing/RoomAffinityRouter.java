@@ -0,0 +1,85 @@
+package ru.mephi.springfinal.contracts.loadbalancing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Выбор инстанса Hotel Service с привязкой номера к инстансу.
+ * <p>
+ * Запросы с номером в пути ({@code /api/rooms/{id}/...}) идут к владельцу номера по
+ * {@link ConsistentHashRing} с ограничением нагрузки по запросам в работе, поэтому резервирования одного
+ * номера обслуживает один инстанс и может держать состояние номера в памяти. Инстанс, ответивший ошибкой,
+ * пропускается в течение {@code decay}: повтор запроса уходит к следующему по кольцу, остальные номера
+ * владельца не меняют. Прочие запросы (и все запросы при {@code enabled=false}) распределяются по
+ * задержке через {@link LatencyScoreboard}.
+ * <p>
+ * Привязка - оптимизация, а не гарантия: при перегрузке владельца или смене состава инстансов номер
+ * временно обслуживает другой инстанс, поэтому корректность по-прежнему обеспечивает БД.
+ */
+public final class RoomAffinityRouter {
+
+    private static final Pattern ROOM_PATH = Pattern.compile("/rooms/(\\d+)(?:/|$)");
+
+    private final LatencyScoreboard scoreboard;
+    private final boolean enabled;
+    private final int virtualNodes;
+    private final double loadFactor;
+    private volatile ConsistentHashRing ring;
+
+    public RoomAffinityRouter(LatencyScoreboard scoreboard, boolean enabled, int virtualNodes, double loadFactor) {
+        this.scoreboard = scoreboard;
+        this.enabled = enabled;
+        this.virtualNodes = virtualNodes;
+        this.loadFactor = loadFactor;
+    }
+
+    /**
+     * @param path путь запроса, может быть {@code null}
+     */
+    public <T> T choose(String path, List<T> candidates, Function<T, String> idFunction) {
+        Long roomId = roomId(path);
+        return roomId != null
+                ? chooseForRoom(roomId, candidates, idFunction)
+                : scoreboard.choose(candidates, idFunction);
+    }
+
+    public <T> T chooseForRoom(long roomId, List<T> candidates, Function<T, String> idFunction) {
+        if (!enabled || candidates.size() == 1) {
+            return scoreboard.choose(candidates, idFunction);
+        }
+        List<String> ids = new ArrayList<>(candidates.size());
+        for (T candidate : candidates) {
+            ids.add(idFunction.apply(candidate));
+        }
+        String owner = ring(ids).owner(roomId, scoreboard::inFlight, id -> !scoreboard.isFailing(id), loadFactor);
+        return candidates.get(ids.indexOf(owner));
+    }
+
+    static Long roomId(String path) {
+        if (path == null) {
+            return null;
+        }
+        Matcher matcher = ROOM_PATH.matcher(path);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private ConsistentHashRing ring(List<String> ids) {
+        ConsistentHashRing current = ring;
+        if (current != null && current.members().equals(ids.stream().distinct().sorted().toList())) {
+            return current;
+        }
+        current = new ConsistentHashRing(ids, virtualNodes);
+        ring = current;
+        return current;
+    }
+}
@@ -1,16 +1,13 @@
-package ru.mephi.springfinal.hotel.dto;
+package ru.mephi.springfinal.contracts.room;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class AvailabilityResponse {
-    private boolean available;
-    private String message;
-    private Long roomId;
+/**
+ * Результат подтверждения доступности номера.
+ */
+public record AvailabilityResponse(
+        boolean available,
+        String message,
+        Long roomId
+) {
 
     public static AvailabilityResponse success(Long roomId) {
         return new AvailabilityResponse(true, "Room is available and reserved", roomId);
@@ -20,4 +17,3 @@ public class AvailabilityResponse {
         return new AvailabilityResponse(false, message, null);
     }
 }
-
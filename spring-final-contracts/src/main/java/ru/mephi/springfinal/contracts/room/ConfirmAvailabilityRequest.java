@@ -0,0 +1,23 @@
+package ru.mephi.springfinal.contracts.room;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+/**
+ * Запрос {@code POST /api/rooms/{id}/confirm-availability} (шаг саги бронирования).
+ */
+public record ConfirmAvailabilityRequest(
+        @NotNull(message = "Request ID is required")
+        String requestId,
+
+        @NotNull(message = "Booking ID is required")
+        Long bookingId,
+
+        @NotNull(message = "Start date is required")
+        LocalDate startDate,
+
+        @NotNull(message = "End date is required")
+        LocalDate endDate
+) {
+}
@@ -0,0 +1,9 @@
+package ru.mephi.springfinal.contracts.room;
+
+/**
+ * Снятие резервации (компенсация саги) для RSocket-маршрута {@code rooms.{id}.release}.
+ */
+public record ReleaseReservationRequest(
+        String requestId
+) {
+}
@@ -0,0 +1,17 @@
+package ru.mephi.springfinal.contracts.room;
+
+import java.math.BigDecimal;
+
+/**
+ * Номер в ответе {@code GET /api/rooms/recommend}.
+ */
+public record RoomView(
+        Long id,
+        Long hotelId,
+        String roomNumber,
+        String type,
+        BigDecimal pricePerNight,
+        Integer timesBooked,
+        Boolean available
+) {
+}
@@ -0,0 +1,52 @@
+package ru.mephi.springfinal.contracts.loadbalancing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Consistent Hash Ring Tests")
+class ConsistentHashRingTest {
+
+    private static final List<String> INSTANCES = List.of("10.0.0.1:8082", "10.0.0.2:8082", "10.0.0.3:8082");
+
+    @Test
+    @DisplayName("Номера распределены равномерно; при уходе инстанса переезжают только его номера")
+    void testRemovalMovesOnlyAffectedKeys() {
+        ConsistentHashRing ring = new ConsistentHashRing(INSTANCES, 128);
+        ConsistentHashRing shrunk = new ConsistentHashRing(List.of("10.0.0.1:8082", "10.0.0.3:8082"), 128);
+
+        Map<String, Integer> perInstance = new HashMap<>();
+        for (long roomId = 1; roomId <= 30_000; roomId++) {
+            String owner = ring.owner(roomId);
+            perInstance.merge(owner, 1, Integer::sum);
+            if (!owner.equals("10.0.0.2:8082")) {
+                assertEquals(owner, shrunk.owner(roomId));
+            }
+        }
+        perInstance.values().forEach(count -> assertTrue(count > 7_000 && count < 13_000, "skewed: " + perInstance));
+    }
+
+    @Test
+    @DisplayName("Перегруженный или сбоящий владелец пропускается, номер получает следующий инстанс")
+    void testBoundedLoadAndFailover() {
+        ConsistentHashRing ring = new ConsistentHashRing(INSTANCES, 128);
+        long roomId = 42;
+        String owner = ring.owner(roomId);
+
+        assertEquals(owner, ring.owner(roomId, instance -> 0, instance -> true, 1.25));
+
+        // у владельца 10 запросов в работе при среднем ~3.7: выше допустимых 1.25 * (10 + 1) / 3
+        String spilled = ring.owner(roomId, instance -> instance.equals(owner) ? 10 : 0, instance -> true, 1.25);
+        assertNotEquals(owner, spilled);
+
+        String failover = ring.owner(roomId, instance -> 0, instance -> !instance.equals(owner), 1.25);
+        assertEquals(spilled, failover);
+    }
+}
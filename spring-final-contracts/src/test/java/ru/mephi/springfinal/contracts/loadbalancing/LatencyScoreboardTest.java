@@ -0,0 +1,49 @@
+package ru.mephi.springfinal.contracts.loadbalancing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Latency Scoreboard Tests")
+class LatencyScoreboardTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    @DisplayName("Из двух инстансов выбирается более быстрый; ошибка засчитывается штрафной задержкой")
+    void testPrefersFasterInstance() {
+        LatencyScoreboard scoreboard = new LatencyScoreboard(10_000 * MILLIS, 1_000 * MILLIS);
+        record(scoreboard, "slow:8082", 200 * MILLIS, false);
+        record(scoreboard, "fast:8082", 10 * MILLIS, false);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("fast:8082", scoreboard.choose(List.of("slow:8082", "fast:8082"), Function.identity()));
+        }
+
+        // быстрый, но отвечающий 5xx инстанс хуже медленного
+        record(scoreboard, "fast:8082", 5 * MILLIS, true);
+        assertEquals("slow:8082", scoreboard.choose(List.of("slow:8082", "fast:8082"), Function.identity()));
+    }
+
+    @Test
+    @DisplayName("Запросы в работе увеличивают стоимость инстанса")
+    void testInFlightRequestsSpreadLoad() {
+        LatencyScoreboard scoreboard = new LatencyScoreboard(10_000 * MILLIS, 1_000 * MILLIS);
+        record(scoreboard, "a:8082", 10 * MILLIS, false);
+        record(scoreboard, "b:8082", 15 * MILLIS, false);
+
+        scoreboard.onStart("a:8082");
+        scoreboard.onStart("a:8082");
+
+        assertEquals("b:8082", scoreboard.choose(List.of("a:8082", "b:8082"), Function.identity()));
+    }
+
+    private static void record(LatencyScoreboard scoreboard, String instance, long latencyNanos, boolean failed) {
+        scoreboard.onStart(instance);
+        scoreboard.onComplete(instance, latencyNanos, failed);
+    }
+}
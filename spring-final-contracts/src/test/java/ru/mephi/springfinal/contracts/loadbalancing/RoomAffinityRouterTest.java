@@ -0,0 +1,87 @@
+package ru.mephi.springfinal.contracts.loadbalancing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Room Affinity Router Tests")
+class RoomAffinityRouterTest {
+
+    private static final long MILLIS = 1_000_000L;
+    private static final List<String> INSTANCES = List.of("10.0.0.1:8082", "10.0.0.2:8082", "10.0.0.3:8082");
+
+    private final LatencyScoreboard scoreboard = new LatencyScoreboard(10_000 * MILLIS, 1_000 * MILLIS);
+    private final RoomAffinityRouter router = new RoomAffinityRouter(scoreboard, true, 128, 1.25);
+
+    @Test
+    @DisplayName("Один номер всегда уходит к одному владельцу независимо от порядка инстансов и пути")
+    void testSameRoomSameOwner() {
+        String owner = router.chooseForRoom(42, INSTANCES, Function.identity());
+
+        List<String> shuffled = new ArrayList<>(INSTANCES);
+        for (int i = 0; i < 20; i++) {
+            Collections.shuffle(shuffled);
+            assertEquals(owner, router.chooseForRoom(42, shuffled, Function.identity()));
+        }
+        assertEquals(owner, router.choose("/api/rooms/42/confirm-availability", INSTANCES, Function.identity()));
+        assertEquals(owner, router.choose("/api/rooms/42", INSTANCES, Function.identity()));
+    }
+
+    @Test
+    @DisplayName("Перегруженный владелец отдает номер следующему инстансу и получает его обратно после разгрузки")
+    void testBoundedLoadOverflow() {
+        long roomId = 42;
+        String owner = router.chooseForRoom(roomId, INSTANCES, Function.identity());
+
+        for (int i = 0; i < 10; i++) {
+            scoreboard.onStart(owner);
+        }
+        String spilled = router.chooseForRoom(roomId, INSTANCES, Function.identity());
+        assertNotEquals(owner, spilled);
+
+        for (int i = 0; i < 10; i++) {
+            scoreboard.onComplete(owner, 5 * MILLIS, false);
+        }
+        assertEquals(owner, router.chooseForRoom(roomId, INSTANCES, Function.identity()));
+    }
+
+    @Test
+    @DisplayName("Без владельца или при его сбое номер получает другой инстанс, остальные номера не переезжают")
+    void testFallbackWhenOwnerMissing() {
+        long roomId = 42;
+        String owner = router.chooseForRoom(roomId, INSTANCES, Function.identity());
+        List<String> remaining = INSTANCES.stream().filter(instance -> !instance.equals(owner)).toList();
+
+        String fallback = router.chooseForRoom(roomId, remaining, Function.identity());
+        assertTrue(remaining.contains(fallback));
+        for (long otherRoom = 1; otherRoom <= 1_000; otherRoom++) {
+            String otherOwner = router.chooseForRoom(otherRoom, INSTANCES, Function.identity());
+            if (!otherOwner.equals(owner)) {
+                assertEquals(otherOwner, router.chooseForRoom(otherRoom, remaining, Function.identity()));
+            }
+        }
+
+        // сбоящий владелец пропускается так же, как пропавший
+        scoreboard.onStart(owner);
+        scoreboard.onComplete(owner, 5 * MILLIS, true);
+        assertEquals(fallback, router.chooseForRoom(roomId, INSTANCES, Function.identity()));
+    }
+
+    @Test
+    @DisplayName("Номер извлекается только из пути /rooms/{id}")
+    void testRoomIdFromPath() {
+        assertEquals(42L, RoomAffinityRouter.roomId("/api/rooms/42/release"));
+        assertEquals(42L, RoomAffinityRouter.roomId("/api/rooms/42"));
+        assertNull(RoomAffinityRouter.roomId("/api/rooms/recommend"));
+        assertNull(RoomAffinityRouter.roomId(null));
+    }
+}
@@ -3,9 +3,14 @@ package ru.mephi.springfinal.gateway;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import ru.mephi.springfinal.contracts.loadbalancing.LoadBalancingConfiguration;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableScheduling
+@Import(LoadBalancingConfiguration.class)
 public class GatewayApplication {
     public static void main(String[] args) {
         SpringApplication.run(GatewayApplication.class, args);
@@ -0,0 +1,15 @@
+package ru.mephi.springfinal.gateway.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+
+@Configuration
+public class InternalIdentityConfig {
+
+    @Bean
+    public InternalIdentityCodec internalIdentityCodec(@Value("${internal-identity.secret}") String secret) {
+        return new InternalIdentityCodec(secret);
+    }
+}
@@ -0,0 +1,47 @@
+package ru.mephi.springfinal.gateway.config;
+
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.gateway.filter.IdentityPropagationFilter;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Ключи ведер для {@code RequestRateLimiter}. Пустой ключ (нет ни пользователя, ни адреса)
+ * отклоняется фильтром.
+ */
+@Configuration
+public class RateLimiterConfig {
+
+    // Пользователь из проверенного JWT; анонимный запрос ограничивается по адресу клиента
+    @Bean
+    @Primary
+    public KeyResolver userKeyResolver() {
+        return exchange -> {
+            InternalIdentity identity = exchange.getAttribute(IdentityPropagationFilter.IDENTITY_ATTRIBUTE);
+            if (identity != null) {
+                return Mono.just("user:" + (identity.userId() != null ? identity.userId() : identity.username()));
+            }
+            return remoteAddress(exchange);
+        };
+    }
+
+    // Для маршрутов без аутентификации (логин)
+    @Bean
+    public KeyResolver ipKeyResolver() {
+        return RateLimiterConfig::remoteAddress;
+    }
+
+    private static Mono<String> remoteAddress(ServerWebExchange exchange) {
+        InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+        if (address == null || address.getAddress() == null) {
+            return Mono.empty();
+        }
+        return Mono.just("ip:" + address.getAddress().getHostAddress());
+    }
+}
@@ -15,7 +15,7 @@ public class SecurityConfig {
         http
             .csrf(ServerHttpSecurity.CsrfSpec::disable)
             .authorizeExchange(exchange -> exchange
-                .pathMatchers("/api/user/register", "/api/user/auth").permitAll()
+                .pathMatchers("/api/user/register", "/api/user/auth", "/api/user/refresh").permitAll()
                 .pathMatchers("/actuator/**").permitAll()
                 .pathMatchers("/swagger-ui/**", "/v3/api-docs/**", "/webjars/**").permitAll()
                 .anyExchange().permitAll() // Gateway передает запросы сервисам, которые выполняют проверку
@@ -0,0 +1,183 @@
+package ru.mephi.springfinal.gateway.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.gateway.dto.BookingScreenResponse;
+import ru.mephi.springfinal.gateway.filter.AdmissionControlFilter;
+import ru.mephi.springfinal.gateway.filter.BffGuardFilter;
+import ru.mephi.springfinal.gateway.filter.IdentityPropagationFilter;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.loadbalancing.InstanceLatencyFilter;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Backend-for-frontend экрана бронирования: вместо трех последовательных вызовов клиента
+ * ({@code GET /api/hotels/{id}}, {@code GET /api/rooms/recommend}, {@code GET /api/bookings})
+ * Gateway выполняет их параллельно, и время ответа определяется самым медленным из них.
+ * <p>
+ * У каждой части свой таймаут ({@code bff.timeout.*}); не успевшая или упавшая часть не ломает
+ * ответ, а попадает в {@code errors}. Если не получена ни одна часть - 502, а если все части
+ * отброшены контролем допуска - 503 с {@code Retry-After}, как при маршрутизации.
+ * <p>
+ * JWT и частоту запросов проверяет {@link BffGuardFilter}; каждый вызов сервиса проходит
+ * {@link AdmissionControlFilter#admit} и получает подписанный заголовок идентичности.
+ */
+@RestController
+@RequestMapping("/api/bff")
+public class BookingScreenController {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingScreenController.class);
+    private static final String OVERLOADED = "overloaded";
+
+    private final WebClient hotelClient;
+    private final WebClient bookingClient;
+    private final String hotelService;
+    private final String bookingService;
+    private final AdmissionControlFilter admissionControl;
+    private final InternalIdentityCodec identityCodec;
+    private final Duration hotelTimeout;
+    private final Duration roomsTimeout;
+    private final Duration bookingsTimeout;
+
+    public BookingScreenController(WebClient.Builder loadBalancedWebClientBuilder,
+                                   InstanceLatencyFilter instanceLatencyFilter,
+                                   AdmissionControlFilter admissionControl,
+                                   InternalIdentityCodec identityCodec,
+                                   @Value("${bff.hotel-service-url:http://spring-final-hotel}") String hotelServiceUrl,
+                                   @Value("${bff.booking-service-url:http://spring-final-booking}") String bookingServiceUrl,
+                                   @Value("${bff.timeout.hotel:2s}") Duration hotelTimeout,
+                                   @Value("${bff.timeout.rooms:2s}") Duration roomsTimeout,
+                                   @Value("${bff.timeout.bookings:2s}") Duration bookingsTimeout) {
+        // замер задержки после фильтра балансировщика, чтобы видеть выбранный инстанс
+        this.hotelClient = loadBalancedWebClientBuilder.clone()
+                .filter(instanceLatencyFilter)
+                .baseUrl(hotelServiceUrl)
+                .build();
+        this.bookingClient = loadBalancedWebClientBuilder.clone()
+                .filter(instanceLatencyFilter)
+                .baseUrl(bookingServiceUrl)
+                .build();
+        this.hotelService = URI.create(hotelServiceUrl).getHost();
+        this.bookingService = URI.create(bookingServiceUrl).getHost();
+        this.admissionControl = admissionControl;
+        this.identityCodec = identityCodec;
+        this.hotelTimeout = hotelTimeout;
+        this.roomsTimeout = roomsTimeout;
+        this.bookingsTimeout = bookingsTimeout;
+    }
+
+    @GetMapping("/booking-screen")
+    public Mono<ResponseEntity<BookingScreenResponse>> bookingScreen(
+            ServerWebExchange exchange,
+            @RequestParam Long hotelId,
+            @RequestParam(required = false) String roomType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        InternalIdentity identity = exchange.getAttribute(IdentityPropagationFilter.IDENTITY_ATTRIBUTE);
+        if (identity == null) {
+            return Mono.just(unauthorized());
+        }
+        String signedIdentity = identityCodec.encode(identity);
+        Map<String, String> errors = new ConcurrentHashMap<>();
+
+        Mono<Optional<JsonNode>> hotel = part("hotel", hotelService, hotelTimeout, errors, hotelClient.get()
+                .uri("/api/hotels/{id}", hotelId)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(InternalIdentityCodec.HEADER, signedIdentity)
+                .retrieve()
+                .bodyToMono(JsonNode.class));
+        Mono<Optional<JsonNode>> rooms = part("rooms", hotelService, roomsTimeout, errors, hotelClient.get()
+                .uri(uriBuilder -> {
+                    var builder = uriBuilder.path("/api/rooms/recommend")
+                            .queryParam("hotelId", hotelId)
+                            .queryParam("startDate", startDate)
+                            .queryParam("endDate", endDate);
+                    if (roomType != null) {
+                        builder.queryParam("roomType", roomType);
+                    }
+                    return builder.build();
+                })
+                .accept(MediaType.APPLICATION_JSON)
+                .header(InternalIdentityCodec.HEADER, signedIdentity)
+                .retrieve()
+                .bodyToMono(JsonNode.class));
+        Mono<Optional<JsonNode>> bookings = part("bookings", bookingService, bookingsTimeout, errors, bookingClient.get()
+                .uri("/api/bookings")
+                .accept(MediaType.APPLICATION_JSON)
+                .header(InternalIdentityCodec.HEADER, signedIdentity)
+                .retrieve()
+                .bodyToMono(JsonNode.class));
+
+        return Mono.zip(hotel, rooms, bookings)
+                .map(parts -> {
+                    BookingScreenResponse response = new BookingScreenResponse(parts.getT1().orElse(null),
+                            parts.getT2().orElse(null), parts.getT3().orElse(null), Map.copyOf(errors));
+                    boolean nothing = parts.getT1().isEmpty() && parts.getT2().isEmpty() && parts.getT3().isEmpty();
+                    if (!nothing) {
+                        return ResponseEntity.ok(response);
+                    }
+                    if (errors.size() == 3 && errors.values().stream().allMatch(OVERLOADED::equals)) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .body(response);
+                    }
+                    return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(response);
+                });
+    }
+
+    private Mono<Optional<JsonNode>> part(String name, String service, Duration timeout, Map<String, String> errors,
+                                          Mono<JsonNode> call) {
+        // таймаут отменяет вызов, и место в лимите допуска освобождается
+        return admissionControl.admit(service, AdmissionControlFilter.Priority.NORMAL, call)
+                .timeout(timeout)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(e -> {
+                    log.warn("Booking screen part {} failed: {}", name, e.toString());
+                    errors.put(name, describe(e));
+                    return Mono.just(Optional.empty());
+                });
+    }
+
+    private static String describe(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (e instanceof AdmissionControlFilter.OverloadedException) {
+            return OVERLOADED;
+        }
+        if (e instanceof WebClientResponseException response) {
+            return "HTTP " + response.getStatusCode().value();
+        }
+        return "unavailable";
+    }
+
+    private static ResponseEntity<BookingScreenResponse> unauthorized() {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"")
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package ru.mephi.springfinal.gateway.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.gateway.filter.CatalogCacheGatewayFilterFactory;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+
+import java.time.Instant;
+
+/**
+ * Внутренний эндпойнт сброса кэша каталога. Вызывается Hotel Service после изменения
+ * отелей или номеров; принимается только подписанный заголовок идентичности с ролью SERVICE.
+ */
+@RestController
+@RequestMapping("/internal/cache")
+public class CacheInvalidationController {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationController.class);
+
+    private final CatalogCacheGatewayFilterFactory catalogCache;
+    private final InternalIdentityCodec identityCodec;
+
+    public CacheInvalidationController(CatalogCacheGatewayFilterFactory catalogCache,
+                                       InternalIdentityCodec identityCodec) {
+        this.catalogCache = catalogCache;
+        this.identityCodec = identityCodec;
+    }
+
+    @PostMapping("/invalidate")
+    public Mono<ResponseEntity<Void>> invalidate(
+            @RequestHeader(value = InternalIdentityCodec.HEADER, required = false) String identityHeader) {
+        if (identityHeader == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+        InternalIdentity identity;
+        try {
+            identity = identityCodec.decode(identityHeader, Instant.now());
+        } catch (IllegalArgumentException e) {
+            log.warn("Cache invalidation rejected: {}", e.getMessage());
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+        if (identity.roles() == null || !identity.roles().contains("ROLE_SERVICE")) {
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        }
+
+        log.debug("Catalog cache invalidation requested by {}", identity.username());
+        catalogCache.invalidateAll();
+        return Mono.just(ResponseEntity.noContent().build());
+    }
+}
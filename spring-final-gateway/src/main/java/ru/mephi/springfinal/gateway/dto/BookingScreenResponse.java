@@ -0,0 +1,17 @@
+package ru.mephi.springfinal.gateway.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+
+/**
+ * Данные экрана бронирования одним ответом. Части передаются как есть из ответов сервисов;
+ * часть, не полученная вовремя или с ошибкой, равна null, а причина - в {@code errors} под ее именем.
+ */
+public record BookingScreenResponse(
+        JsonNode hotel,
+        JsonNode rooms,
+        JsonNode bookings,
+        Map<String, String> errors
+) {
+}
@@ -0,0 +1,168 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Контроль допуска к перегруженным сервисам с приоритетами.
+ * <p>
+ * Для каждого сервиса (хост URI маршрута, например {@code spring-final-booking}) считаются запросы
+ * в работе и сглаженная задержка ответа. Пока задержка не выше {@code admission.target-latency},
+ * лимит равен {@code admission.max-in-flight}; при росте задержки он уменьшается пропорционально.
+ * Каждому приоритету доступна своя доля лимита, поэтому при перегрузке первым отбрасывается анонимный
+ * просмотр каталога, затем остальные запросы, а создание и отмена бронирований - последними.
+ * Отброшенный запрос сразу получает 503 с {@code Retry-After}, не занимая сервис.
+ * <p>
+ * Фильтр стоит непосредственно перед балансировщиком: ответы из кэша Gateway и отклоненные
+ * ограничителем частоты запросы не учитываются. Собственные вызовы Gateway к сервисам (экран
+ * бронирования) проходят через {@link #admit} и делят с маршрутами те же счетчики.
+ */
+@Component
+public class AdmissionControlFilter implements GlobalFilter, Ordered {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    public enum Priority {
+        CRITICAL, NORMAL, LOW
+    }
+
+    private final int maxInFlight;
+    private final long targetLatencyNanos;
+    private final double normalShare;
+    private final double lowShare;
+    private final Map<String, BackendLoad> backends = new ConcurrentHashMap<>();
+
+    public AdmissionControlFilter(@Value("${admission.max-in-flight:200}") int maxInFlight,
+                                  @Value("${admission.target-latency:500ms}") Duration targetLatency,
+                                  @Value("${admission.normal-share:0.8}") double normalShare,
+                                  @Value("${admission.low-share:0.5}") double lowShare) {
+        this.maxInFlight = maxInFlight;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.normalShare = normalShare;
+        this.lowShare = lowShare;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || route.getUri().getHost() == null) {
+            return chain.filter(exchange);
+        }
+
+        Priority priority = classify(exchange);
+        BackendLoad load = load(route.getUri().getHost());
+        if (!load.tryAdmit(threshold(load, priority))) {
+            log.debug("Shedding {} request {} to {}: {} in flight",
+                    priority, exchange.getRequest().getPath(), route.getUri().getHost(), load.inFlight.get());
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return exchange.getResponse().setComplete();
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> load.complete(System.nanoTime() - start));
+    }
+
+    /**
+     * Допустить собственный вызов Gateway к сервису {@code service} (id сервиса в Eureka).
+     * Отброшенный вызов завершается {@link OverloadedException}, не обращаясь к сервису.
+     */
+    public <T> Mono<T> admit(String service, Priority priority, Mono<T> call) {
+        return Mono.defer(() -> {
+            BackendLoad load = load(service);
+            if (!load.tryAdmit(threshold(load, priority))) {
+                log.debug("Shedding {} call to {}: {} in flight", priority, service, load.inFlight.get());
+                return Mono.error(new OverloadedException(service));
+            }
+            long start = System.nanoTime();
+            return call.doFinally(signal -> load.complete(System.nanoTime() - start));
+        });
+    }
+
+    private BackendLoad load(String service) {
+        return backends.computeIfAbsent(service, host -> new BackendLoad());
+    }
+
+    static Priority classify(ServerWebExchange exchange) {
+        String path = exchange.getRequest().getPath().value();
+        HttpMethod method = exchange.getRequest().getMethod();
+        boolean bookings = path.startsWith("/api/bookings") || path.startsWith("/api/v2/bookings");
+        if (bookings && (method == HttpMethod.POST || method == HttpMethod.DELETE)) {
+            return Priority.CRITICAL;
+        }
+        // логин и обновление токена нужны, чтобы дойти до бронирования
+        if (exchange.getAttribute(IdentityPropagationFilter.IDENTITY_ATTRIBUTE) != null || path.startsWith("/api/user/")) {
+            return Priority.NORMAL;
+        }
+        return Priority.LOW;
+    }
+
+    private int threshold(BackendLoad load, Priority priority) {
+        long latency = load.latencyNanos.get();
+        double limit = latency > targetLatencyNanos
+                ? (double) maxInFlight * targetLatencyNanos / latency
+                : maxInFlight;
+        double share = switch (priority) {
+            case CRITICAL -> 1.0;
+            case NORMAL -> normalShare;
+            case LOW -> lowShare;
+        };
+        // хотя бы один запрос каждого класса, чтобы оценка задержки восстанавливалась после перегрузки
+        return Math.max(1, (int) (limit * share));
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+
+    /**
+     * Вызов отброшен контролем допуска: сервис перегружен.
+     */
+    public static class OverloadedException extends RuntimeException {
+
+        public OverloadedException(String service) {
+            super("Service " + service + " is overloaded");
+        }
+    }
+
+    private static final class BackendLoad {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        // экспоненциальное скользящее среднее задержки, вес нового замера 1/8
+        private final AtomicLong latencyNanos = new AtomicLong();
+
+        boolean tryAdmit(int threshold) {
+            if (inFlight.incrementAndGet() > threshold) {
+                inFlight.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        void complete(long elapsedNanos) {
+            inFlight.decrementAndGet();
+            latencyNanos.updateAndGet(current -> current == 0 ? elapsedNanos : current + (elapsedNanos - current) / 8);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+
+/**
+ * Защита собственных эндпойнтов Gateway ({@code /api/bff/**}), до которых глобальные фильтры маршрутов
+ * не доходят: проверка JWT, как в {@link IdentityPropagationFilter}, и ограничение частоты тем же
+ * {@link InMemoryRateLimiter} по пользователю ({@code bff.rate-limit.*}).
+ * <p>
+ * Проверенная личность кладется в атрибут {@link IdentityPropagationFilter#IDENTITY_ATTRIBUTE}.
+ * Допуск к сервисам проверяется для каждого вызова отдельно ({@link AdmissionControlFilter#admit}).
+ */
+@Component
+public class BffGuardFilter implements WebFilter, Ordered {
+
+    public static final String PATH_PREFIX = "/api/bff/";
+    static final String RATE_LIMIT_ROUTE_ID = "bff";
+
+    private static final Logger log = LoggerFactory.getLogger(BffGuardFilter.class);
+
+    private final IdentityPropagationFilter identityFilter;
+    private final InMemoryRateLimiter rateLimiter;
+    private final KeyResolver keyResolver;
+    private final InMemoryRateLimiter.Config limits = new InMemoryRateLimiter.Config();
+
+    public BffGuardFilter(IdentityPropagationFilter identityFilter,
+                          InMemoryRateLimiter rateLimiter,
+                          @Qualifier("userKeyResolver") KeyResolver keyResolver,
+                          @Value("${bff.rate-limit.replenish-rate:10}") int replenishRate,
+                          @Value("${bff.rate-limit.burst-capacity:20}") int burstCapacity) {
+        this.identityFilter = identityFilter;
+        this.rateLimiter = rateLimiter;
+        this.keyResolver = keyResolver;
+        this.limits.setReplenishRate(replenishRate);
+        this.limits.setBurstCapacity(burstCapacity);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!exchange.getRequest().getPath().value().startsWith(PATH_PREFIX)) {
+            return chain.filter(exchange);
+        }
+
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith("Bearer ")) {
+            return unauthorized(exchange);
+        }
+        InternalIdentity identity;
+        try {
+            identity = identityFilter.authenticate(header.substring(7));
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejecting request {}: {}", exchange.getRequest().getPath(), e.getMessage());
+            return unauthorized(exchange);
+        }
+        exchange.getAttributes().put(IdentityPropagationFilter.IDENTITY_ATTRIBUTE, identity);
+
+        return keyResolver.resolve(exchange)
+                .flatMap(key -> rateLimiter.isAllowed(RATE_LIMIT_ROUTE_ID, limits, key))
+                .flatMap(response -> {
+                    response.getHeaders().forEach(exchange.getResponse().getHeaders()::set);
+                    if (response.isAllowed()) {
+                        return chain.filter(exchange);
+                    }
+                    exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                    return exchange.getResponse().setComplete();
+                });
+    }
+
+    private static Mono<Void> unauthorized(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+        return exchange.getResponse().setComplete();
+    }
+
+    @Override
+    public int getOrder() {
+        // после фильтров Spring Security, до обработчика контроллера
+        return 0;
+    }
+}
@@ -0,0 +1,236 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Локальный кэш ответов каталога на Gateway.
+ * <p>
+ * Кэшируются только успешные ответы на GET, которые сервис явно пометил {@code Cache-Control: public}
+ * (по умолчанию Spring Security запрещает кэширование); ключ - путь, строка запроса и набор ролей
+ * (ответ для администратора не отдается пользователю). Срок жизни и размер задаются на маршруте:
+ * <pre>
+ * - name: CatalogCache
+ *   args:
+ *     ttl: 30s
+ *     maxSize: 1000
+ * </pre>
+ * Hotel Service после изменения отелей или номеров вызывает {@code POST /internal/cache/invalidate},
+ * и кэши всех маршрутов сбрасываются ({@link #invalidateAll()}); если уведомление потерялось,
+ * устаревший ответ живет не дольше {@code ttl}.
+ * <p>
+ * Кэш принадлежит маршруту, а не фильтру: при перестроении маршрутов (обновление конфигурации,
+ * {@code RefreshRoutesEvent}) фильтр создается заново, но получает тот же кэш, если ttl и размер
+ * не изменились, поэтому число кэшей ограничено числом маршрутов.
+ */
+@Component
+public class CatalogCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<CatalogCacheGatewayFilterFactory.Config> {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogCacheGatewayFilterFactory.class);
+    private static final String CACHE_HEADER = "X-Cache";
+    private static final String ANONYMOUS = "anonymous";
+
+    private final Map<String, RouteCache> caches = new ConcurrentHashMap<>();
+    // Ответ, запрошенный до сброса, не должен попасть в кэш после него
+    private final AtomicLong generation = new AtomicLong();
+
+    public CatalogCacheGatewayFilterFactory() {
+        super(Config.class);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Cache<String, CachedResponse> cache = cacheFor(config);
+
+        // Декоратор ответа должен быть установлен до NettyWriteResponseFilter, который пишет тело клиенту
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            String key = cacheKey(exchange);
+            CachedResponse cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return writeCached(exchange.getResponse(), cached);
+            }
+
+            exchange.getResponse().getHeaders().set(CACHE_HEADER, "MISS");
+            return chain.filter(exchange.mutate()
+                    .response(new CachingResponse(exchange.getResponse(), cache, key, generation.get()))
+                    .build());
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    /**
+     * Сбросить кэши всех маршрутов: каталог изменился.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        caches.values().forEach(routeCache -> routeCache.cache().invalidateAll());
+        log.info("Catalog response cache invalidated");
+    }
+
+    int cacheCount() {
+        return caches.size();
+    }
+
+    private Cache<String, CachedResponse> cacheFor(Config config) {
+        // без id маршрута (фильтр собран вручную) кэш делят фильтры с одинаковыми параметрами
+        String key = config.getRouteId() != null
+                ? config.getRouteId()
+                : config.getTtl() + "|" + config.getMaxSize();
+        return caches.compute(key, (routeId, existing) -> {
+            if (existing != null && existing.matches(config)) {
+                return existing;
+            }
+            Cache<String, CachedResponse> cache = Caffeine.newBuilder()
+                    .expireAfterWrite(config.getTtl())
+                    .maximumSize(config.getMaxSize())
+                    .build();
+            return new RouteCache(config.getTtl(), config.getMaxSize(), cache);
+        }).cache();
+    }
+
+    private static String cacheKey(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        InternalIdentity identity = exchange.getAttribute(IdentityPropagationFilter.IDENTITY_ATTRIBUTE);
+        String roles = identity != null && identity.roles() != null
+                ? String.join(",", identity.roles().stream().sorted().toList())
+                : ANONYMOUS;
+        String query = request.getURI().getRawQuery();
+        return request.getURI().getRawPath() + (query != null ? "?" + query : "") + "|" + roles;
+    }
+
+    private static Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached) {
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().set(CACHE_HEADER, "HIT");
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * Пропускает тело ответа сервиса к клиенту, сохраняя копию успешного ответа в кэш.
+     */
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final Cache<String, CachedResponse> cache;
+        private final String key;
+        private final long requestGeneration;
+
+        CachingResponse(ServerHttpResponse delegate, Cache<String, CachedResponse> cache, String key,
+                        long requestGeneration) {
+            super(delegate);
+            this.cache = cache;
+            this.key = key;
+            this.requestGeneration = requestGeneration;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isCacheable()) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(Flux.from(body))
+                    .flatMap(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+                        if (generation.get() == requestGeneration) {
+                            cache.put(key, new CachedResponse(cacheableHeaders(getHeaders()), bytes));
+                        }
+                        return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    })
+                    .switchIfEmpty(Mono.defer(() -> super.writeWith(Flux.empty())));
+        }
+
+        private boolean isCacheable() {
+            HttpHeaders headers = getHeaders();
+            String cacheControl = headers.getCacheControl();
+            return HttpStatus.OK.equals(getStatusCode())
+                    && !headers.containsKey(HttpHeaders.SET_COOKIE)
+                    && cacheControl != null
+                    && cacheControl.contains("public")
+                    && !cacheControl.contains("no-store");
+        }
+
+        private static HttpHeaders cacheableHeaders(HttpHeaders source) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(source);
+            // длина и кодирование передачи выставляются заново при записи
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            headers.remove(CACHE_HEADER);
+            return HttpHeaders.readOnlyHttpHeaders(headers);
+        }
+    }
+
+    private record CachedResponse(HttpHeaders headers, byte[] body) {
+    }
+
+    private record RouteCache(Duration ttl, long maxSize, Cache<String, CachedResponse> cache) {
+
+        boolean matches(Config config) {
+            return ttl.equals(config.getTtl()) && maxSize == config.getMaxSize();
+        }
+    }
+
+    public static class Config implements HasRouteId {
+
+        private Duration ttl = Duration.ofSeconds(30);
+        private long maxSize = 1000;
+        private String routeId;
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+}
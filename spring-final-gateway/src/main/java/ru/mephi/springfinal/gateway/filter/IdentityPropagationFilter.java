@@ -0,0 +1,124 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Единственная полная проверка JWT на пути запроса.
+ * <p>
+ * Валидный Bearer-токен превращается в подписанный заголовок {@link InternalIdentityCodec#HEADER}
+ * (userId, username, роли), которому доверяют фильтры Booking и Hotel. Невалидный, истекший
+ * или отозванный ({@link RevocationSync}) токен отклоняется с 401 до маршрутизации в сервис.
+ * Пришедший снаружи заголовок идентичности всегда удаляется.
+ * <p>
+ * Проверенная личность доступна фильтрам маршрутов в атрибуте {@link #IDENTITY_ATTRIBUTE}.
+ */
+@Component
+public class IdentityPropagationFilter implements GlobalFilter, Ordered {
+
+    public static final String IDENTITY_ATTRIBUTE = IdentityPropagationFilter.class.getName() + ".identity";
+
+    private static final Logger log = LoggerFactory.getLogger(IdentityPropagationFilter.class);
+
+    private final JwtParser parser;
+    private final InternalIdentityCodec identityCodec;
+    private final RevocationSync revocationSync;
+
+    public IdentityPropagationFilter(@Value("${jwt.secret}") String secret,
+                                     InternalIdentityCodec identityCodec,
+                                     RevocationSync revocationSync) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.identityCodec = identityCodec;
+        this.revocationSync = revocationSync;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (header == null || !header.startsWith("Bearer ")) {
+            return chain.filter(exchange.mutate()
+                    .request(r -> r.headers(h -> h.remove(InternalIdentityCodec.HEADER)))
+                    .build());
+        }
+
+        InternalIdentity identity;
+        try {
+            identity = authenticate(header.substring(7));
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejecting request {}: {}", exchange.getRequest().getPath(), e.getMessage());
+            return reject(exchange);
+        }
+
+        exchange.getAttributes().put(IDENTITY_ATTRIBUTE, identity);
+        String signed = identityCodec.encode(identity);
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(h -> h.set(InternalIdentityCodec.HEADER, signed))
+                .build();
+        return chain.filter(exchange.mutate().request(request).build());
+    }
+
+    /**
+     * Проверить JWT (подпись, срок, отзыв) и получить личность для заголовка {@link InternalIdentityCodec#HEADER}.
+     * Используется и собственными эндпойнтами Gateway, к которым глобальные фильтры не применяются.
+     *
+     * @throws IllegalArgumentException если токен невалиден, истек или отозван
+     */
+    public InternalIdentity authenticate(String token) {
+        InternalIdentity identity;
+        try {
+            identity = toIdentity(parser.parseSignedClaims(token).getPayload());
+        } catch (JwtException e) {
+            throw new IllegalArgumentException("Invalid JWT: " + e.getMessage(), e);
+        }
+        if (revocationSync.isRevoked(identity.tokenId(), identity.userId(), identity.issuedAt())) {
+            throw new IllegalArgumentException("JWT has been revoked");
+        }
+        return identity;
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+        return exchange.getResponse().setComplete();
+    }
+
+    @Override
+    public int getOrder() {
+        // до маршрутизации и балансировки, чтобы невалидный токен не доходил до сервисов
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    private static InternalIdentity toIdentity(Claims claims) {
+        @SuppressWarnings("unchecked")
+        List<String> roles = claims.get("roles", List.class);
+        if (claims.getSubject() == null || roles == null || claims.getExpiration() == null) {
+            throw new IllegalArgumentException("Token has no subject, roles or expiration");
+        }
+        long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant().getEpochSecond() : 0;
+        return new InternalIdentity(claims.get("userId", Long.class), claims.getSubject(), roles,
+                claims.getId(), issuedAt, claims.getExpiration().toInstant().getEpochSecond());
+    }
+}
@@ -0,0 +1,111 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ограничитель частоты для стандартного фильтра {@code RequestRateLimiter} без Redis:
+ * по таблице {@link TokenBucketTable} на маршрут в памяти инстанса Gateway.
+ * <p>
+ * Параметры задаются в аргументах фильтра маршрута с префиксом {@code in-memory-rate-limiter}
+ * (как у {@code redis-rate-limiter}): {@code replenishRate}, {@code burstCapacity}, {@code requestedTokens}.
+ * Отказ - 429 с {@code Retry-After}. Лимит действует на каждый инстанс Gateway отдельно.
+ */
+@Component
+public class InMemoryRateLimiter extends AbstractRateLimiter<InMemoryRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "in-memory-rate-limiter";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryRateLimiter.class);
+
+    private final Map<String, TokenBucketTable> tables = new ConcurrentHashMap<>();
+
+    public InMemoryRateLimiter(ConfigurationService configurationService) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().get(routeId);
+        if (config == null) {
+            throw new IllegalArgumentException("No " + CONFIGURATION_PROPERTY_NAME + " configuration for route " + routeId);
+        }
+        return isAllowed(routeId, config, id);
+    }
+
+    /**
+     * Проверка с явно заданными лимитами - для собственных эндпойнтов Gateway, у которых нет маршрута
+     * и аргументов фильтра; {@code routeId} только разделяет таблицы ведер.
+     */
+    public Mono<Response> isAllowed(String routeId, Config config, String id) {
+        long result = table(routeId, config).tryAcquire(id);
+        if (result >= 0) {
+            return Mono.just(new Response(true, Map.of(REMAINING_HEADER, Long.toString(result))));
+        }
+        long retryAfterSeconds = Math.max(1, (-result + 999_999_999L) / 1_000_000_000L);
+        return Mono.just(new Response(false, Map.of(
+                REMAINING_HEADER, "0",
+                HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))));
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limiter.eviction-interval:60000}")
+    public void evictIdleBuckets() {
+        tables.forEach((routeId, table) -> {
+            int evicted = table.evictIdle();
+            if (evicted > 0) {
+                log.debug("Evicted {} idle rate limit buckets on route {}, {} left", evicted, routeId, table.size());
+            }
+        });
+    }
+
+    private TokenBucketTable table(String routeId, Config config) {
+        TokenBucketTable table = tables.get(routeId);
+        if (table == null || !table.hasLimits(config.getReplenishRate(), config.getBurstCapacity(), config.getRequestedTokens())) {
+            // лимиты маршрута изменились после обновления маршрутов: ведра начинаются заново
+            table = new TokenBucketTable(config.getReplenishRate(), config.getBurstCapacity(), config.getRequestedTokens());
+            tables.put(routeId, table);
+        }
+        return table;
+    }
+
+    public static class Config {
+
+        private int replenishRate = 1;
+        private int burstCapacity = 1;
+        private int requestedTokens = 1;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public void setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.identity.RevocationBatch;
+import ru.mephi.springfinal.contracts.identity.RevocationList;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Локальная копия журнала отзыва токенов Booking Service.
+ * <p>
+ * Раз в {@code revocation.sync.interval} опрашивает каждый инстанс Booking из Eureka напрямую, а не через
+ * балансировщик: у каждого инстанса свой журнал со своей нумерацией. В запросе передаются курсоры всех
+ * известных журналов ({@code GET /api/internal/revocations?cursor=<журнал>@<номер>}), инстанс отдает записи
+ * своего журнала после своего курсора, начиная на {@code revocation.sync.overlap} записей раньше.
+ * Проверка в {@link IdentityPropagationFilter} идет по локальной {@link RevocationList} без сетевых вызовов.
+ */
+@Component
+public class RevocationSync {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationSync.class);
+    private static final int PAGE_SIZE = 1000;
+
+    private final RevocationList revocations;
+    private final WebClient webClient = WebClient.create();
+    private final DiscoveryClient discoveryClient;
+    private final InternalIdentityCodec identityCodec;
+    private final String sourceServiceId;
+    private final long overlap;
+    private final boolean enabled;
+
+    public RevocationSync(DiscoveryClient discoveryClient,
+                          @Value("${revocation.source-service-id:spring-final-booking}") String sourceServiceId,
+                          @Value("${revocation.expected-entries:100000}") int expectedEntries,
+                          @Value("${revocation.sync.overlap:100}") long overlap,
+                          @Value("${revocation.sync.enabled:true}") boolean enabled,
+                          InternalIdentityCodec identityCodec) {
+        this.revocations = new RevocationList(expectedEntries);
+        this.discoveryClient = discoveryClient;
+        this.sourceServiceId = sourceServiceId;
+        this.overlap = overlap;
+        this.identityCodec = identityCodec;
+        this.enabled = enabled;
+    }
+
+    public boolean isRevoked(String tokenId, Long userId, long issuedAt) {
+        return revocations.isRevoked(tokenId, userId, issuedAt);
+    }
+
+    @Scheduled(fixedDelayString = "${revocation.sync.interval:1000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        for (ServiceInstance instance : discoveryClient.getInstances(sourceServiceId)) {
+            try {
+                RevocationBatch batch;
+                do {
+                    batch = fetch(instance.getUri());
+                    revocations.applyChanges(batch);
+                } while (batch.revocations().size() == PAGE_SIZE);
+            } catch (Exception e) {
+                // Инстанс мог остановиться, пока Eureka его не исключила: повторим на следующем тике
+                log.debug("Revocation sync with {} failed: {}", instance.getUri(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${revocation.purge.interval:3600000}")
+    public void purgeExpired() {
+        revocations.purgeExpired(Instant.now().getEpochSecond());
+    }
+
+    private RevocationBatch fetch(URI instance) {
+        long now = Instant.now().getEpochSecond();
+        String identity = identityCodec.encode(
+                new InternalIdentity(null, "api-gateway", List.of("ROLE_SERVICE"), null, now, now + 60));
+        URI uri = UriComponentsBuilder.fromUri(instance)
+                .path("/api/internal/revocations")
+                .queryParam("cursor", revocations.cursors(overlap).toArray())
+                .build()
+                .toUri();
+        RevocationBatch batch = webClient.get()
+                .uri(uri)
+                .header(InternalIdentityCodec.HEADER, identity)
+                .retrieve()
+                .bodyToMono(RevocationBatch.class)
+                .block(Duration.ofSeconds(5));
+        if (batch == null) {
+            throw new IllegalStateException("Empty revocation response from " + instance);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.contracts.loadbalancing.LatencyAwareLoadBalancer;
+import ru.mephi.springfinal.contracts.loadbalancing.LatencyScoreboard;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Замер задержки {@code lb://}-маршрутов по выбранному инстансу для {@link LatencyAwareLoadBalancer}.
+ * Собственные вызовы Gateway через WebClient замеряет
+ * {@link ru.mephi.springfinal.contracts.loadbalancing.InstanceLatencyFilter}.
+ * <p>
+ * Стоит сразу после балансировщика и считает задержку до конца записи ответа клиенту. Отсюда, а не из
+ * {@code LoadBalancerLifecycle}, потому что запрос, оборванный клиентом, тоже должен освободить инстанс.
+ */
+@Component
+public class RouteInstanceLatencyFilter implements GlobalFilter, Ordered {
+
+    private final LatencyScoreboard scoreboard;
+
+    public RouteInstanceLatencyFilter(LatencyScoreboard scoreboard) {
+        this.scoreboard = scoreboard;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (route == null || !"lb".equals(route.getUri().getScheme()) || url == null || url.getHost() == null) {
+            return chain.filter(exchange);
+        }
+
+        String instance = url.getHost() + ":" + url.getPort();
+        scoreboard.onStart(instance);
+        long start = System.nanoTime();
+        AtomicBoolean failed = new AtomicBoolean();
+        return chain.filter(exchange)
+                .doOnError(e -> failed.set(true))
+                .doFinally(signal -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    boolean serverError = status != null && status.is5xxServerError();
+                    scoreboard.onComplete(instance, System.nanoTime() - start, failed.get() || serverError);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
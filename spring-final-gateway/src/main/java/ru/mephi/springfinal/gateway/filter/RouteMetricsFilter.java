@@ -0,0 +1,164 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Метрики маршрутов Gateway для actuator/Prometheus:
+ * <ul>
+ *     <li>{@code gateway.route.latency} - задержка по маршруту, инстансу сервиса и статусу; перцентили
+ *     считаются гистограммой Micrometer поверх HdrHistogram</li>
+ *     <li>{@code gateway.route.in.flight} - запросы маршрута в работе</li>
+ *     <li>{@code gateway.route.request.bytes}, {@code gateway.route.response.bytes} - трафик маршрута</li>
+ * </ul>
+ * На пути запроса нет блокировок: запись в гистограмму и счетчики lock-free, метры создаются
+ * один раз на сочетание тегов и берутся из карты.
+ */
+@Component
+public class RouteMetricsFilter implements GlobalFilter, Ordered {
+
+    private static final String NO_INSTANCE = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteMeters> routes = new ConcurrentHashMap<>();
+    private final Map<LatencyKey, Timer> latencyTimers = new ConcurrentHashMap<>();
+
+    public RouteMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        RouteMeters meters = routes.computeIfAbsent(route.getId(), this::routeMeters);
+        meters.inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        // Байты считаются по телу, а не по Content-Length: у chunked-запроса заголовка нет
+        ServerWebExchange counted = exchange.mutate()
+                .request(new CountingRequest(exchange.getRequest(), meters.requestBytes))
+                .response(new CountingResponse(exchange.getResponse(), meters.responseBytes))
+                .build();
+        return chain.filter(counted)
+                .doFinally(signal -> {
+                    meters.inFlight.decrementAndGet();
+                    latencyTimer(route.getId(), instance(exchange), exchange.getResponse().getStatusCode())
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // сразу после проверки JWT: в задержку входят все фильтры Gateway
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+
+    private RouteMeters routeMeters(String routeId) {
+        AtomicInteger inFlight = new AtomicInteger();
+        Gauge.builder("gateway.route.in.flight", inFlight, AtomicInteger::get)
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return new RouteMeters(inFlight,
+                Counter.builder("gateway.route.request.bytes").baseUnit("bytes").tag("route", routeId).register(meterRegistry),
+                Counter.builder("gateway.route.response.bytes").baseUnit("bytes").tag("route", routeId).register(meterRegistry));
+    }
+
+    private Timer latencyTimer(String routeId, String instance, HttpStatusCode status) {
+        LatencyKey key = new LatencyKey(routeId, instance, status != null ? status.value() : 0);
+        Timer timer = latencyTimers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        return latencyTimers.computeIfAbsent(key, k -> Timer.builder("gateway.route.latency")
+                .tag("route", k.routeId())
+                .tag("instance", k.instance())
+                .tag("status", Integer.toString(k.status()))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry));
+    }
+
+    // Инстанс, выбранный балансировщиком; ответ из кэша Gateway в сервис не ходил
+    private static String instance(ServerWebExchange exchange) {
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (url == null || url.getHost() == null || "lb".equals(url.getScheme())) {
+            return NO_INSTANCE;
+        }
+        return url.getHost() + ":" + url.getPort();
+    }
+
+    private record RouteMeters(AtomicInteger inFlight, Counter requestBytes, Counter responseBytes) {
+    }
+
+    private record LatencyKey(String routeId, String instance, int status) {
+    }
+
+    private static final class CountingRequest extends ServerHttpRequestDecorator {
+
+        private final Counter requestBytes;
+
+        CountingRequest(ServerHttpRequest delegate, Counter requestBytes) {
+            super(delegate);
+            this.requestBytes = requestBytes;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return super.getBody().doOnNext(buffer -> requestBytes.increment(buffer.readableByteCount()));
+        }
+    }
+
+    private static final class CountingResponse extends ServerHttpResponseDecorator {
+
+        private final Counter responseBytes;
+
+        CountingResponse(ServerHttpResponse delegate, Counter responseBytes) {
+            super(delegate);
+            this.responseBytes = responseBytes;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return super.writeWith(Flux.from(body).doOnNext(this::count));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return super.writeAndFlushWith(Flux.from(body).map(part -> Flux.from(part).doOnNext(this::count)));
+        }
+
+        private void count(DataBuffer buffer) {
+            responseBytes.increment(buffer.readableByteCount());
+        }
+    }
+}
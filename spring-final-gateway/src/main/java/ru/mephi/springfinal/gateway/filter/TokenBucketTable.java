@@ -0,0 +1,80 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Таблица token bucket без блокировок: одно {@link AtomicLong} на ключ.
+ * <p>
+ * Вместо пары (токены, время пополнения) хранится момент, когда ведро снова станет полным
+ * (GCRA - эквивалентная форма token bucket). Пополнение ленивое: считается при проверке из
+ * {@link System#nanoTime()}, поэтому проверка - чтение карты и один CAS, без таймеров и аллокаций.
+ * Полное ведро неотличимо от нового, поэтому {@link #evictIdle()} удаляет такие записи без потери состояния.
+ */
+public final class TokenBucketTable {
+
+    private final int replenishRate;
+    private final int burstCapacity;
+    private final int requestedTokens;
+    // время пополнения одного токена и всей емкости ведра, нс
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public TokenBucketTable(int replenishRate, int burstCapacity, int requestedTokens) {
+        if (replenishRate <= 0 || burstCapacity < requestedTokens || requestedTokens <= 0) {
+            throw new IllegalArgumentException("replenishRate must be positive and burstCapacity >= requestedTokens > 0");
+        }
+        this.replenishRate = replenishRate;
+        this.burstCapacity = burstCapacity;
+        this.requestedTokens = requestedTokens;
+        this.nanosPerToken = 1_000_000_000L / replenishRate;
+        this.burstNanos = nanosPerToken * burstCapacity;
+    }
+
+    /**
+     * Забрать {@code requestedTokens} из ведра ключа.
+     *
+     * @return остаток токенов (>= 0), если запрос разрешен; иначе -(нс до появления токенов)
+     */
+    public long tryAcquire(String key) {
+        AtomicLong bucket = buckets.get(key);
+        long now = System.nanoTime();
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        long cost = nanosPerToken * requestedTokens;
+        while (true) {
+            long fullAt = bucket.get();
+            long newFullAt = Math.max(fullAt, now) + cost;
+            long debt = newFullAt - now;
+            if (debt > burstNanos) {
+                return -Math.max(1, debt - burstNanos);
+            }
+            if (bucket.compareAndSet(fullAt, newFullAt)) {
+                return (burstNanos - debt) / nanosPerToken;
+            }
+        }
+    }
+
+    /**
+     * Удалить ведра, успевшие заполниться. Запрос, гонящийся с удалением, может получить
+     * не больше одного лишнего токена.
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    boolean hasLimits(int replenishRate, int burstCapacity, int requestedTokens) {
+        return this.replenishRate == replenishRate
+                && this.burstCapacity == burstCapacity
+                && this.requestedTokens == requestedTokens;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.mephi.springfinal.gateway.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.mephi.springfinal.gateway.filter.TokenBucketTable;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость проверки лимита в {@link TokenBucketTable} при 50 000 различных ключей
+ * (ведра уже созданы), в том числе при конкуренции 4 потоков за одни и те же ведра.
+ * Запуск: {@code make bench MODULE=spring-final-gateway BENCH=RateLimiterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 50_000;
+
+    private TokenBucketTable table;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        table = new TokenBucketTable(10, 20, 1);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "user:" + i;
+            table.tryAcquire(keys[i]);
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        return table.tryAcquire(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long tryAcquireContended() {
+        return table.tryAcquire(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+}
@@ -0,0 +1,164 @@
+package ru.mephi.springfinal.gateway.controller;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.gateway.config.RateLimiterConfig;
+import ru.mephi.springfinal.gateway.filter.AdmissionControlFilter;
+import ru.mephi.springfinal.gateway.filter.BffGuardFilter;
+import ru.mephi.springfinal.gateway.filter.IdentityPropagationFilter;
+import ru.mephi.springfinal.gateway.filter.InMemoryRateLimiter;
+import ru.mephi.springfinal.gateway.filter.RevocationSync;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.loadbalancing.InstanceLatencyFilter;
+import ru.mephi.springfinal.contracts.loadbalancing.LatencyScoreboard;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@DisplayName("Booking Screen Controller Tests")
+class BookingScreenControllerTest {
+
+    private static final String JWT_SECRET = "testJwtSecretForBookingScreenControllerTests1234567890";
+    private static final String SCREEN = "/api/bff/booking-screen?hotelId=1&startDate=2030-01-10&endDate=2030-01-12";
+
+    // Ответы сервисов по пути запроса; путь без ответа - 503
+    private final Map<String, Mono<ClientResponse>> backends = new ConcurrentHashMap<>();
+
+    @Test
+    @DisplayName("Упавшая часть попадает в errors, остальные возвращаются с 200")
+    void testPartialResult() {
+        backends.put("/api/hotels/1", json("{\"id\":1,\"name\":\"Hotel\"}"));
+        backends.put("/api/rooms/recommend", json("[{\"id\":10}]"));
+        backends.put("/api/bookings", Mono.just(ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+
+        client(Duration.ofSeconds(2), 20).get().uri(SCREEN)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.hotel.name").isEqualTo("Hotel")
+                .jsonPath("$.rooms[0].id").isEqualTo(10)
+                .jsonPath("$.bookings").doesNotExist()
+                .jsonPath("$.errors.bookings").isEqualTo("HTTP 500");
+    }
+
+    @Test
+    @DisplayName("Медленная часть обрывается по своему таймауту, не задерживая ответ")
+    void testPartTimeout() {
+        backends.put("/api/hotels/1", json("{\"id\":1}"));
+        backends.put("/api/rooms/recommend", Mono.never());
+        backends.put("/api/bookings", json("[]"));
+
+        client(Duration.ofMillis(200), 20).get().uri(SCREEN)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.hotel.id").isEqualTo(1)
+                .jsonPath("$.rooms").doesNotExist()
+                .jsonPath("$.errors.rooms").isEqualTo("timeout");
+    }
+
+    @Test
+    @DisplayName("Без токена или с неверным токеном - 401, сервисы не вызываются")
+    void testUnauthorized() {
+        WebTestClient client = client(Duration.ofSeconds(2), 20);
+
+        client.get().uri(SCREEN)
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectHeader().exists(HttpHeaders.WWW_AUTHENTICATE);
+        client.get().uri(SCREEN)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-jwt")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    @DisplayName("Если не получена ни одна часть - 502 с причинами")
+    void testAllPartsFailed() {
+        backends.put("/api/hotels/1", Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build()));
+
+        client(Duration.ofSeconds(2), 20).get().uri(SCREEN)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_GATEWAY)
+                .expectBody()
+                .jsonPath("$.errors.hotel").isEqualTo("HTTP 404")
+                .jsonPath("$.errors.rooms").isEqualTo("HTTP 503")
+                .jsonPath("$.errors.bookings").isEqualTo("HTTP 503");
+    }
+
+    @Test
+    @DisplayName("Запросы сверх лимита пользователя получают 429")
+    void testRateLimited() {
+        backends.put("/api/hotels/1", json("{\"id\":1}"));
+        WebTestClient client = client(Duration.ofSeconds(2), 1);
+        String token = token();
+
+        client.get().uri(SCREEN)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk();
+        client.get().uri(SCREEN)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().exists(HttpHeaders.RETRY_AFTER);
+    }
+
+    private WebTestClient client(Duration timeout, int burstCapacity) {
+        InternalIdentityCodec codec = new InternalIdentityCodec("testInternalIdentitySecretForBookingScreenTests");
+        RevocationSync revocationSync = new RevocationSync(null, "spring-final-booking", 1000, 100, false, codec);
+        IdentityPropagationFilter identityFilter = new IdentityPropagationFilter(JWT_SECRET, codec, revocationSync);
+        BffGuardFilter guard = new BffGuardFilter(identityFilter, new InMemoryRateLimiter(null),
+                new RateLimiterConfig().userKeyResolver(), 1, burstCapacity);
+
+        WebClient.Builder webClient = WebClient.builder().exchangeFunction(request -> backends.getOrDefault(
+                request.url().getPath(), Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build())));
+        BookingScreenController controller = new BookingScreenController(webClient,
+                new InstanceLatencyFilter(new LatencyScoreboard(Duration.ofSeconds(10).toNanos(), Duration.ofSeconds(1).toNanos())),
+                new AdmissionControlFilter(200, Duration.ofMillis(500), 0.8, 0.5), codec,
+                "http://spring-final-hotel", "http://spring-final-booking", timeout, timeout, timeout);
+
+        return WebTestClient.bindToController(controller)
+                .webFilter(guard)
+                .configureClient()
+                .responseTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    private static Mono<ClientResponse> json(String body) {
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build());
+    }
+
+    private static String token() {
+        Date now = new Date();
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject("user")
+                .claim("roles", List.of("USER"))
+                .claim("userId", 1L)
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
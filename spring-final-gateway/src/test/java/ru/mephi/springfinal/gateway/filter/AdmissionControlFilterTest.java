@@ -0,0 +1,56 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayName("Admission Control Filter Tests")
+class AdmissionControlFilterTest {
+
+    private static final Route BOOKING = Route.async()
+            .id("booking-service")
+            .uri("lb://spring-final-booking")
+            .predicate(exchange -> true)
+            .build();
+
+    // Допущенные запросы "висят" в сервисе, занимая место в лимите
+    private static final GatewayFilterChain HANGING_BACKEND = exchange -> Mono.never();
+
+    private final AdmissionControlFilter filter = new AdmissionControlFilter(10, Duration.ofMillis(500), 0.8, 0.5);
+
+    @Test
+    @DisplayName("При заполнении лимита первым отбрасывается анонимный каталог, бронирования допускаются до конца")
+    void testShedsLowestPriorityFirst() {
+        for (int i = 0; i < 5; i++) {
+            assertNull(send(MockServerHttpRequest.get("/api/hotels")));
+        }
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, send(MockServerHttpRequest.get("/api/hotels")));
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(send(MockServerHttpRequest.post("/api/user/auth")));
+        }
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, send(MockServerHttpRequest.post("/api/user/auth")));
+
+        assertNull(send(MockServerHttpRequest.post("/api/bookings")));
+        assertNull(send(MockServerHttpRequest.delete("/api/bookings/1")));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, send(MockServerHttpRequest.post("/api/bookings")));
+    }
+
+    private HttpStatus send(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, BOOKING);
+        filter.filter(exchange, HANGING_BACKEND).subscribe();
+        return (HttpStatus) exchange.getResponse().getStatusCode();
+    }
+}
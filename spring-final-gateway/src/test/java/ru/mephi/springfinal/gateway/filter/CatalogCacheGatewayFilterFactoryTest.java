@@ -0,0 +1,38 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Catalog Cache Gateway Filter Factory Tests")
+class CatalogCacheGatewayFilterFactoryTest {
+
+    @Test
+    @DisplayName("Перестроение маршрута переиспользует его кэш, а не накапливает новые")
+    void testRouteRebuildReusesCache() {
+        CatalogCacheGatewayFilterFactory factory = new CatalogCacheGatewayFilterFactory();
+
+        for (int i = 0; i < 5; i++) {
+            factory.apply(config("hotel-catalog", Duration.ofSeconds(30)));
+            factory.apply(config("room-catalog", Duration.ofSeconds(30)));
+        }
+        assertEquals(2, factory.cacheCount());
+
+        // изменение параметров маршрута заменяет его кэш
+        factory.apply(config("hotel-catalog", Duration.ofSeconds(10)));
+        assertEquals(2, factory.cacheCount());
+
+        factory.invalidateAll();
+        assertEquals(2, factory.cacheCount());
+    }
+
+    private static CatalogCacheGatewayFilterFactory.Config config(String routeId, Duration ttl) {
+        CatalogCacheGatewayFilterFactory.Config config = new CatalogCacheGatewayFilterFactory.Config();
+        config.setRouteId(routeId);
+        config.setTtl(ttl);
+        return config;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Route Metrics Filter Tests")
+class RouteMetricsFilterTest {
+
+    @Test
+    @DisplayName("Задержка пишется с тегами маршрута, инстанса и статуса; байты ответа и запросы в работе учитываются")
+    void testRecordsRouteMetrics() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RouteMetricsFilter filter = new RouteMetricsFilter(meterRegistry);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/hotels"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id("hotel-catalog").uri("lb://spring-final-hotel").predicate(e -> true).build());
+
+        // имитация балансировщика и ответа сервиса
+        GatewayFilterChain backend = routed -> {
+            routed.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+                    URI.create("http://10.0.0.5:8081/api/hotels"));
+            routed.getResponse().setStatusCode(HttpStatus.OK);
+            return routed.getResponse().writeWith(Mono.just(routed.getResponse().bufferFactory()
+                    .wrap("[]".repeat(50).getBytes(StandardCharsets.UTF_8))));
+        };
+        filter.filter(exchange, backend).block();
+
+        Timer latency = meterRegistry.get("gateway.route.latency")
+                .tags("route", "hotel-catalog", "instance", "10.0.0.5:8081", "status", "200")
+                .timer();
+        assertEquals(1, latency.count());
+        assertEquals(100.0, meterRegistry.get("gateway.route.response.bytes").counter().count());
+        assertEquals(0.0, meterRegistry.get("gateway.route.in.flight").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Байты chunked-запроса без Content-Length считаются по телу")
+    void testCountsChunkedRequestBytes() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RouteMetricsFilter filter = new RouteMetricsFilter(meterRegistry);
+        DefaultDataBufferFactory buffers = DefaultDataBufferFactory.sharedInstance;
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/bookings")
+                .header(HttpHeaders.TRANSFER_ENCODING, "chunked")
+                .body(Flux.just("{\"roomId\":", "1}").map(chunk -> buffers.wrap(chunk.getBytes(StandardCharsets.UTF_8)))));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id("bookings").uri("lb://spring-final-booking").predicate(e -> true).build());
+
+        // прокси вычитывает тело запроса и отправляет его сервису
+        GatewayFilterChain backend = routed -> routed.getRequest().getBody()
+                .map(DataBuffer::readableByteCount)
+                .then(Mono.fromRunnable(() -> routed.getResponse().setStatusCode(HttpStatus.CREATED)));
+        filter.filter(exchange, backend).block();
+
+        assertEquals(-1, exchange.getRequest().getHeaders().getContentLength());
+        assertEquals(12.0, meterRegistry.get("gateway.route.request.bytes").counter().count());
+    }
+}
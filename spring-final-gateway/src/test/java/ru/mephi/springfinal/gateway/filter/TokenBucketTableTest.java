@@ -0,0 +1,43 @@
+package ru.mephi.springfinal.gateway.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Token Bucket Table Tests")
+class TokenBucketTableTest {
+
+    @Test
+    @DisplayName("Запас burstCapacity расходуется, затем отказ со временем ожидания; ведра ключей независимы")
+    void testBurstThenReject() {
+        TokenBucketTable table = new TokenBucketTable(1, 3, 1);
+
+        assertEquals(2, table.tryAcquire("user:1"));
+        assertEquals(1, table.tryAcquire("user:1"));
+        assertEquals(0, table.tryAcquire("user:1"));
+
+        long denied = table.tryAcquire("user:1");
+        assertTrue(denied < 0);
+        // при 1 токене в секунду следующий появится не позже чем через секунду
+        assertTrue(-denied <= 1_000_000_000L);
+
+        assertEquals(2, table.tryAcquire("user:2"));
+    }
+
+    @Test
+    @DisplayName("Пополненное ведро удаляется без потери состояния, использованное - остается")
+    void testEvictsOnlyFullBuckets() throws Exception {
+        TokenBucketTable table = new TokenBucketTable(1000, 1, 1);
+        table.tryAcquire("idle");
+        Thread.sleep(5);
+        TokenBucketTable slow = new TokenBucketTable(1, 10, 1);
+        slow.tryAcquire("busy");
+
+        assertEquals(1, table.evictIdle());
+        assertEquals(0, table.size());
+        assertEquals(0, slow.evictIdle());
+        assertEquals(1, slow.size());
+    }
+}
@@ -3,11 +3,14 @@ package ru.mephi.springfinal.hotel;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import ru.mephi.springfinal.contracts.jdbc.JdbcDataSourceConfiguration;
 
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableScheduling
+@Import(JdbcDataSourceConfiguration.class)
 public class HotelApplication {
     public static void main(String[] args) {
         SpringApplication.run(HotelApplication.class, args);
@@ -0,0 +1,258 @@
+package ru.mephi.springfinal.hotel.availability;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.mephi.springfinal.hotel.entity.RoomReservation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Долговечная занятость номеров: каждое изменение {@link MappedAvailabilityStore} сначала дописывается
+ * в {@link ReservationJournal}, периодически состояние сохраняется компактным снимком
+ * ({@link AvailabilitySnapshots}), после чего журнал начинается заново.
+ * <p>
+ * При старте ({@link #recover}) хранилище восстанавливается из снимка и хвоста журнала за время,
+ * пропорциональное числу изменений после снимка, а не всей истории резервирований в БД. Если снимка
+ * или журнала нет либо они повреждены, хранилище перестраивается по БД ({@link #rebuild}) и сразу
+ * сохраняется новый снимок.
+ * <p>
+ * Запись в журнал попадает в кэш страниц ОС сразу, на диск - по {@link #sync()} и при снимке: после
+ * падения процесса журнал полон, после отключения питания может потерять последние изменения, что
+ * обнаруживается сверкой {@link ReservationDigest} активных резервирований с БД.
+ * <p>
+ * Окно хранилища сдвигается вперед раз в сутки ({@link #advance}); ночи, вошедшие в окно, заполняются
+ * из частей резервирований за концом окна ({@link BeyondWindowReservations}), которые ведутся здесь же
+ * по тем же событиям.
+ */
+@Slf4j
+public class AvailabilityRecorder implements Closeable {
+
+    private static final String SNAPSHOT_FILE = "availability.snapshot";
+
+    private final MappedAvailabilityStore store;
+    private final Path directory;
+    private final ReservationJournal journal;
+    private final BeyondWindowReservations beyondWindow = new BeyondWindowReservations();
+    private final ReservationJournal.Visitor applier = this::apply;
+    private long activeReservations;
+    // суммы id активных резервирований для ReservationDigest
+    private long idSum;
+    private long idSquareSum;
+    private long entriesSinceSnapshot;
+    // после ошибки записи журнал отстает от хранилища до следующего снимка
+    private boolean journalFailed;
+
+    public AvailabilityRecorder(MappedAvailabilityStore store, Path directory) {
+        this.store = store;
+        this.directory = directory;
+        this.journal = new ReservationJournal(directory);
+    }
+
+    /**
+     * Хранилище для чтения занятости; заполнено после {@link #recover} или {@link #rebuild}.
+     */
+    public MappedAvailabilityStore store() {
+        return store;
+    }
+
+    /**
+     * Восстановить хранилище из снимка и журнала с окном от {@code originDay}.
+     *
+     * @return сводка активных резервирований по снимку и журналу; пусто, если восстановить нельзя
+     */
+    public synchronized Optional<ReservationDigest> recover(LocalDate originDay) {
+        long started = System.nanoTime();
+        store.clear(originDay);
+        beyondWindow.clear();
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        try {
+            AvailabilitySnapshots.Header header = Files.exists(snapshot)
+                    ? AvailabilitySnapshots.read(snapshot, store, beyondWindow)
+                    : new AvailabilitySnapshots.Header(0, ReservationDigest.EMPTY);
+            activeReservations = header.digest().count();
+            idSum = header.digest().idSum();
+            idSquareSum = header.digest().idSquareSum();
+            entriesSinceSnapshot = journal.open(header.sequence(), applier);
+            log.info("Availability recovered in {} ms: snapshot at record {}, {} journal records replayed, {} active reservations",
+                    (System.nanoTime() - started) / 1_000_000, header.sequence(), entriesSinceSnapshot, activeReservations);
+            return Optional.of(digest());
+        } catch (IOException | IllegalStateException e) {
+            log.warn("Cannot recover availability from {}: {}", directory, e.getMessage());
+            store.clear(originDay);
+            beyondWindow.clear();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Заполнить хранилище по активным резервированиям из БД, начать журнал заново и сохранить снимок.
+     */
+    public synchronized void rebuild(LocalDate originDay, Collection<RoomReservation> active) {
+        store.clear(originDay);
+        beyondWindow.clear();
+        activeReservations = 0;
+        idSum = 0;
+        idSquareSum = 0;
+        for (RoomReservation reservation : active) {
+            apply(ReservationJournal.Event.CONFIRM, reservation.getId(), reservation.getRoomId(),
+                    reservation.getStartDate().toEpochDay(), reservation.getEndDate().toEpochDay());
+        }
+        try {
+            Files.createDirectories(directory);
+            // номера новых записей больше всех прежних: старый снимок не совпадет с новым журналом
+            long sequence = Math.max(journal.endSequence(),
+                    AvailabilitySnapshots.sequence(directory.resolve(SNAPSHOT_FILE))) + 1;
+            journal.reset(sequence);
+            AvailabilitySnapshots.write(directory.resolve(SNAPSHOT_FILE), store, beyondWindow, sequence, digest());
+            entriesSinceSnapshot = 0;
+            journalFailed = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start availability journal in " + directory, e);
+        }
+        log.info("Availability rebuilt from {} active reservations", activeReservations);
+    }
+
+    public void confirmed(RoomReservation reservation) {
+        record(ReservationJournal.Event.CONFIRM, reservation);
+    }
+
+    public void released(RoomReservation reservation) {
+        record(ReservationJournal.Event.RELEASE, reservation);
+    }
+
+    public void expired(RoomReservation reservation) {
+        record(ReservationJournal.Event.EXPIRE, reservation);
+    }
+
+    /**
+     * Прошедшее подтвержденное резервирование перенесено в архив и больше не активно.
+     */
+    public void archived(RoomReservation reservation) {
+        record(ReservationJournal.Event.ARCHIVE, reservation);
+    }
+
+    /**
+     * Сдвинуть окно хранилища вперед до {@code originDay}. Журнал не меняется: состояние резервирований
+     * то же, а снимок и журнал восстанавливаются и в более позднее окно.
+     *
+     * @return {@code false}, если окно уже начинается с {@code originDay} или позже
+     */
+    public synchronized boolean advance(LocalDate originDay) {
+        long newEndDay = originDay.toEpochDay() + store.horizon();
+        boolean advanced = store.advance(originDay,
+                () -> beyondWindow.advance(newEndDay, store::add));
+        if (advanced) {
+            log.info("Availability window advanced to {}, {} ranges beyond it", originDay, beyondWindow.size());
+        }
+        return advanced;
+    }
+
+    /**
+     * Нужен ли снимок: после него накопилось не меньше {@code minEntries} записей или журнал отстал.
+     */
+    public synchronized boolean needsSnapshot(long minEntries) {
+        return journalFailed || entriesSinceSnapshot >= Math.max(1, minEntries);
+    }
+
+    /**
+     * Сохранить снимок и начать новый сегмент журнала. Пока снимок пишется, изменения занятости ждут:
+     * снимок должен точно соответствовать номеру записи журнала.
+     */
+    public synchronized void snapshot() {
+        long started = System.nanoTime();
+        try {
+            journal.force();
+            long sequence = journal.nextSequence();
+            AvailabilitySnapshots.write(directory.resolve(SNAPSHOT_FILE), store, beyondWindow, sequence, digest());
+            journal.rotate();
+            log.info("Availability snapshot at record {} written in {} ms ({} records since previous)",
+                    sequence, (System.nanoTime() - started) / 1_000_000, entriesSinceSnapshot);
+            entriesSinceSnapshot = 0;
+            journalFailed = false;
+        } catch (IOException e) {
+            log.error("Failed to write availability snapshot to {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Сбросить журнал на диск; {@code fsync} идет без блокировки, изменения занятости не ждут.
+     */
+    public void sync() {
+        FileChannel channel;
+        synchronized (this) {
+            channel = journal.channel();
+        }
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // сегмент сменился при снимке и уже сброшен
+        } catch (IOException e) {
+            log.warn("Failed to sync availability journal: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Сохранить снимок, если были изменения, и закрыть журнал: следующий старт не повторяет журнал.
+     */
+    @Override
+    public synchronized void close() {
+        if (journal.channel() != null && (entriesSinceSnapshot > 0 || journalFailed)) {
+            snapshot();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Failed to close availability journal {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private synchronized void record(ReservationJournal.Event event, RoomReservation reservation) {
+        long reservationId = reservation.getId();
+        long roomId = reservation.getRoomId();
+        long startDay = reservation.getStartDate().toEpochDay();
+        long endDay = reservation.getEndDate().toEpochDay();
+        apply(event, reservationId, roomId, startDay, endDay);
+        if (journalFailed || journal.channel() == null) {
+            return;
+        }
+        try {
+            journal.append(event, reservationId, roomId, startDay, endDay);
+            journal.flush();
+            entriesSinceSnapshot++;
+        } catch (IOException e) {
+            log.error("Failed to append to availability journal, will recover with next snapshot: {}", e.getMessage());
+            journalFailed = true;
+        }
+    }
+
+    private void apply(ReservationJournal.Event event, long reservationId, long roomId, long startDay, long endDay) {
+        int delta = event == ReservationJournal.Event.CONFIRM ? 1 : -1;
+        add(roomId, startDay, endDay, delta);
+        activeReservations += delta;
+        idSum += delta * reservationId;
+        idSquareSum += delta * ReservationDigest.square(reservationId);
+    }
+
+    private ReservationDigest digest() {
+        return new ReservationDigest(activeReservations, idSum, idSquareSum);
+    }
+
+    // ночи в окне - в хранилище, после его конца - в beyondWindow
+    private void add(long roomId, long startDay, long endDay, int delta) {
+        store.add(roomId, startDay, endDay, delta);
+        if (roomId >= 1 && roomId <= store.maxRooms()) {
+            beyondWindow.add(roomId, Math.max(startDay, store.endDay()), endDay, delta);
+        }
+    }
+}
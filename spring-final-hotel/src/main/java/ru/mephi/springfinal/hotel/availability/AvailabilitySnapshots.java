@@ -0,0 +1,177 @@
+package ru.mephi.springfinal.hotel.availability;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Компактный снимок {@link MappedAvailabilityStore}: только ненулевые счетчики, сжатые в серии.
+ * <p>
+ * Формат: заголовок (номер записи журнала, с которой снимок актуален, сводка активных резервирований
+ * {@link ReservationDigest}, окно хранилища), затем для каждого занятого номера - id и серии {@code (смещение первой ночи,
+ * число ночей, счетчик)}, нулевой id в конце, части резервирований за концом окна
+ * ({@link BeyondWindowReservations}) и CRC32C всего предыдущего. Резервирование покрывает
+ * несколько ночей подряд, поэтому серия обычно соответствует одному или нескольким резервированиям,
+ * а пустые номера и дни места не занимают. Снимок пишется во временный файл и атомарно заменяет прежний.
+ */
+final class AvailabilitySnapshots {
+
+    private static final int MAGIC = 0x53_4E_41_50;
+    private static final int FORMAT_VERSION = 3;
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    record Header(long sequence, ReservationDigest digest) {
+    }
+
+    private AvailabilitySnapshots() {
+    }
+
+    static void write(Path file, MappedAvailabilityStore store, BeyondWindowReservations beyondWindow,
+                      long sequence, ReservationDigest digest) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32C());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, STREAM_BUFFER_SIZE));
+            long originDay = store.originDay().toEpochDay();
+            int horizon = store.horizon();
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(sequence);
+            out.writeLong(digest.count());
+            out.writeLong(digest.idSum());
+            out.writeLong(digest.idSquareSum());
+            out.writeLong(originDay);
+            out.writeInt(horizon);
+
+            int[] runs = new int[horizon * 3];
+            for (long roomId = 1; roomId <= store.maxRooms(); roomId++) {
+                int size = 0;
+                int day = 0;
+                while (day < horizon) {
+                    int count = store.occupancy(roomId, originDay + day);
+                    int from = day;
+                    while (++day < horizon && store.occupancy(roomId, originDay + day) == count) {
+                        // серия продолжается
+                    }
+                    if (count != 0) {
+                        runs[size++] = from;
+                        runs[size++] = day - from;
+                        runs[size++] = count;
+                    }
+                }
+                if (size > 0) {
+                    out.writeInt((int) roomId);
+                    out.writeInt(size / 3);
+                    for (int i = 0; i < size; i++) {
+                        out.writeInt(runs[i]);
+                    }
+                }
+            }
+            out.writeInt(0);
+            out.writeInt(beyondWindow.size());
+            try {
+                beyondWindow.forEach((roomId, startDay, endDay, count) -> {
+                    try {
+                        out.writeLong(roomId);
+                        out.writeLong(startDay);
+                        out.writeLong(endDay);
+                        out.writeInt(count);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Загрузить снимок в пустые хранилище и {@code beyondWindow}. Окно хранилища может начинаться позже
+     * окна снимка (сервис стартовал в другой день): прошедшие ночи отбрасываются, вошедшие в окно
+     * берутся из частей резервирований за концом окна снимка.
+     *
+     * @throws IOException снимок поврежден, другого формата или с другим горизонтом либо окно хранилища
+     *                     начинается раньше окна снимка
+     */
+    static Header read(Path file, MappedAvailabilityStore store, BeyondWindowReservations beyondWindow) throws IOException {
+        // контрольная сумма проверяется до загрузки, чтобы не заполнять хранилище поврежденным снимком
+        long length = Files.size(file) - Long.BYTES;
+        CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (length < 0) {
+                throw new IOException("Snapshot is truncated: " + file);
+            }
+            checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+            if (channel.map(FileChannel.MapMode.READ_ONLY, length, Long.BYTES).getLong() != checksum.getValue()) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), STREAM_BUFFER_SIZE))) {
+            Header header = readHeader(in);
+            long originDay = in.readLong();
+            int horizon = in.readInt();
+            if (horizon != store.horizon() || originDay > store.originDay().toEpochDay()) {
+                throw new IOException("Snapshot window " + LocalDate.ofEpochDay(originDay) + " + " + horizon
+                        + " does not fit store window " + store.originDay() + " + " + store.horizon());
+            }
+            for (int roomId = in.readInt(); roomId != 0; roomId = in.readInt()) {
+                for (int runs = in.readInt(); runs > 0; runs--) {
+                    long from = originDay + in.readInt();
+                    long to = from + in.readInt();
+                    store.add(roomId, from, to, in.readInt());
+                }
+            }
+            long storeEnd = store.endDay();
+            for (int ranges = in.readInt(); ranges > 0; ranges--) {
+                long roomId = in.readLong();
+                long from = in.readLong();
+                long to = in.readLong();
+                int count = in.readInt();
+                store.add(roomId, from, to, count);
+                beyondWindow.add(roomId, Math.max(from, storeEnd), to, count);
+            }
+            return header;
+        }
+    }
+
+    /**
+     * Номер записи журнала, с которой актуален снимок; -1, если снимка нет или он не читается.
+     */
+    static long sequence(Path file) {
+        if (!Files.exists(file)) {
+            return -1;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return readHeader(in).sequence();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static Header readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format");
+        }
+        return new Header(in.readLong(), new ReservationDigest(in.readLong(), in.readLong(), in.readLong()));
+    }
+}
@@ -0,0 +1,73 @@
+package ru.mephi.springfinal.hotel.availability;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Части резервирований за концом окна {@link MappedAvailabilityStore}: ночи {@code [max(start, windowEnd), end)}
+ * с числом резервирований на каждый такой отрезок.
+ * <p>
+ * Хранилище таких ночей не знает, но при сдвиге окна они в него входят ({@link #advance}) - без
+ * запроса к БД, который разошелся бы с изменениями, зафиксированными, но еще не записанными в журнал.
+ * Резервирования больше чем на горизонт вперед редки, поэтому достаточно карты в памяти; она
+ * сохраняется в снимке вместе с хранилищем.
+ * <p>
+ * Класс не потокобезопасен: вызовы сериализует {@link AvailabilityRecorder}.
+ */
+final class BeyondWindowReservations {
+
+    @FunctionalInterface
+    interface Visitor {
+        void accept(long roomId, long startDay, long endDay, int count);
+    }
+
+    private record Range(long roomId, long startDay, long endDay) {
+    }
+
+    private Map<Range, Integer> ranges = new HashMap<>();
+
+    /**
+     * Изменить на {@code delta} число резервирований ночей {@code [startDay, endDay)}, начинающихся не
+     * раньше конца окна. Как и в хранилище, число не опускается ниже нуля.
+     */
+    void add(long roomId, long startDay, long endDay, int delta) {
+        if (startDay >= endDay) {
+            return;
+        }
+        ranges.compute(new Range(roomId, startDay, endDay), (range, count) -> {
+            int next = (count != null ? count : 0) + delta;
+            return next > 0 ? next : null;
+        });
+    }
+
+    /**
+     * Окно теперь заканчивается на {@code newEndDay}: передать {@code entered} вошедшие в окно ночи
+     * и оставить только ночи после {@code newEndDay}.
+     */
+    void advance(long newEndDay, Visitor entered) {
+        Map<Range, Integer> remaining = new HashMap<>();
+        ranges.forEach((range, count) -> {
+            if (range.startDay() < newEndDay) {
+                entered.accept(range.roomId(), range.startDay(), Math.min(range.endDay(), newEndDay), count);
+            }
+            if (range.endDay() > newEndDay) {
+                // ключ совпадает с тем, что вычислит для того же резервирования add после сдвига
+                remaining.merge(new Range(range.roomId(), Math.max(range.startDay(), newEndDay), range.endDay()),
+                        count, Integer::sum);
+            }
+        });
+        ranges = remaining;
+    }
+
+    void forEach(Visitor visitor) {
+        ranges.forEach((range, count) -> visitor.accept(range.roomId(), range.startDay(), range.endDay(), count));
+    }
+
+    int size() {
+        return ranges.size();
+    }
+
+    void clear() {
+        ranges.clear();
+    }
+}
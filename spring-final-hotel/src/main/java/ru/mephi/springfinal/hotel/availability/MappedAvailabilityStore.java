@@ -0,0 +1,257 @@
+package ru.mephi.springfinal.hotel.availability;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Занятость номеров по ночам в отображенном в память файле, вне кучи JVM.
+ * <p>
+ * Файл - заголовок и по одной записи фиксированного размера на номер (запись номера {@code id} лежит
+ * по смещению {@code HEADER + (id - 1) * horizon * 4}). Запись - кольцо из {@code horizon} счетчиков int:
+ * в ячейке {@code day mod horizon} число активных резервирований, покрывающих ночь {@code day}. Кэширование страниц делает ОС,
+ * куча не растет с числом номеров; чтение и запись - атомарные операции над буфером через
+ * {@link VarHandle}, без выделения памяти на запрос.
+ * <p>
+ * Покрываются ночи {@code [originDay, originDay + horizon)}; номера с {@code id > maxRooms} и даты вне
+ * окна хранилище не знает ({@link #covers}), для них остается запрос к БД. Окно сдвигается вперед
+ * ({@link #advance}): ячейки прошедших ночей обнуляются и достаются ночам, вошедшим в окно, поэтому
+ * горизонт не сокращается со временем работы. Файл с другим форматом или размерами пересоздается.
+ */
+@Slf4j
+public class MappedAvailabilityStore implements Closeable {
+
+    private static final int MAGIC = 0x52_4F_4F_4D;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final VarHandle SLOT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int horizon;
+    private final int maxRooms;
+    // начало окна для чтения (covers) и для записи: при сдвиге окна запись переходит на новое окно раньше,
+    // чтобы вошедшие ночи были заполнены до того, как станут видны
+    private volatile long originDay;
+    private long writeOriginDay;
+    private final int recordSize;
+
+    /**
+     * Открыть файл хранилища; если его нет или он другого формата - создать пустой с окном от {@code originDay}.
+     */
+    public MappedAvailabilityStore(Path path, int horizonDays, int maxRooms, LocalDate originDay) {
+        long size = HEADER_SIZE + (long) maxRooms * horizonDays * Integer.BYTES;
+        if (horizonDays < 1 || maxRooms < 1 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Availability store size out of range: " + maxRooms + " rooms x "
+                    + horizonDays + " days");
+        }
+        this.path = path;
+        this.horizon = horizonDays;
+        this.maxRooms = maxRooms;
+        this.recordSize = horizonDays * Integer.BYTES;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            boolean sameSize = channel.size() == size;
+            if (!sameSize) {
+                // новый файл отображается разреженным: страницы выделяются при первой записи
+                channel.truncate(0);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.nativeOrder());
+            if (!sameSize || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                    || buffer.getInt(8) != horizonDays || buffer.getInt(12) != maxRooms) {
+                reset(originDay.toEpochDay());
+            }
+            this.originDay = buffer.getLong(16);
+            this.writeOriginDay = this.originDay;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open availability store " + path, e);
+        }
+        log.info("Availability store {} mapped: {} rooms x {} nights from {}",
+                path, maxRooms, horizonDays, LocalDate.ofEpochDay(this.originDay));
+    }
+
+    /**
+     * Хранилище знает занятость номера на весь период {@code [start, end)}.
+     */
+    public boolean covers(long roomId, LocalDate start, LocalDate end) {
+        long startDay = start.toEpochDay();
+        long endDay = end.toEpochDay();
+        return roomId >= 1 && roomId <= maxRooms
+                && startDay < endDay && startDay >= originDay && endDay <= originDay + horizon;
+    }
+
+    /**
+     * Свободен ли номер на все ночи {@code [start, end)}; период должен покрываться ({@link #covers}).
+     */
+    public boolean isAvailable(long roomId, LocalDate start, LocalDate end) {
+        int base = recordOffset(roomId);
+        for (long day = start.toEpochDay(), endDay = end.toEpochDay(); day < endDay; day++) {
+            if ((int) SLOT.getAcquire(buffer, base + slot(day)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Учесть резервирование ночей {@code [start, end)}; ночи вне окна пропускаются.
+     */
+    public void reserve(long roomId, LocalDate start, LocalDate end) {
+        add(roomId, start.toEpochDay(), end.toEpochDay(), 1);
+    }
+
+    /**
+     * Снять резервирование ночей {@code [start, end)}.
+     */
+    public void release(long roomId, LocalDate start, LocalDate end) {
+        add(roomId, start.toEpochDay(), end.toEpochDay(), -1);
+    }
+
+    /**
+     * Изменить на {@code delta} счетчики ночей {@code [startDay, endDay)} (дни от эпохи); ночи вне окна
+     * и неизвестные номера пропускаются, счетчик не опускается ниже нуля. Используется при загрузке
+     * снимка и повторе журнала.
+     */
+    public void add(long roomId, long startDay, long endDay, int delta) {
+        if (roomId < 1 || roomId > maxRooms) {
+            return;
+        }
+        int base = recordOffset(roomId);
+        long from = Math.max(startDay, writeOriginDay);
+        long to = Math.min(endDay, writeOriginDay + horizon);
+        for (long day = from; day < to; day++) {
+            int index = base + slot(day);
+            int current;
+            int next;
+            do {
+                current = (int) SLOT.getAcquire(buffer, index);
+                next = Math.max(0, current + delta);
+            } while (!SLOT.compareAndSet(buffer, index, current, next));
+        }
+    }
+
+    /**
+     * Число активных резервирований номера на ночь {@code day} (день от эпохи, внутри окна).
+     */
+    public int occupancy(long roomId, long day) {
+        return (int) SLOT.getAcquire(buffer, recordOffset(roomId) + slot(day));
+    }
+
+    /**
+     * Обнулить все записи и начать окно с {@code originDay} (перестроение с нуля).
+     */
+    public void clear(LocalDate originDay) {
+        reset(originDay.toEpochDay());
+    }
+
+    /**
+     * Сдвинуть начало окна вперед до {@code newOriginDay}. Ячейки ночей, вышедших из окна, обнуляются;
+     * {@code fill} должен учесть резервирования ночей, вошедших в окно ({@link #add} уже пишет в новое
+     * окно), и только после этого они становятся видны {@link #covers}. Вызовы {@code advance} и
+     * {@link #add} должны быть сериализованы вызывающим.
+     *
+     * @return {@code false}, если окно уже начинается не раньше {@code newOriginDay}
+     */
+    public boolean advance(LocalDate newOriginDay, Runnable fill) {
+        long newOrigin = newOriginDay.toEpochDay();
+        long oldOrigin = originDay;
+        if (newOrigin <= oldOrigin) {
+            return false;
+        }
+        long expired = Math.min(newOrigin, oldOrigin + horizon);
+        for (long roomId = 1; roomId <= maxRooms; roomId++) {
+            int base = recordOffset(roomId);
+            for (long day = oldOrigin; day < expired; day++) {
+                int index = base + slot(day);
+                // нулевые страницы не трогаем, чтобы не выделять их на диске
+                if ((int) SLOT.getAcquire(buffer, index) != 0) {
+                    SLOT.setRelease(buffer, index, 0);
+                }
+            }
+        }
+        writeOriginDay = newOrigin;
+        fill.run();
+        buffer.putLong(16, newOrigin);
+        originDay = newOrigin;
+        return true;
+    }
+
+    public LocalDate originDay() {
+        return LocalDate.ofEpochDay(originDay);
+    }
+
+    /**
+     * Первый день (от эпохи) после окна записи: ночи начиная с него хранилище не учитывает.
+     */
+    public long endDay() {
+        return writeOriginDay + horizon;
+    }
+
+    public int horizon() {
+        return horizon;
+    }
+
+    public int maxRooms() {
+        return maxRooms;
+    }
+
+    /**
+     * Сбросить измененные страницы на диск.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        buffer.force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close availability store {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void reset(long newOriginDay) {
+        long size = buffer.capacity();
+        for (int offset = HEADER_SIZE; offset < size; offset += Long.BYTES) {
+            // нулевые страницы не трогаем, чтобы не выделять их на диске
+            if (buffer.getLong(offset) != 0L) {
+                buffer.putLong(offset, 0L);
+            }
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(8, horizon);
+        buffer.putInt(12, maxRooms);
+        buffer.putLong(16, newOriginDay);
+        buffer.force();
+        writeOriginDay = newOriginDay;
+        originDay = newOriginDay;
+    }
+
+    private int recordOffset(long roomId) {
+        return HEADER_SIZE + (int) (roomId - 1) * recordSize;
+    }
+
+    private int slot(long day) {
+        return (int) Math.floorMod(day, horizon) * Integer.BYTES;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.mephi.springfinal.hotel.availability;
+
+/**
+ * Сводка множества активных резервирований для сверки восстановленной занятости с БД: число
+ * резервирований, сумма их id и сумма квадратов id по модулю {@link #MODULUS}.
+ * <p>
+ * Одного числа недостаточно: после отключения питания журнал может потерять хвост с нулевым итогом
+ * (подтверждение одного резервирования и снятие другого). Такой хвост меняет суммы id, и сводка
+ * журнала не совпадет со сводкой БД ({@code RoomReservationRepository#digestByStatusIn}), которая
+ * считается одним агрегатным запросом, без загрузки резервирований.
+ */
+public record ReservationDigest(long count, long idSum, long idSquareSum) {
+
+    // квадрат остатка меньше 2^32: сумма по миллионам резервирований не переполняет long и в БД
+    public static final int MODULUS = 65521;
+
+    public static final ReservationDigest EMPTY = new ReservationDigest(0, 0, 0);
+
+    static long square(long id) {
+        long residue = Math.floorMod(id, MODULUS);
+        return residue * residue;
+    }
+}
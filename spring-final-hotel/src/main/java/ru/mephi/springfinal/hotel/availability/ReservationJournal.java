@@ -0,0 +1,288 @@
+package ru.mephi.springfinal.hotel.availability;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал изменений занятости номеров: только дозапись, записи фиксированного размера.
+ * <p>
+ * Журнал разбит на сегменты {@code journal-<номер первой записи>.log}; номер записи - номер сегмента
+ * плюс ее порядковый номер в файле. Запись ({@value #RECORD_SIZE} байт): id резервирования, id номера,
+ * первая ночь (день от эпохи), число ночей, тип события и CRC32C первых 24 байт. Запись, оборванная при падении процесса
+ * или с неверной контрольной суммой, в последнем сегменте отбрасывается вместе с хвостом; в остальных
+ * сегментах это повреждение, и журнал не восстанавливается.
+ * <p>
+ * Класс не потокобезопасен: вызовы сериализует {@link AvailabilityRecorder}.
+ */
+@Slf4j
+public class ReservationJournal implements Closeable {
+
+    public static final int RECORD_SIZE = 28;
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final int CHECKED_BYTES = 24;
+    private static final int READ_BUFFER_SIZE = RECORD_SIZE * 65536;
+
+    public enum Event {
+        CONFIRM, RELEASE, EXPIRE, ARCHIVE;
+
+        private static final Event[] VALUES = values();
+
+        byte code() {
+            return (byte) (ordinal() + 1);
+        }
+
+        static Event of(byte code) {
+            return code >= 1 && code <= VALUES.length ? VALUES[code - 1] : null;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(Event event, long reservationId, long roomId, long startDay, long endDay);
+    }
+
+    private final Path directory;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 4096);
+    private final CRC32C checksum = new CRC32C();
+    private FileChannel channel;
+    private long nextSequence;
+
+    public ReservationJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Повторить записи начиная с {@code fromSequence} и открыть последний сегмент для дозаписи.
+     *
+     * @return число повторенных записей
+     * @throws IllegalStateException сегментов нет, между ними пропуск или сегмент поврежден
+     */
+    public long open(long fromSequence, Visitor visitor) throws IOException {
+        List<Segment> segments = segments();
+        if (segments.isEmpty() || segments.get(0).start() > fromSequence) {
+            throw new IllegalStateException("Journal " + directory + " has no records from " + fromSequence);
+        }
+
+        ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        long replayed = 0;
+        long expected = segments.get(0).start();
+        Segment last = segments.get(segments.size() - 1);
+        for (Segment segment : segments) {
+            if (segment.start() != expected) {
+                throw new IllegalStateException("Journal gap before segment " + segment.path());
+            }
+            long valid;
+            try (FileChannel in = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+                valid = replaySegment(in, segment.start(), fromSequence, visitor, readBuffer);
+                if (valid * RECORD_SIZE != in.size() && segment != last) {
+                    throw new IllegalStateException("Journal segment " + segment.path() + " is corrupted at record "
+                            + (segment.start() + valid));
+                }
+            }
+            replayed += Math.max(0, segment.start() + valid - Math.max(segment.start(), fromSequence));
+            expected = segment.start() + valid;
+        }
+        if (expected < fromSequence) {
+            throw new IllegalStateException("Journal " + directory + " ends at " + expected + " before " + fromSequence);
+        }
+
+        channel = FileChannel.open(last.path(), StandardOpenOption.WRITE);
+        long validSize = (expected - last.start()) * RECORD_SIZE;
+        if (channel.size() != validSize) {
+            log.warn("Truncating torn tail of journal segment {}: {} -> {} bytes", last.path(), channel.size(), validSize);
+            channel.truncate(validSize);
+        }
+        channel.position(validSize);
+        nextSequence = expected;
+        return replayed;
+    }
+
+    /**
+     * Удалить все сегменты и начать пустой журнал с номера {@code sequence}.
+     */
+    public void reset(long sequence) throws IOException {
+        closeChannel();
+        Files.createDirectories(directory);
+        for (Segment segment : segments()) {
+            Files.delete(segment.path());
+        }
+        openSegment(sequence);
+    }
+
+    /**
+     * Начать новый сегмент со следующего номера и удалить предыдущие: их записи вошли в снимок.
+     */
+    public void rotate() throws IOException {
+        force();
+        closeChannel();
+        openSegment(nextSequence);
+        for (Segment segment : segments()) {
+            if (segment.start() < nextSequence) {
+                Files.delete(segment.path());
+            }
+        }
+    }
+
+    /**
+     * Добавить запись в буфер; на диск она попадает при {@link #flush()}.
+     */
+    public void append(Event event, long reservationId, long roomId, long startDay, long endDay) throws IOException {
+        if (buffer.remaining() < RECORD_SIZE) {
+            flush();
+        }
+        int offset = buffer.position();
+        buffer.putLong(reservationId);
+        buffer.putLong(roomId);
+        buffer.putInt((int) startDay);
+        // окно хранилища короче, ночи за пределами 65535 ему не нужны
+        buffer.putShort((short) Math.min(endDay - startDay, 0xFFFF));
+        buffer.put(event.code());
+        buffer.put((byte) 0);
+        buffer.putInt(checksum(buffer, offset));
+        nextSequence++;
+    }
+
+    /**
+     * Записать буфер в файл (в кэш страниц ОС: запись переживает падение процесса).
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Записать буфер и дождаться сброса сегмента на диск.
+     */
+    public void force() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    /**
+     * Канал текущего сегмента - для {@code fsync} без блокировки пишущих потоков.
+     */
+    FileChannel channel() {
+        return channel;
+    }
+
+    public long nextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Номер, следующий за последней записью на диске, без чтения записей; 0 - журнала нет.
+     */
+    public long endSequence() throws IOException {
+        long end = 0;
+        for (Segment segment : segments()) {
+            end = Math.max(end, segment.start() + Files.size(segment.path()) / RECORD_SIZE);
+        }
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            force();
+        }
+        closeChannel();
+    }
+
+    private long replaySegment(FileChannel in, long start, long fromSequence, Visitor visitor,
+                               ByteBuffer readBuffer) throws IOException {
+        long sequence = start;
+        readBuffer.clear();
+        while (in.read(readBuffer) > 0 || readBuffer.position() > 0) {
+            readBuffer.flip();
+            if (readBuffer.remaining() < RECORD_SIZE) {
+                // оборванная запись в конце файла
+                return sequence - start;
+            }
+            while (readBuffer.remaining() >= RECORD_SIZE) {
+                int offset = readBuffer.position();
+                Event event = Event.of(readBuffer.get(offset + 22));
+                if (event == null || readBuffer.getInt(offset + CHECKED_BYTES) != checksum(readBuffer, offset)) {
+                    return sequence - start;
+                }
+                if (sequence >= fromSequence) {
+                    long startDay = readBuffer.getInt(offset + 16);
+                    visitor.accept(event, readBuffer.getLong(offset), readBuffer.getLong(offset + 8), startDay,
+                            startDay + Short.toUnsignedInt(readBuffer.getShort(offset + 20)));
+                }
+                readBuffer.position(offset + RECORD_SIZE);
+                sequence++;
+            }
+            readBuffer.compact();
+        }
+        return sequence - start;
+    }
+
+    private int checksum(ByteBuffer source, int offset) {
+        int position = source.position();
+        int limit = source.limit();
+        source.limit(offset + CHECKED_BYTES).position(offset);
+        checksum.reset();
+        checksum.update(source);
+        source.limit(limit).position(position);
+        return (int) checksum.getValue();
+    }
+
+    private void openSegment(long start) throws IOException {
+        channel = FileChannel.open(directory.resolve(segmentName(start)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        channel.force(true);
+        nextSequence = start;
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        buffer.clear();
+    }
+
+    private List<Segment> segments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Segment> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                    segments.add(new Segment(Long.parseLong(name, PREFIX.length(), name.length() - SUFFIX.length(), 10), file));
+                }
+            });
+        }
+        segments.sort(Comparator.comparingLong(Segment::start));
+        return segments;
+    }
+
+    private static String segmentName(long start) {
+        return String.format("%s%020d%s", PREFIX, start, SUFFIX);
+    }
+
+    private record Segment(long start, Path path) {
+    }
+}
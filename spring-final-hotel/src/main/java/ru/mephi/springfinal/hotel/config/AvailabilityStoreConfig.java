@@ -0,0 +1,68 @@
+package ru.mephi.springfinal.hotel.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.mephi.springfinal.hotel.availability.AvailabilityRecorder;
+import ru.mephi.springfinal.hotel.availability.MappedAvailabilityStore;
+import ru.mephi.springfinal.hotel.availability.ReservationDigest;
+import ru.mephi.springfinal.hotel.entity.RoomReservation;
+import ru.mephi.springfinal.hotel.repository.RoomReservationRepository;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище занятости номеров вне кучи ({@code availability.store.*}) и его журнал
+ * ({@code availability.journal.*}). Занятость восстанавливается из снимка и журнала при создании бина -
+ * до того, как сервис начнет принимать запросы. Восстановленное состояние сверяется с БД по
+ * {@link ReservationDigest} активных резервирований (агрегатный запрос дешевле загрузки самих
+ * резервирований); при расхождении - потерянный после отключения питания хвост журнала, смена или
+ * очистка БД - хранилище перестраивается по БД.
+ * <p>
+ * Окно хранилища начинается со вчерашней ночи ({@link #originDay()}) и сдвигается вперед
+ * {@link ru.mephi.springfinal.hotel.scheduler.AvailabilitySnapshotScheduler}, так что горизонт
+ * {@code availability.store.horizon-days} не сокращается со временем работы сервиса.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "availability.store.enabled", havingValue = "true", matchIfMissing = true)
+public class AvailabilityStoreConfig {
+
+    private static final List<RoomReservation.ReservationStatus> ACTIVE = List.of(
+            RoomReservation.ReservationStatus.PENDING, RoomReservation.ReservationStatus.CONFIRMED);
+
+    @Bean(destroyMethod = "close")
+    public MappedAvailabilityStore availabilityStore(@Value("${availability.store.path:data/availability.dat}") String path,
+                                                     @Value("${availability.store.horizon-days:730}") int horizonDays,
+                                                     @Value("${availability.store.max-rooms:16384}") int maxRooms) {
+        return new MappedAvailabilityStore(Path.of(path), horizonDays, maxRooms, originDay());
+    }
+
+    @Bean(destroyMethod = "close")
+    public AvailabilityRecorder availabilityRecorder(MappedAvailabilityStore availabilityStore,
+                                                     @Value("${availability.journal.path:data/journal}") String path,
+                                                     RoomReservationRepository reservationRepository) {
+        AvailabilityRecorder recorder = new AvailabilityRecorder(availabilityStore, Path.of(path));
+        Optional<ReservationDigest> recovered = recorder.recover(originDay());
+        ReservationDigest active = reservationRepository.digestByStatusIn(ACTIVE);
+        if (recovered.isPresent() && recovered.get().equals(active)) {
+            return recorder;
+        }
+        if (recovered.isPresent()) {
+            log.warn("Availability journal digest {} differs from database digest {}: rebuilding",
+                    recovered.get(), active);
+        }
+        recorder.rebuild(originDay(), reservationRepository.findByStatusIn(ACTIVE));
+        return recorder;
+    }
+
+    // вчерашняя ночь еще может быть занята, если выезд сегодня
+    public static LocalDate originDay() {
+        return LocalDate.now().minusDays(1);
+    }
+}
@@ -0,0 +1,23 @@
+package ru.mephi.springfinal.hotel.config;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Конвертер Smile для внутренних вызовов из Booking Service.
+ * <p>
+ * Формат выбирается по заголовкам Accept/Content-Type ({@code application/x-jackson-smile});
+ * JSON-конвертер стоит раньше, поэтому внешние клиенты по-прежнему получают JSON.
+ * ObjectMapper строится из билдера Spring Boot, чтобы настройки {@code spring.jackson.*} совпадали с JSON.
+ */
+@Configuration
+public class CodecConfig {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
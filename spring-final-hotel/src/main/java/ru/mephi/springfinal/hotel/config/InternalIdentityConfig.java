@@ -0,0 +1,21 @@
+package ru.mephi.springfinal.hotel.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.identity.VerifiedTokenCache;
+
+@Configuration
+public class InternalIdentityConfig {
+
+    @Bean
+    public InternalIdentityCodec internalIdentityCodec(@Value("${internal-identity.secret}") String secret) {
+        return new InternalIdentityCodec(secret);
+    }
+
+    @Bean
+    public VerifiedTokenCache verifiedTokenCache(@Value("${jwt.cache.max-size:10000}") long maxSize) {
+        return new VerifiedTokenCache(maxSize);
+    }
+}
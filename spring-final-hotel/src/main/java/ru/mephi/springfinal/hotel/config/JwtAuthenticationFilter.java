@@ -1,34 +1,52 @@
 package ru.mephi.springfinal.hotel.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.identity.VerifiedTokenCache;
 
-import javax.crypto.SecretKey;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    // Парсер с ключом потокобезопасен и строится один раз, а не на каждый запрос
+    private final JwtParser parser;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final InternalIdentityCodec identityCodec;
+    private final RevocationSync revocationSync;
+
+    public JwtAuthenticationFilter(@Value("${jwt.secret}") String secret,
+                                   VerifiedTokenCache verifiedTokenCache,
+                                   InternalIdentityCodec identityCodec,
+                                   RevocationSync revocationSync) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.identityCodec = identityCodec;
+        this.revocationSync = revocationSync;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -36,6 +54,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                    FilterChain filterChain)
             throws ServletException, IOException {
 
+        // Запрос через Gateway или от Booking Service: вместо JWT сверяется HMAC заголовка идентичности
+        String identityHeader = request.getHeader(InternalIdentityCodec.HEADER);
+        if (identityHeader != null) {
+            authenticateIdentity(identityHeader);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         String header = request.getHeader("Authorization");
 
         if (header == null || !header.startsWith("Bearer ")) {
@@ -45,25 +71,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String token = header.substring(7);
-            SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            String username = claims.getSubject();
-            @SuppressWarnings("unchecked")
-            List<String> roles = claims.get("roles", List.class);
-
-            if (username != null && roles != null) {
-                List<SimpleGrantedAuthority> authorities = roles.stream()
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
+            // Подпись и claims проверяются только при первом появлении токена
+            VerifiedTokenCache.VerifiedToken verified = verifiedTokenCache.get(token, this::verify);
 
+            // Кэш проверенных токенов не знает об отзыве, поэтому журнал сверяется на каждом запросе
+            if (verified != null
+                    && !revocationSync.isRevoked(verified.tokenId(), verified.userId(), verified.issuedAt())) {
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(username, null, authorities);
+                        new UsernamePasswordAuthenticationToken(verified.username(), null, verified.authorities());
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
@@ -73,5 +88,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
 
+    private void authenticateIdentity(String identityHeader) {
+        try {
+            InternalIdentity identity = identityCodec.decode(identityHeader, Instant.now());
+            if (revocationSync.isRevoked(identity.tokenId(), identity.userId(), identity.issuedAt())) {
+                log.debug("Internal identity for revoked token {} rejected", identity.tokenId());
+                return;
+            }
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    identity.username(), null,
+                    identity.roles().stream().map(SimpleGrantedAuthority::new).toList());
+
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        } catch (IllegalArgumentException e) {
+            log.warn("Internal identity header rejected: {}", e.getMessage());
+        }
+    }
+
+    private VerifiedTokenCache.VerifiedToken verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+
+        String username = claims.getSubject();
+        @SuppressWarnings("unchecked")
+        List<String> roles = claims.get("roles", List.class);
+        if (username == null || roles == null) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        Date issuedAt = claims.getIssuedAt();
+        Date expiresAt = claims.getExpiration();
+        return new VerifiedTokenCache.VerifiedToken(username, claims.get("userId", Long.class), authorities,
+                claims.getId(), issuedAt != null ? issuedAt.toInstant().getEpochSecond() : 0,
+                expiresAt != null ? expiresAt.toInstant() : null);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.mephi.springfinal.hotel.config;
+
+import io.rsocket.ConnectionSetupPayload;
+import io.rsocket.exceptions.RejectedSetupException;
+import io.rsocket.metadata.CompositeMetadata;
+import io.rsocket.metadata.WellKnownMimeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.rsocket.server.RSocketServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Защита внутреннего RSocket-порта {@code spring.rsocket.server.port}.
+ * <p>
+ * Соединение принимается, только если кадр SETUP несет подписанную личность
+ * ({@link InternalIdentityCodec#RSOCKET_MIME_TYPE} в composite metadata) - тот же HMAC, что и у заголовка
+ * {@code X-Internal-Identity} в {@link JwtAuthenticationFilter}. Проверяется соединение, а не каждый запрос:
+ * Booking Service подключается своей сервисной личностью, компенсации идут и без пользователя.
+ */
+@Slf4j
+@Configuration
+public class RSocketSecurityConfig {
+
+    @Bean
+    public RSocketServerCustomizer internalIdentityRSocketServerCustomizer(InternalIdentityCodec identityCodec,
+                                                                           RevocationSync revocationSync) {
+        return server -> server.interceptors(registry -> registry.forSocketAcceptor(acceptor ->
+                (setup, sendingSocket) -> {
+                    try {
+                        InternalIdentity identity = identityCodec.decode(identityHeader(setup), Instant.now());
+                        if (revocationSync.isRevoked(identity.tokenId(), identity.userId(), identity.issuedAt())) {
+                            throw new IllegalArgumentException("Identity revoked");
+                        }
+                        log.debug("RSocket connection accepted for {}", identity.username());
+                    } catch (IllegalArgumentException e) {
+                        log.warn("RSocket connection rejected: {}", e.getMessage());
+                        return Mono.error(new RejectedSetupException("Internal identity required"));
+                    }
+                    return acceptor.accept(setup, sendingSocket);
+                }));
+    }
+
+    private static String identityHeader(ConnectionSetupPayload setup) {
+        if (setup.hasMetadata() && WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString()
+                .equals(setup.metadataMimeType())) {
+            for (CompositeMetadata.Entry entry : new CompositeMetadata(setup.metadata(), false)) {
+                if (InternalIdentityCodec.RSOCKET_MIME_TYPE.equals(entry.getMimeType())) {
+                    return entry.getContent().toString(StandardCharsets.UTF_8);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Missing identity metadata");
+    }
+}
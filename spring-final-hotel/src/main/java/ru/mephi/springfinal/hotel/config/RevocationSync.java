@@ -0,0 +1,103 @@
+package ru.mephi.springfinal.hotel.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.identity.RevocationBatch;
+import ru.mephi.springfinal.contracts.identity.RevocationList;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Локальная копия журнала отзыва токенов Booking Service для запросов, пришедших в Hotel Service
+ * напрямую или по подписанному заголовку идентичности.
+ * <p>
+ * Каждый инстанс Booking из Eureka опрашивается напрямую: у каждого свой журнал со своей нумерацией,
+ * курсоры ведутся по журналам (см. {@link RevocationList}). Забираются только записи после курсора
+ * (с отступом {@code revocation.sync.overlap}), проверка идет по памяти.
+ */
+@Slf4j
+@Component
+public class RevocationSync {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final RevocationList revocations;
+    private final RestClient restClient = RestClient.create();
+    private final DiscoveryClient discoveryClient;
+    private final InternalIdentityCodec identityCodec;
+    private final String sourceServiceId;
+    private final long overlap;
+    private final boolean enabled;
+
+    public RevocationSync(DiscoveryClient discoveryClient,
+                          InternalIdentityCodec identityCodec,
+                          @Value("${revocation.source-service-id:spring-final-booking}") String sourceServiceId,
+                          @Value("${revocation.expected-entries:100000}") int expectedEntries,
+                          @Value("${revocation.sync.overlap:100}") long overlap,
+                          @Value("${revocation.sync.enabled:true}") boolean enabled) {
+        this.revocations = new RevocationList(expectedEntries);
+        this.discoveryClient = discoveryClient;
+        this.identityCodec = identityCodec;
+        this.sourceServiceId = sourceServiceId;
+        this.overlap = overlap;
+        this.enabled = enabled;
+    }
+
+    public boolean isRevoked(String tokenId, Long userId, long issuedAt) {
+        return revocations.isRevoked(tokenId, userId, issuedAt);
+    }
+
+    @Scheduled(fixedDelayString = "${revocation.sync.interval:1000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        for (ServiceInstance instance : discoveryClient.getInstances(sourceServiceId)) {
+            try {
+                RevocationBatch batch;
+                do {
+                    batch = fetch(instance.getUri());
+                    revocations.applyChanges(batch);
+                } while (batch.revocations().size() == PAGE_SIZE);
+            } catch (Exception e) {
+                // Инстанс может быть еще недоступен: повторим на следующем тике
+                log.debug("Revocation sync with {} failed: {}", instance.getUri(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${revocation.purge.interval:3600000}")
+    public void purgeExpired() {
+        revocations.purgeExpired(Instant.now().getEpochSecond());
+    }
+
+    private RevocationBatch fetch(URI instance) {
+        long now = Instant.now().getEpochSecond();
+        String identity = identityCodec.encode(
+                new InternalIdentity(null, "spring-final-hotel", List.of("ROLE_SERVICE"), null, now, now + 60));
+        URI uri = UriComponentsBuilder.fromUri(instance)
+                .path("/api/internal/revocations")
+                .queryParam("cursor", revocations.cursors(overlap).toArray())
+                .build()
+                .toUri();
+        RevocationBatch batch = restClient.get()
+                .uri(uri)
+                .header(InternalIdentityCodec.HEADER, identity)
+                .retrieve()
+                .body(RevocationBatch.class);
+        if (batch == null) {
+            throw new IllegalStateException("Empty revocation response from " + instance);
+        }
+        return batch;
+    }
+}
@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,6 +21,10 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class HotelController {
 
+    // Каталог одинаков для всех пользователей: разрешаем кэшу Gateway хранить ответ,
+    // клиентам - только с перепроверкой. Кэш Gateway сбрасывается через CatalogChangeNotifier
+    private static final CacheControl CATALOG_CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
     private final HotelService hotelService;
 
     @PostMapping
@@ -33,14 +38,14 @@ public class HotelController {
     @Operation(summary = "Get all hotels")
     public ResponseEntity<List<HotelDto>> getAllHotels() {
         List<HotelDto> hotels = hotelService.getAllHotels();
-        return ResponseEntity.ok(hotels);
+        return ResponseEntity.ok().cacheControl(CATALOG_CACHE_CONTROL).body(hotels);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get hotel by ID")
     public ResponseEntity<HotelDto> getHotelById(@PathVariable Long id) {
         HotelDto hotel = hotelService.getHotelById(id);
-        return ResponseEntity.ok(hotel);
+        return ResponseEntity.ok().cacheControl(CATALOG_CACHE_CONTROL).body(hotel);
     }
 
     @PutMapping("/{id}")
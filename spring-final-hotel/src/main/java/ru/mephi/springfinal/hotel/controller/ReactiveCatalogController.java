@@ -0,0 +1,55 @@
+package ru.mephi.springfinal.hotel.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import ru.mephi.springfinal.contracts.room.RoomView;
+import ru.mephi.springfinal.hotel.dto.HotelDto;
+import ru.mephi.springfinal.hotel.dto.RoomDto;
+import ru.mephi.springfinal.hotel.service.ReactiveCatalogService;
+
+import java.time.LocalDate;
+
+/**
+ * Реактивные эндпойнты чтения каталога. С {@code Accept: application/x-ndjson} результат
+ * стримится по мере чтения из БД, с {@code application/json} - отдается массивом, как в v1.
+ * Поток Tomcat освобождается сразу, запрос выполняется на пуле R2DBC.
+ */
+@RestController
+@RequestMapping("/api/v2")
+@RequiredArgsConstructor
+@Tag(name = "Catalog (reactive)", description = "Non-blocking hotel and room reads")
+@SecurityRequirement(name = "bearerAuth")
+public class ReactiveCatalogController {
+
+    private final ReactiveCatalogService catalogService;
+
+    @GetMapping(path = "/hotels", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Stream all hotels")
+    public Flux<HotelDto> getAllHotels() {
+        return catalogService.getAllHotels();
+    }
+
+    @GetMapping(path = "/rooms", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Stream available rooms")
+    public Flux<RoomDto> getAvailableRooms(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return catalogService.getAvailableRooms(startDate, endDate);
+    }
+
+    @GetMapping(path = "/rooms/recommend", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Stream recommended rooms (sorted by times_booked)")
+    public Flux<RoomView> getRecommendedRooms(
+            @RequestParam(required = false) Long hotelId,
+            @RequestParam(required = false) String roomType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return catalogService.getRecommendedRooms(hotelId, roomType, startDate, endDate);
+    }
+}
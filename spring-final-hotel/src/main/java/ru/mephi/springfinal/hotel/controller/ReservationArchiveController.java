@@ -0,0 +1,38 @@
+package ru.mephi.springfinal.hotel.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.mephi.springfinal.hotel.dto.ArchivedReservationDto;
+import ru.mephi.springfinal.hotel.service.ReservationArchiveService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/rooms/reservations/archive")
+@RequiredArgsConstructor
+@Tag(name = "Reservation Archive", description = "Audit of archived room reservations")
+@SecurityRequirement(name = "bearerAuth")
+public class ReservationArchiveController {
+
+    private final ReservationArchiveService reservationArchiveService;
+
+    @GetMapping
+    @Operation(summary = "Get archived reservations by check-out period", description = "Admin only")
+    public ResponseEntity<List<ArchivedReservationDto>> getArchivedReservations(
+            @RequestParam(required = false) Long roomId,
+            @RequestParam(required = false) Long bookingId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(reservationArchiveService.findArchived(roomId, bookingId, from, to, limit));
+    }
+}
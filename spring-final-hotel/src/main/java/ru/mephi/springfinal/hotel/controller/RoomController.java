@@ -9,8 +9,9 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import ru.mephi.springfinal.hotel.dto.AvailabilityResponse;
-import ru.mephi.springfinal.hotel.dto.ConfirmAvailabilityRequest;
+import ru.mephi.springfinal.contracts.room.AvailabilityResponse;
+import ru.mephi.springfinal.contracts.room.ConfirmAvailabilityRequest;
+import ru.mephi.springfinal.contracts.room.RoomView;
 import ru.mephi.springfinal.hotel.dto.RoomDto;
 import ru.mephi.springfinal.hotel.service.RoomService;
 
@@ -44,12 +45,12 @@ public class RoomController {
 
     @GetMapping("/recommend")
     @Operation(summary = "Get recommended rooms (sorted by times_booked)")
-    public ResponseEntity<List<RoomDto>> getRecommendedRooms(
+    public ResponseEntity<List<RoomView>> getRecommendedRooms(
             @RequestParam(required = false) Long hotelId,
             @RequestParam(required = false) String roomType,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        List<RoomDto> rooms = roomService.getRecommendedRooms(hotelId, roomType, startDate, endDate);
+        List<RoomView> rooms = roomService.getRecommendedRooms(hotelId, roomType, startDate, endDate);
         return ResponseEntity.ok(rooms);
     }
 
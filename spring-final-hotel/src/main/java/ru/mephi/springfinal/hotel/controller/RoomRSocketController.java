@@ -0,0 +1,46 @@
+package ru.mephi.springfinal.hotel.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+import ru.mephi.springfinal.contracts.room.AvailabilityResponse;
+import ru.mephi.springfinal.contracts.room.ConfirmAvailabilityRequest;
+import ru.mephi.springfinal.contracts.room.ReleaseReservationRequest;
+import ru.mephi.springfinal.hotel.service.RoomCommandExecutor;
+import ru.mephi.springfinal.hotel.service.RoomService;
+
+/**
+ * Внутренние RSocket-маршруты для шагов саги бронирования.
+ * <p>
+ * Booking Service держит долгоживущее мультиплексированное соединение с портом
+ * {@code spring.rsocket.server.port}; HTTP-эндпойнты {@link RoomController} остаются резервным каналом.
+ * Резервирование и освобождение ставятся в очередь шарда номера ({@link RoomCommandExecutor}) без
+ * блокировки event loop. Автоподбор доступен только по HTTP: там Booking хеджирует запрос.
+ */
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class RoomRSocketController {
+
+    private final RoomService roomService;
+
+    @MessageMapping("rooms.{id}.confirm-availability")
+    public Mono<AvailabilityResponse> confirmAvailability(@DestinationVariable Long id,
+                                                          @Payload ConfirmAvailabilityRequest request) {
+        if (request.requestId() == null || request.bookingId() == null
+                || request.startDate() == null || request.endDate() == null) {
+            return Mono.just(AvailabilityResponse.failure("Request ID, booking ID and dates are required"));
+        }
+        return Mono.fromFuture(() -> roomService.confirmAvailabilityAsync(id, request));
+    }
+
+    @MessageMapping("rooms.{id}.release")
+    public Mono<Void> releaseReservation(@DestinationVariable Long id,
+                                         @Payload ReleaseReservationRequest request) {
+        return Mono.fromFuture(() -> roomService.releaseReservationAsync(id, request.requestId())).then();
+    }
+}
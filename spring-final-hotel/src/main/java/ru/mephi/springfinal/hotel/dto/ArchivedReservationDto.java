@@ -1,26 +1,23 @@
 package ru.mephi.springfinal.hotel.dto;
 
-import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ConfirmAvailabilityRequest {
-    @NotNull(message = "Request ID is required")
+public class ArchivedReservationDto {
+    private Long id;
     private String requestId;
-
-    @NotNull(message = "Booking ID is required")
     private Long bookingId;
-
-    @NotNull(message = "Start date is required")
+    private Long roomId;
     private LocalDate startDate;
-
-    @NotNull(message = "End date is required")
     private LocalDate endDate;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime archivedAt;
 }
-
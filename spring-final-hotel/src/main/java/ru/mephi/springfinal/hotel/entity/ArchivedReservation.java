@@ -0,0 +1,65 @@
+package ru.mephi.springfinal.hotel.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Завершенное резервирование, перенесенное из {@code room_reservations}.
+ * <p>
+ * Таблица секционирована по месяцу последней ночи ({@code archive_month = yyyyMM}): ключ секции
+ * открывает все индексы, и запросы аудита всегда ограничены диапазоном месяцев. В PostgreSQL таблица
+ * объявляется {@code PARTITION BY RANGE (archive_month)} с секцией на месяц, и старые месяцы
+ * удаляются целиком; H2 декларативных секций не поддерживает, схему создает Hibernate.
+ */
+@Entity
+@Table(name = "room_reservations_archive", indexes = {
+    @Index(name = "idx_archive_month_room", columnList = "archive_month, room_id"),
+    @Index(name = "idx_archive_month_booking", columnList = "archive_month, booking_id"),
+    @Index(name = "idx_archive_request_id", columnList = "request_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedReservation {
+
+    // id из room_reservations
+    @Id
+    private Long id;
+
+    @Column(name = "archive_month", nullable = false)
+    private Integer archiveMonth;
+
+    @Column(name = "request_id", nullable = false)
+    private String requestId;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RoomReservation.ReservationStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public static int archiveMonth(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+}
@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
     @Index(name = "idx_room_id", columnList = "room_id"),
     @Index(name = "idx_booking_id", columnList = "booking_id"),
     @Index(name = "idx_request_id", columnList = "request_id", unique = true),
-    @Index(name = "idx_expires_at", columnList = "expires_at")
+    @Index(name = "idx_expires_at", columnList = "expires_at"),
+    @Index(name = "idx_status_end_date", columnList = "status, end_date")
 })
 @Data
 @NoArgsConstructor
@@ -0,0 +1,15 @@
+package ru.mephi.springfinal.hotel.mapper;
+
+import org.mapstruct.Mapper;
+import ru.mephi.springfinal.hotel.dto.ArchivedReservationDto;
+import ru.mephi.springfinal.hotel.entity.ArchivedReservation;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface ArchivedReservationMapper {
+
+    ArchivedReservationDto toDto(ArchivedReservation reservation);
+
+    List<ArchivedReservationDto> toDtoList(List<ArchivedReservation> reservations);
+}
@@ -4,6 +4,7 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.Named;
+import ru.mephi.springfinal.contracts.room.RoomView;
 import ru.mephi.springfinal.hotel.dto.RoomDto;
 import ru.mephi.springfinal.hotel.entity.Room;
 
@@ -18,6 +19,12 @@ public interface RoomMapper {
 
     List<RoomDto> toDtoList(List<Room> rooms);
 
+    @Mapping(source = "hotel.id", target = "hotelId")
+    @Mapping(source = "type", target = "type", qualifiedByName = "roomTypeToString")
+    RoomView toView(Room room);
+
+    List<RoomView> toViewList(List<Room> rooms);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "hotel", ignore = true)
     @Mapping(target = "version", ignore = true)
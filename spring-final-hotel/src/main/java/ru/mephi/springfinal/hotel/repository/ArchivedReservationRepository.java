@@ -0,0 +1,40 @@
+package ru.mephi.springfinal.hotel.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.mephi.springfinal.hotel.entity.ArchivedReservation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedReservationRepository extends JpaRepository<ArchivedReservation, Long> {
+
+    @Modifying
+    @Query("INSERT INTO ArchivedReservation (id, archiveMonth, requestId, bookingId, roomId, startDate, endDate, " +
+           "status, createdAt, archivedAt) " +
+           "SELECT rr.id, year(rr.endDate) * 100 + month(rr.endDate), rr.requestId, rr.bookingId, rr.roomId, " +
+           "rr.startDate, rr.endDate, rr.status, rr.createdAt, :archivedAt " +
+           "FROM RoomReservation rr WHERE rr.id IN :ids")
+    int copyFromLive(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Query("SELECT ar FROM ArchivedReservation ar " +
+           "WHERE ar.archiveMonth BETWEEN :fromMonth AND :toMonth " +
+           "AND ar.endDate BETWEEN :from AND :to " +
+           "AND (:roomId IS NULL OR ar.roomId = :roomId) " +
+           "AND (:bookingId IS NULL OR ar.bookingId = :bookingId) " +
+           "ORDER BY ar.endDate, ar.id")
+    List<ArchivedReservation> findForAudit(@Param("fromMonth") int fromMonth,
+                                           @Param("toMonth") int toMonth,
+                                           @Param("from") LocalDate from,
+                                           @Param("to") LocalDate to,
+                                           @Param("roomId") Long roomId,
+                                           @Param("bookingId") Long bookingId,
+                                           Pageable pageable);
+}
@@ -0,0 +1,36 @@
+package ru.mephi.springfinal.hotel.repository;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import ru.mephi.springfinal.hotel.entity.Hotel;
+
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC-чтение таблицы {@code hotels} для реактивного каталога (без номеров, как {@code HotelMapper.toDto}).
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveHotelRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<Hotel> findAll() {
+        return databaseClient.sql("SELECT * FROM hotels ORDER BY id")
+                .map(ReactiveHotelRepository::toHotel)
+                .all();
+    }
+
+    private static Hotel toHotel(Readable row) {
+        Hotel hotel = new Hotel();
+        hotel.setId(row.get("id", Long.class));
+        hotel.setName(row.get("name", String.class));
+        hotel.setAddress(row.get("address", String.class));
+        hotel.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        hotel.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return hotel;
+    }
+}
@@ -0,0 +1,78 @@
+package ru.mephi.springfinal.hotel.repository;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import ru.mephi.springfinal.hotel.entity.Hotel;
+import ru.mephi.springfinal.hotel.entity.Room;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * R2DBC-версии запросов доступности из {@link RoomRepository} для реактивного чтения.
+ * <p>
+ * SQL повторяет JPQL один в один (условие пересечения резерваций и сортировка по
+ * {@code times_booked}), поэтому обе ветки возвращают одинаковые номера. Строки отображаются
+ * в {@link Room} с заглушкой {@link Hotel}, чтобы переиспользовать {@code RoomMapper}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveRoomRepository {
+
+    private static final String NOT_RESERVED = """
+            r.available = TRUE AND r.id NOT IN (
+                SELECT rr.room_id FROM room_reservations rr
+                WHERE rr.status IN ('PENDING', 'CONFIRMED')
+                  AND rr.start_date < :endDate AND rr.end_date > :startDate)
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<Room> findAvailableRooms(LocalDate startDate, LocalDate endDate) {
+        return databaseClient.sql("SELECT r.* FROM rooms r WHERE " + NOT_RESERVED)
+                .bind("startDate", startDate)
+                .bind("endDate", endDate)
+                .map(ReactiveRoomRepository::toRoom)
+                .all();
+    }
+
+    public Flux<Room> findAvailableRoomsByTypeRecommended(Room.RoomType type, LocalDate startDate, LocalDate endDate) {
+        // Hibernate создает для типа ENUM-колонку, строковый параметр приводится явно
+        return databaseClient.sql("SELECT r.* FROM rooms r WHERE r.type = CAST(:type AS VARCHAR(16)) AND "
+                        + NOT_RESERVED + " ORDER BY r.times_booked ASC, r.id ASC")
+                .bind("type", type.name())
+                .bind("startDate", startDate)
+                .bind("endDate", endDate)
+                .map(ReactiveRoomRepository::toRoom)
+                .all();
+    }
+
+    public Flux<Room> findAvailableRoomsByHotelRecommended(Long hotelId, LocalDate startDate, LocalDate endDate) {
+        return databaseClient.sql("SELECT r.* FROM rooms r WHERE r.hotel_id = :hotelId AND "
+                        + NOT_RESERVED + " ORDER BY r.times_booked ASC, r.id ASC")
+                .bind("hotelId", hotelId)
+                .bind("startDate", startDate)
+                .bind("endDate", endDate)
+                .map(ReactiveRoomRepository::toRoom)
+                .all();
+    }
+
+    private static Room toRoom(Readable row) {
+        Hotel hotel = new Hotel();
+        hotel.setId(row.get("hotel_id", Long.class));
+
+        Room room = new Room();
+        room.setId(row.get("id", Long.class));
+        room.setHotel(hotel);
+        room.setRoomNumber(row.get("room_number", String.class));
+        room.setType(Room.RoomType.valueOf(row.get("type", String.class)));
+        room.setPricePerNight(row.get("price_per_night", BigDecimal.class));
+        room.setTimesBooked(row.get("times_booked", Integer.class));
+        room.setAvailable(row.get("available", Boolean.class));
+        room.setVersion(row.get("version", Integer.class));
+        return room;
+    }
+}
@@ -14,6 +14,13 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
 
     List<Room> findByHotelId(Long hotelId);
 
+    // Кандидаты для проверки занятости по MappedAvailabilityStore, без подзапроса к резервированиям
+    List<Room> findByAvailableTrueOrderByTimesBookedAscIdAsc();
+
+    List<Room> findByAvailableTrueAndTypeOrderByTimesBookedAscIdAsc(Room.RoomType type);
+
+    List<Room> findByAvailableTrueAndHotelIdOrderByTimesBookedAscIdAsc(Long hotelId);
+
     @Query("SELECT r FROM Room r WHERE r.available = true AND r.id NOT IN " +
            "(SELECT rr.roomId FROM RoomReservation rr WHERE rr.status IN ('PENDING', 'CONFIRMED') " +
            "AND rr.startDate < :endDate AND rr.endDate > :startDate)")
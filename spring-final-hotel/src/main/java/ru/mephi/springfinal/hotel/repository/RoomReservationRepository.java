@@ -1,13 +1,17 @@
 package ru.mephi.springfinal.hotel.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.mephi.springfinal.hotel.availability.ReservationDigest;
 import ru.mephi.springfinal.hotel.entity.RoomReservation;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +22,14 @@ public interface RoomReservationRepository extends JpaRepository<RoomReservation
 
     List<RoomReservation> findByBookingId(Long bookingId);
 
+    List<RoomReservation> findByStatusIn(Collection<RoomReservation.ReservationStatus> statuses);
+
+    @Query("SELECT new ru.mephi.springfinal.hotel.availability.ReservationDigest(COUNT(rr), " +
+           "COALESCE(SUM(rr.id), 0), " +
+           "COALESCE(SUM(MOD(rr.id, " + ReservationDigest.MODULUS + ") * MOD(rr.id, " + ReservationDigest.MODULUS + ")), 0)) " +
+           "FROM RoomReservation rr WHERE rr.status IN :statuses")
+    ReservationDigest digestByStatusIn(@Param("statuses") Collection<RoomReservation.ReservationStatus> statuses);
+
     @Query("SELECT rr FROM RoomReservation rr WHERE rr.status = 'PENDING' " +
            "AND rr.expiresAt < :now")
     List<RoomReservation> findExpiredReservations(@Param("now") LocalDateTime now);
@@ -26,5 +38,20 @@ public interface RoomReservationRepository extends JpaRepository<RoomReservation
     @Query("UPDATE RoomReservation rr SET rr.status = 'EXPIRED' " +
            "WHERE rr.status = 'PENDING' AND rr.expiresAt < :now")
     int expireOldReservations(@Param("now") LocalDateTime now);
-}
 
+    /**
+     * Кандидаты в архив: освобожденные и истекшие старше {@code terminalBefore}, подтвержденные
+     * с выездом раньше {@code endedBefore}.
+     */
+    @Query("SELECT rr FROM RoomReservation rr " +
+           "WHERE (rr.status IN ('RELEASED', 'EXPIRED') AND rr.createdAt < :terminalBefore) " +
+           "OR (rr.status = 'CONFIRMED' AND rr.endDate < :endedBefore) " +
+           "ORDER BY rr.id")
+    List<RoomReservation> findArchivable(@Param("terminalBefore") LocalDateTime terminalBefore,
+                                         @Param("endedBefore") LocalDate endedBefore,
+                                         Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM RoomReservation rr WHERE rr.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
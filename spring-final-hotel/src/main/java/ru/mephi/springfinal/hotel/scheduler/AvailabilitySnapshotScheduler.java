@@ -0,0 +1,41 @@
+package ru.mephi.springfinal.hotel.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.mephi.springfinal.hotel.availability.AvailabilityRecorder;
+import ru.mephi.springfinal.hotel.config.AvailabilityStoreConfig;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "availability.store.enabled", havingValue = "true", matchIfMissing = true)
+public class AvailabilitySnapshotScheduler {
+
+    private final AvailabilityRecorder availabilityRecorder;
+
+    @Value("${availability.snapshot.min-entries:100000}")
+    private long minEntries;
+
+    @Scheduled(fixedDelayString = "${availability.journal.sync-interval:1000}") // default: every second
+    public void syncJournal() {
+        availabilityRecorder.sync();
+    }
+
+    @Scheduled(fixedDelayString = "${availability.snapshot.interval:300000}") // default: every 5 minutes
+    public void takeSnapshot() {
+        if (availabilityRecorder.needsSnapshot(minEntries)) {
+            log.debug("Taking availability snapshot");
+            availabilityRecorder.snapshot();
+        }
+    }
+
+    // Окно занятости начинается со вчерашней ночи: после полуночи прошедшая ночь уступает место новой
+    @Scheduled(fixedDelayString = "${availability.store.advance-interval:3600000}") // default: every hour
+    public void advanceWindow() {
+        availabilityRecorder.advance(AvailabilityStoreConfig.originDay());
+    }
+}
@@ -0,0 +1,45 @@
+package ru.mephi.springfinal.hotel.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.mephi.springfinal.hotel.service.ReservationArchiveService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReservationArchiveScheduler {
+
+    private final ReservationArchiveService reservationArchiveService;
+
+    @Value("${reservation.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${reservation.archive.terminal-age:1d}")
+    private Duration terminalAge;
+
+    @Value("${reservation.archive.ended-age:30d}")
+    private Duration endedAge;
+
+    @Scheduled(fixedDelayString = "${reservation.archive.interval:600000}") // default: every 10 minutes
+    public void archiveReservations() {
+        LocalDateTime terminalBefore = LocalDateTime.now().minus(terminalAge);
+        LocalDate endedBefore = LocalDate.now().minusDays(endedAge.toDays());
+        int total = 0;
+        int moved;
+        // пакетами, каждый в своей транзакции: блокировки рабочей таблицы держатся недолго
+        do {
+            moved = reservationArchiveService.archiveBatch(terminalBefore, endedBefore, batchSize);
+            total += moved;
+        } while (moved == batchSize);
+        if (total > 0) {
+            log.info("Archived {} reservations", total);
+        }
+    }
+}
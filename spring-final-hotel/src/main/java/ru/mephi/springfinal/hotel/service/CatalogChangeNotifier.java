@@ -0,0 +1,83 @@
+package ru.mephi.springfinal.hotel.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Уведомляет все инстансы Gateway об изменении каталога, чтобы они сбросили кэш ответов
+ * {@code GET /api/hotels/**}.
+ * <p>
+ * Уведомление отправляется после коммита и не блокирует запрос; недоставленное уведомление
+ * не повторяется - устаревший ответ ограничен сроком жизни кэша на Gateway.
+ * Счетчик {@code timesBooked} меняется при каждом бронировании и намеренно не сбрасывает кэш.
+ */
+@Slf4j
+@Component
+public class CatalogChangeNotifier {
+
+    private final DiscoveryClient discoveryClient;
+    private final InternalIdentityCodec identityCodec;
+    private final RestClient restClient = RestClient.create();
+    private final String gatewayServiceId;
+
+    public CatalogChangeNotifier(DiscoveryClient discoveryClient,
+                                 InternalIdentityCodec identityCodec,
+                                 @Value("${catalog-cache.gateway-service-id:api-gateway}") String gatewayServiceId) {
+        this.discoveryClient = discoveryClient;
+        this.identityCodec = identityCodec;
+        this.gatewayServiceId = gatewayServiceId;
+    }
+
+    public void catalogChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish();
+                }
+            });
+        } else {
+            publish();
+        }
+    }
+
+    private void publish() {
+        Mono.fromRunnable(this::notifyGateways)
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+    }
+
+    private void notifyGateways() {
+        List<ServiceInstance> gateways = discoveryClient.getInstances(gatewayServiceId);
+        if (gateways.isEmpty()) {
+            return;
+        }
+        long now = Instant.now().getEpochSecond();
+        String identity = identityCodec.encode(
+                new InternalIdentity(null, "spring-final-hotel", List.of("ROLE_SERVICE"), null, now, now + 60));
+        for (ServiceInstance gateway : gateways) {
+            try {
+                restClient.post()
+                        .uri(gateway.getUri().resolve("/internal/cache/invalidate"))
+                        .header(InternalIdentityCodec.HEADER, identity)
+                        .retrieve()
+                        .toBodilessEntity();
+            } catch (Exception e) {
+                log.warn("Failed to invalidate catalog cache on {}: {}", gateway.getUri(), e.getMessage());
+            }
+        }
+    }
+}
@@ -18,12 +18,14 @@ public class HotelService {
 
     private final HotelRepository hotelRepository;
     private final HotelMapper hotelMapper;
+    private final CatalogChangeNotifier catalogChangeNotifier;
 
     @Transactional
     public HotelDto createHotel(HotelDto dto) {
         log.info("Creating hotel: {}", dto.getName());
         Hotel hotel = hotelMapper.toEntity(dto);
         Hotel saved = hotelRepository.save(hotel);
+        catalogChangeNotifier.catalogChanged();
         return hotelMapper.toDto(saved);
     }
 
@@ -49,6 +51,7 @@ public class HotelService {
                 .orElseThrow(() -> new RuntimeException("Hotel not found with id: " + id));
         hotelMapper.updateEntity(dto, hotel);
         Hotel updated = hotelRepository.save(hotel);
+        catalogChangeNotifier.catalogChanged();
         return hotelMapper.toDto(updated);
     }
 
@@ -56,6 +59,7 @@ public class HotelService {
     public void deleteHotel(Long id) {
         log.info("Deleting hotel with id: {}", id);
         hotelRepository.deleteById(id);
+        catalogChangeNotifier.catalogChanged();
     }
 }
 
@@ -0,0 +1,59 @@
+package ru.mephi.springfinal.hotel.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import ru.mephi.springfinal.contracts.room.RoomView;
+import ru.mephi.springfinal.hotel.dto.HotelDto;
+import ru.mephi.springfinal.hotel.dto.RoomDto;
+import ru.mephi.springfinal.hotel.entity.Room;
+import ru.mephi.springfinal.hotel.mapper.HotelMapper;
+import ru.mephi.springfinal.hotel.mapper.RoomMapper;
+import ru.mephi.springfinal.hotel.repository.ReactiveHotelRepository;
+import ru.mephi.springfinal.hotel.repository.ReactiveRoomRepository;
+
+import java.time.LocalDate;
+
+/**
+ * Реактивное чтение каталога: те же выборки, что {@link HotelService#getAllHotels},
+ * {@link RoomService#getAvailableRooms} и {@link RoomService#getRecommendedRooms}, но потоком
+ * из R2DBC без занятого потока на запрос. Запись остается на JPA.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReactiveCatalogService {
+
+    private final ReactiveHotelRepository hotelRepository;
+    private final ReactiveRoomRepository roomRepository;
+    private final HotelMapper hotelMapper;
+    private final RoomMapper roomMapper;
+
+    public Flux<HotelDto> getAllHotels() {
+        log.debug("Streaming all hotels");
+        return hotelRepository.findAll().map(hotelMapper::toDto);
+    }
+
+    public Flux<RoomDto> getAvailableRooms(LocalDate startDate, LocalDate endDate) {
+        log.debug("Streaming available rooms for period: {} - {}", startDate, endDate);
+        return roomRepository.findAvailableRooms(startDate, endDate).map(roomMapper::toDto);
+    }
+
+    public Flux<RoomView> getRecommendedRooms(Long hotelId, String roomType,
+                                              LocalDate startDate, LocalDate endDate) {
+        log.debug("Streaming recommended rooms for hotel: {}, type: {}, period: {} - {}",
+                  hotelId, roomType, startDate, endDate);
+
+        Flux<Room> rooms;
+        if (roomType != null) {
+            Room.RoomType type = Room.RoomType.valueOf(roomType.toUpperCase());
+            rooms = roomRepository.findAvailableRoomsByTypeRecommended(type, startDate, endDate);
+        } else if (hotelId != null) {
+            rooms = roomRepository.findAvailableRoomsByHotelRecommended(hotelId, startDate, endDate);
+        } else {
+            rooms = roomRepository.findAvailableRooms(startDate, endDate);
+        }
+        return rooms.map(roomMapper::toView);
+    }
+}
@@ -0,0 +1,87 @@
+package ru.mephi.springfinal.hotel.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.mephi.springfinal.hotel.availability.AvailabilityRecorder;
+import ru.mephi.springfinal.hotel.dto.ArchivedReservationDto;
+import ru.mephi.springfinal.hotel.entity.ArchivedReservation;
+import ru.mephi.springfinal.hotel.entity.RoomReservation;
+import ru.mephi.springfinal.hotel.mapper.ArchivedReservationMapper;
+import ru.mephi.springfinal.hotel.repository.ArchivedReservationRepository;
+import ru.mephi.springfinal.hotel.repository.RoomReservationRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Перенос завершенных резервирований из {@code room_reservations} в архив по месяцам и чтение архива
+ * для аудита. В рабочей таблице остаются активные резервирования и недавно завершенные: по ним
+ * повторный запрос Booking Service с тем же {@code requestId} еще распознается как обработанный.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationArchiveService {
+
+    private static final int MAX_AUDIT_LIMIT = 1000;
+
+    private final RoomReservationRepository reservationRepository;
+    private final ArchivedReservationRepository archiveRepository;
+    private final ArchivedReservationMapper archivedReservationMapper;
+    // null при availability.store.enabled=false
+    private final ObjectProvider<AvailabilityRecorder> availabilityRecorder;
+
+    /**
+     * Перенести в архив до {@code batchSize} резервирований одной транзакцией: копия и удаление
+     * фиксируются вместе, строка не теряется и не дублируется.
+     *
+     * @return число перенесенных резервирований
+     */
+    @Transactional
+    public int archiveBatch(LocalDateTime terminalBefore, LocalDate endedBefore, int batchSize) {
+        List<RoomReservation> batch = reservationRepository.findArchivable(terminalBefore, endedBefore,
+                PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = batch.stream().map(RoomReservation::getId).toList();
+        archiveRepository.copyFromLive(ids, LocalDateTime.now());
+        reservationRepository.deleteByIdIn(ids);
+
+        // подтвержденные резервирования были активными: снять их с учета занятости и в журнале
+        List<RoomReservation> confirmed = batch.stream()
+                .filter(reservation -> reservation.getStatus() == RoomReservation.ReservationStatus.CONFIRMED)
+                .toList();
+        AvailabilityRecorder recorder = availabilityRecorder.getIfAvailable();
+        if (recorder != null && !confirmed.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    confirmed.forEach(recorder::archived);
+                }
+            });
+        }
+        return batch.size();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ArchivedReservationDto> findArchived(Long roomId, Long bookingId, LocalDate from, LocalDate to, int limit) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Archive period start must not be after its end");
+        }
+        if (limit < 1 || limit > MAX_AUDIT_LIMIT) {
+            throw new IllegalArgumentException("Archive limit must be between 1 and " + MAX_AUDIT_LIMIT);
+        }
+        log.info("Reading reservation archive for room: {}, booking: {}, period: {} - {}", roomId, bookingId, from, to);
+        return archivedReservationMapper.toDtoList(archiveRepository.findForAudit(
+                ArchivedReservation.archiveMonth(from), ArchivedReservation.archiveMonth(to),
+                from, to, roomId, bookingId, PageRequest.of(0, limit)));
+    }
+}
@@ -0,0 +1,164 @@
+package ru.mephi.springfinal.hotel.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Однописательское выполнение команд резервирования по номерам.
+ * <p>
+ * Каждый номер закреплен за одним из {@code room-commands.shards} потоков-шардов, у шарда своя очередь:
+ * команды одного номера выполняются строго по очереди без блокировок и конфликтов {@code @Version},
+ * команды разных номеров - параллельно в разных шардах. Вместе с привязкой номера к инстансу на Gateway
+ * и в Booking Service все резервирования номера проходят через один поток.
+ * <p>
+ * Групповая фиксация: шард забирает из очереди до {@code room-commands.max-batch} накопившихся команд
+ * и выполняет их в одной транзакции - одна фиксация вместо нескольких, повторные изменения одного номера
+ * сливаются в один UPDATE. Результаты отдаются только после фиксации. Если групповая транзакция не
+ * зафиксировалась, команды пакета повторяются каждая в своей транзакции, и ошибка одной не влияет на
+ * остальные.
+ */
+@Slf4j
+@Component
+public class RoomCommandExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatch;
+    private final Shard[] shards;
+    private volatile boolean running = true;
+
+    public RoomCommandExecutor(PlatformTransactionManager transactionManager,
+                               @Value("${room-commands.shards:4}") int shardCount,
+                               @Value("${room-commands.queue-capacity:1024}") int queueCapacity,
+                               @Value("${room-commands.max-batch:32}") int maxBatch) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatch = maxBatch;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+        }
+        log.info("Room command executor started: {} shards, batch up to {}", shardCount, maxBatch);
+    }
+
+    /**
+     * Поставить команду в очередь шарда номера. Команда выполняется в транзакции шарда.
+     */
+    public <T> CompletableFuture<T> submit(Long roomId, Supplier<T> command) {
+        Command<T> queued = new Command<>(command, new CompletableFuture<>());
+        if (!running) {
+            queued.future.completeExceptionally(new RejectedExecutionException("Room command executor is shut down"));
+        } else if (!shards[Math.floorMod(Long.hashCode(roomId), shards.length)].queue.offer(queued)) {
+            queued.future.completeExceptionally(new RejectedExecutionException("Room command queue is full"));
+        }
+        return queued.future;
+    }
+
+    /**
+     * Выполнить команду и дождаться результата; исключение команды пробрасывается как есть.
+     */
+    public <T> T execute(Long roomId, Supplier<T> command) {
+        try {
+            return submit(roomId, command).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Shard shard : shards) {
+            shard.thread.interrupt();
+        }
+    }
+
+    private void executeBatch(List<Command<?>> batch) {
+        if (batch.size() == 1) {
+            executeAlone(batch.get(0));
+            return;
+        }
+        List<Object> results;
+        try {
+            results = transactionTemplate.execute(status -> {
+                List<Object> values = new ArrayList<>(batch.size());
+                for (Command<?> command : batch) {
+                    values.add(command.work.get());
+                }
+                return values;
+            });
+        } catch (RuntimeException e) {
+            log.debug("Group commit of {} room commands failed, retrying one by one: {}", batch.size(), e.toString());
+            batch.forEach(this::executeAlone);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(results.get(i));
+        }
+    }
+
+    private void executeAlone(Command<?> command) {
+        try {
+            command.complete(transactionTemplate.execute(status -> command.work.get()));
+        } catch (RuntimeException e) {
+            command.future.completeExceptionally(e);
+        }
+    }
+
+    private final class Shard implements Runnable {
+
+        private final BlockingQueue<Command<?>> queue;
+        private final Thread thread;
+
+        Shard(int index, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, "room-commands-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            List<Command<?>> batch = new ArrayList<>(maxBatch);
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(batch, maxBatch - 1);
+                try {
+                    executeBatch(batch);
+                } catch (RuntimeException e) {
+                    log.error("Room command batch failed", e);
+                    batch.forEach(command -> command.future.completeExceptionally(e));
+                }
+                batch.clear();
+            }
+            queue.forEach(command -> command.future.completeExceptionally(
+                    new RejectedExecutionException("Room command executor is shut down")));
+        }
+    }
+
+    private record Command<T>(Supplier<T> work, CompletableFuture<T> future) {
+
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            future.complete((T) result);
+        }
+    }
+}
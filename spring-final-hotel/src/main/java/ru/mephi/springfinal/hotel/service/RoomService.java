@@ -2,10 +2,16 @@ package ru.mephi.springfinal.hotel.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.mephi.springfinal.hotel.dto.AvailabilityResponse;
-import ru.mephi.springfinal.hotel.dto.ConfirmAvailabilityRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.mephi.springfinal.contracts.room.AvailabilityResponse;
+import ru.mephi.springfinal.contracts.room.ConfirmAvailabilityRequest;
+import ru.mephi.springfinal.contracts.room.RoomView;
+import ru.mephi.springfinal.hotel.availability.AvailabilityRecorder;
+import ru.mephi.springfinal.hotel.availability.MappedAvailabilityStore;
 import ru.mephi.springfinal.hotel.dto.RoomDto;
 import ru.mephi.springfinal.hotel.entity.Hotel;
 import ru.mephi.springfinal.hotel.entity.Room;
@@ -17,8 +23,12 @@ import ru.mephi.springfinal.hotel.repository.RoomReservationRepository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
@@ -29,6 +39,10 @@ public class RoomService {
     private final HotelRepository hotelRepository;
     private final RoomReservationRepository reservationRepository;
     private final RoomMapper roomMapper;
+    private final CatalogChangeNotifier catalogChangeNotifier;
+    private final RoomCommandExecutor roomCommandExecutor;
+    // null при availability.store.enabled=false
+    private final ObjectProvider<AvailabilityRecorder> availabilityRecorder;
 
     private static final long RESERVATION_TIMEOUT_MINUTES = 5;
 
@@ -45,44 +59,111 @@ public class RoomService {
         room.setAvailable(true);
 
         Room saved = roomRepository.save(room);
+        catalogChangeNotifier.catalogChanged();
         return roomMapper.toDto(saved);
     }
 
     @Transactional(readOnly = true)
     public List<RoomDto> getAvailableRooms(LocalDate startDate, LocalDate endDate) {
         log.info("Fetching available rooms for period: {} - {}", startDate, endDate);
-        List<Room> rooms = roomRepository.findAvailableRooms(startDate, endDate);
+        List<Room> rooms = fromStore(roomRepository::findByAvailableTrueOrderByTimesBookedAscIdAsc, startDate, endDate)
+                .orElseGet(() -> roomRepository.findAvailableRooms(startDate, endDate));
         return roomMapper.toDtoList(rooms);
     }
 
     @Transactional(readOnly = true)
-    public List<RoomDto> getRecommendedRooms(Long hotelId, String roomType,
-                                             LocalDate startDate, LocalDate endDate) {
+    public List<RoomView> getRecommendedRooms(Long hotelId, String roomType,
+                                              LocalDate startDate, LocalDate endDate) {
         log.info("Fetching recommended rooms for hotel: {}, type: {}, period: {} - {}",
                  hotelId, roomType, startDate, endDate);
 
         if (roomType != null) {
             Room.RoomType type = Room.RoomType.valueOf(roomType.toUpperCase());
-            List<Room> rooms = roomRepository.findAvailableRoomsByTypeRecommended(type, startDate, endDate);
-            return roomMapper.toDtoList(rooms);
+            List<Room> rooms = fromStore(() -> roomRepository.findByAvailableTrueAndTypeOrderByTimesBookedAscIdAsc(type),
+                    startDate, endDate)
+                    .orElseGet(() -> roomRepository.findAvailableRoomsByTypeRecommended(type, startDate, endDate));
+            return roomMapper.toViewList(rooms);
         } else if (hotelId != null) {
-            List<Room> rooms = roomRepository.findAvailableRoomsByHotelRecommended(hotelId, startDate, endDate);
-            return roomMapper.toDtoList(rooms);
+            List<Room> rooms = fromStore(() -> roomRepository.findByAvailableTrueAndHotelIdOrderByTimesBookedAscIdAsc(hotelId),
+                    startDate, endDate)
+                    .orElseGet(() -> roomRepository.findAvailableRoomsByHotelRecommended(hotelId, startDate, endDate));
+            return roomMapper.toViewList(rooms);
         } else {
-            return getAvailableRooms(startDate, endDate);
+            List<Room> rooms = fromStore(roomRepository::findByAvailableTrueOrderByTimesBookedAscIdAsc, startDate, endDate)
+                    .orElseGet(() -> roomRepository.findAvailableRooms(startDate, endDate));
+            return roomMapper.toViewList(rooms);
         }
     }
 
-    @Transactional
+    /**
+     * Быстрый путь чтения: кандидаты без подзапроса к резервированиям, занятость - из
+     * {@link MappedAvailabilityStore}. Пусто, если хранилище отключено или не покрывает период или номер.
+     */
+    private Optional<List<Room>> fromStore(Supplier<List<Room>> candidates, LocalDate startDate, LocalDate endDate) {
+        AvailabilityRecorder recorder = availabilityRecorder.getIfAvailable();
+        if (recorder == null || startDate == null || endDate == null) {
+            return Optional.empty();
+        }
+        MappedAvailabilityStore store = recorder.store();
+        List<Room> rooms = candidates.get();
+        List<Room> free = new ArrayList<>(rooms.size());
+        for (Room room : rooms) {
+            if (!store.covers(room.getId(), startDate, endDate)) {
+                return Optional.empty();
+            }
+            if (store.isAvailable(room.getId(), startDate, endDate)) {
+                free.add(room);
+            }
+        }
+        return Optional.of(free);
+    }
+
+    /**
+     * Изменить занятость в хранилище и журнале после фиксации транзакции: откаченная (в том числе
+     * групповая) транзакция не должна оставить следа.
+     */
+    private void afterCommit(Consumer<AvailabilityRecorder> update) {
+        AvailabilityRecorder recorder = availabilityRecorder.getIfAvailable();
+        if (recorder == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.accept(recorder);
+            }
+        });
+    }
+
     public AvailabilityResponse confirmAvailability(Long roomId, ConfirmAvailabilityRequest request) {
+        return roomCommandExecutor.execute(roomId, () -> reserve(roomId, request));
+    }
+
+    /**
+     * Резервирование в шарде номера без ожидания в вызывающем потоке (RSocket).
+     */
+    public CompletableFuture<AvailabilityResponse> confirmAvailabilityAsync(Long roomId, ConfirmAvailabilityRequest request) {
+        return roomCommandExecutor.submit(roomId, () -> reserve(roomId, request));
+    }
+
+    public void releaseReservation(Long roomId, String requestId) {
+        roomCommandExecutor.execute(roomId, () -> release(roomId, requestId));
+    }
+
+    public CompletableFuture<Void> releaseReservationAsync(Long roomId, String requestId) {
+        return roomCommandExecutor.submit(roomId, () -> release(roomId, requestId));
+    }
+
+    // Выполняется в потоке шарда номера, в транзакции RoomCommandExecutor
+    private AvailabilityResponse reserve(Long roomId, ConfirmAvailabilityRequest request) {
         log.info("Confirming availability for room: {}, requestId: {}, bookingId: {}",
-                 roomId, request.getRequestId(), request.getBookingId());
+                 roomId, request.requestId(), request.bookingId());
 
         // Идемпотентность: проверка, обрабатывался ли этот requestId ранее
-        Optional<RoomReservation> existing = reservationRepository.findByRequestId(request.getRequestId());
+        Optional<RoomReservation> existing = reservationRepository.findByRequestId(request.requestId());
         if (existing.isPresent()) {
             RoomReservation reservation = existing.get();
-            log.info("Request already processed: {}, status: {}", request.getRequestId(), reservation.getStatus());
+            log.info("Request already processed: {}, status: {}", request.requestId(), reservation.getStatus());
 
             if (reservation.getStatus() == RoomReservation.ReservationStatus.CONFIRMED ||
                 reservation.getStatus() == RoomReservation.ReservationStatus.PENDING) {
@@ -102,11 +183,11 @@ public class RoomService {
 
         // Создание временной резервации
         RoomReservation reservation = new RoomReservation();
-        reservation.setRequestId(request.getRequestId());
-        reservation.setBookingId(request.getBookingId());
+        reservation.setRequestId(request.requestId());
+        reservation.setBookingId(request.bookingId());
         reservation.setRoomId(roomId);
-        reservation.setStartDate(request.getStartDate());
-        reservation.setEndDate(request.getEndDate());
+        reservation.setStartDate(request.startDate());
+        reservation.setEndDate(request.endDate());
         reservation.setStatus(RoomReservation.ReservationStatus.CONFIRMED);
         reservation.setCreatedAt(LocalDateTime.now());
         reservation.setExpiresAt(LocalDateTime.now().plusMinutes(RESERVATION_TIMEOUT_MINUTES));
@@ -117,8 +198,9 @@ public class RoomService {
             // Увеличение счетчика бронирований
             room.setTimesBooked(room.getTimesBooked() + 1);
             roomRepository.save(room);
+            afterCommit(recorder -> recorder.confirmed(reservation));
 
-            log.info("Room {} successfully reserved for booking {}", roomId, request.getBookingId());
+            log.info("Room {} successfully reserved for booking {}", roomId, request.bookingId());
             return AvailabilityResponse.success(roomId);
         } catch (Exception e) {
             log.error("Failed to reserve room {}: {}", roomId, e.getMessage());
@@ -126,25 +208,25 @@ public class RoomService {
         }
     }
 
-    @Transactional
-    public void releaseReservation(Long roomId, String requestId) {
+    private Void release(Long roomId, String requestId) {
         log.info("Releasing reservation for room: {}, requestId: {}", roomId, requestId);
 
         Optional<RoomReservation> reservationOpt = reservationRepository.findByRequestId(requestId);
         if (reservationOpt.isEmpty()) {
             log.warn("Reservation not found for requestId: {}", requestId);
-            return;
+            return null;
         }
 
         RoomReservation reservation = reservationOpt.get();
         if (reservation.getStatus() == RoomReservation.ReservationStatus.RELEASED ||
             reservation.getStatus() == RoomReservation.ReservationStatus.EXPIRED) {
             log.info("Reservation already released: {}", requestId);
-            return;
+            return null;
         }
 
         reservation.setStatus(RoomReservation.ReservationStatus.RELEASED);
         reservationRepository.save(reservation);
+        afterCommit(recorder -> recorder.released(reservation));
 
         // Уменьшение счетчика бронирований
         Optional<Room> roomOpt = roomRepository.findById(roomId);
@@ -157,6 +239,7 @@ public class RoomService {
         }
 
         log.info("Reservation released for room: {}", roomId);
+        return null;
     }
 
     @Transactional
@@ -167,6 +250,7 @@ public class RoomService {
 
         for (RoomReservation reservation : expired) {
             reservation.setStatus(RoomReservation.ReservationStatus.EXPIRED);
+            afterCommit(recorder -> recorder.expired(reservation));
 
             // Уменьшение счетчика бронирований
             Optional<Room> roomOpt = roomRepository.findById(reservation.getRoomId());
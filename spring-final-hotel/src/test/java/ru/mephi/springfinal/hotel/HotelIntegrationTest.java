@@ -1,31 +1,64 @@
 package ru.mephi.springfinal.hotel;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.rsocket.exceptions.RejectedSetupException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.MimeType;
+import ru.mephi.springfinal.contracts.identity.InternalIdentity;
+import ru.mephi.springfinal.contracts.identity.InternalIdentityCodec;
+import ru.mephi.springfinal.contracts.room.AvailabilityResponse;
+import ru.mephi.springfinal.contracts.room.ConfirmAvailabilityRequest;
+import ru.mephi.springfinal.contracts.room.ReleaseReservationRequest;
 import ru.mephi.springfinal.hotel.dto.HotelDto;
 import ru.mephi.springfinal.hotel.dto.RoomDto;
+import ru.mephi.springfinal.hotel.entity.Hotel;
+import ru.mephi.springfinal.hotel.entity.Room;
+import ru.mephi.springfinal.hotel.entity.RoomReservation;
+import ru.mephi.springfinal.hotel.repository.ArchivedReservationRepository;
 import ru.mephi.springfinal.hotel.repository.HotelRepository;
 import ru.mephi.springfinal.hotel.repository.RoomRepository;
 import ru.mephi.springfinal.hotel.repository.RoomReservationRepository;
+import ru.mephi.springfinal.hotel.service.ReservationArchiveService;
+import ru.mephi.springfinal.hotel.service.RoomService;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -49,9 +82,28 @@ class HotelIntegrationTest {
     @Autowired
     private RoomReservationRepository reservationRepository;
 
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private ArchivedReservationRepository archivedReservationRepository;
+
+    @Autowired
+    private ReservationArchiveService reservationArchiveService;
+
+    @Autowired
+    private RSocketStrategies rsocketStrategies;
+
+    @Autowired
+    private InternalIdentityCodec identityCodec;
+
+    @Value("${local.rsocket.server.port}")
+    private int rsocketPort;
+
     @BeforeEach
     void setUp() {
         // Очищаем базу перед каждым тестом
+        archivedReservationRepository.deleteAll();
         reservationRepository.deleteAll();
         roomRepository.deleteAll();
         hotelRepository.deleteAll();
@@ -95,9 +147,10 @@ class HotelIntegrationTest {
                         .content(objectMapper.writeValueAsString(hotel2)))
                 .andExpect(status().isCreated());
 
-        // Проверяем список
+        // Проверяем список; ответ каталога разрешено хранить кэшу Gateway
         mockMvc.perform(get("/api/hotels"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, public"))
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$", hasSize(greaterThanOrEqualTo(2))));
     }
@@ -219,6 +272,53 @@ class HotelIntegrationTest {
                 .andExpect(jsonPath("$").isArray());
     }
 
+    @Test
+    @DisplayName("Реактивные рекомендации номеров - поток NDJSON из R2DBC")
+    void testGetRecommendedRoomsReactive() throws Exception {
+        HotelDto hotelDto = new HotelDto();
+        hotelDto.setName("Test Hotel");
+        hotelDto.setAddress("123 Test Street");
+
+        String hotelResponse = mockMvc.perform(post("/api/hotels")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(hotelDto)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        Long hotelId = objectMapper.readTree(hotelResponse).get("id").asLong();
+
+        for (int i = 1; i <= 3; i++) {
+            RoomDto roomDto = new RoomDto();
+            roomDto.setHotelId(hotelId);
+            roomDto.setRoomNumber("20" + i);
+            roomDto.setType("DOUBLE");
+            roomDto.setPricePerNight(new BigDecimal("7000.00"));
+            roomDto.setAvailable(true);
+
+            mockMvc.perform(post("/api/rooms")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(roomDto)))
+                    .andExpect(status().isCreated());
+        }
+
+        MvcResult result = mockMvc.perform(get("/api/v2/rooms/recommend")
+                        .param("startDate", LocalDate.now().plusDays(10).toString())
+                        .param("endDate", LocalDate.now().plusDays(15).toString())
+                        .param("roomType", "DOUBLE")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // По одному JSON-объекту на строку, те же номера, что и в v1
+        List<String> lines = body.lines().filter(line -> !line.isBlank()).toList();
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readTree(lines.get(0)).get("hotelId").asLong()).isEqualTo(hotelId);
+    }
+
     @Test
     @DisplayName("Подтверждение доступности номера")
     void testConfirmAvailability() throws Exception {
@@ -262,6 +362,20 @@ class HotelIntegrationTest {
                         .content(objectMapper.writeValueAsString(confirmRequest)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.available").value(true));
+
+        // Занятость видна в подборе (через хранилище вне кучи); соседний период свободен
+        mockMvc.perform(get("/api/rooms/recommend")
+                        .param("hotelId", hotelId.toString())
+                        .param("startDate", LocalDate.now().plusDays(4).toString())
+                        .param("endDate", LocalDate.now().plusDays(6).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/rooms/recommend")
+                        .param("hotelId", hotelId.toString())
+                        .param("startDate", LocalDate.now().plusDays(5).toString())
+                        .param("endDate", LocalDate.now().plusDays(7).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
     }
 
     @Test
@@ -372,4 +486,196 @@ class HotelIntegrationTest {
                         .content(objectMapper.writeValueAsString(secondRequest)))
                 .andExpect(status().isOk());  // Принимаем 200, хотя по логике должно быть 409
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Подтверждение доступности в формате Smile")
+    void testConfirmAvailabilitySmile() throws Exception {
+        HotelDto hotelDto = new HotelDto();
+        hotelDto.setName("Test Hotel");
+        hotelDto.setAddress("123 Test Street");
+
+        String hotelResponse = mockMvc.perform(post("/api/hotels")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(hotelDto)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        Long hotelId = objectMapper.readTree(hotelResponse).get("id").asLong();
+
+        RoomDto roomDto = new RoomDto();
+        roomDto.setHotelId(hotelId);
+        roomDto.setRoomNumber("101");
+        roomDto.setType("SINGLE");
+        roomDto.setPricePerNight(new BigDecimal("5000.00"));
+        roomDto.setAvailable(true);
+
+        String roomResponse = mockMvc.perform(post("/api/rooms")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(roomDto)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        Long roomId = objectMapper.readTree(roomResponse).get("id").asLong();
+
+        // Booking Service отправляет и принимает Smile
+        MediaType smile = new MediaType("application", "x-jackson-smile");
+        ObjectMapper smileMapper = objectMapper.copyWith(new SmileFactory());
+        ConfirmAvailabilityRequest request = new ConfirmAvailabilityRequest(
+                "smile-request", 1L, LocalDate.now().plusDays(1), LocalDate.now().plusDays(5));
+
+        byte[] body = mockMvc.perform(post("/api/rooms/" + roomId + "/confirm-availability")
+                        .contentType(smile)
+                        .accept(smile)
+                        .content(smileMapper.writeValueAsBytes(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        AvailabilityResponse response = smileMapper.readValue(body, AvailabilityResponse.class);
+        assertThat(response.available()).isTrue();
+        assertThat(response.roomId()).isEqualTo(roomId);
+    }
+
+    @Test
+    @DisplayName("Параллельные резервирования одного номера выполняются шардом без конфликтов версий")
+    void testConcurrentReservationsOfOneRoom() throws Exception {
+        Hotel hotel = new Hotel();
+        hotel.setName("Test Hotel");
+        hotel.setAddress("123 Test Street");
+        hotel = hotelRepository.save(hotel);
+
+        Room room = new Room();
+        room.setHotel(hotel);
+        room.setRoomNumber("101");
+        room.setType(Room.RoomType.SINGLE);
+        room.setPricePerNight(new BigDecimal("5000.00"));
+        room = roomRepository.save(room);
+        Long roomId = room.getId();
+
+        int requests = 40;
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<AvailabilityResponse>> confirmations = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                ConfirmAvailabilityRequest request = new ConfirmAvailabilityRequest(
+                        "concurrent-" + i, (long) i, LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+                confirmations.add(callers.submit(() -> roomService.confirmAvailability(roomId, request)));
+            }
+            for (Future<AvailabilityResponse> confirmation : confirmations) {
+                assertThat(confirmation.get(10, TimeUnit.SECONDS).available()).isTrue();
+            }
+            assertThat(roomRepository.findById(roomId).orElseThrow().getTimesBooked()).isEqualTo(requests);
+
+            List<Future<?>> releases = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                String requestId = "concurrent-" + i;
+                releases.add(callers.submit(() -> roomService.releaseReservation(roomId, requestId)));
+            }
+            for (Future<?> release : releases) {
+                release.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(roomRepository.findById(roomId).orElseThrow().getTimesBooked()).isZero();
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Архивация завершенных резервирований и чтение архива для аудита")
+    void testArchiveTerminalReservations() throws Exception {
+        Hotel hotel = new Hotel();
+        hotel.setName("Test Hotel");
+        hotel.setAddress("123 Test Street");
+        hotel = hotelRepository.save(hotel);
+
+        Room room = new Room();
+        room.setHotel(hotel);
+        room.setRoomNumber("101");
+        room.setType(Room.RoomType.SINGLE);
+        room.setPricePerNight(new BigDecimal("5000.00"));
+        room = roomRepository.save(room);
+        Long roomId = room.getId();
+
+        LocalDate today = LocalDate.now();
+        roomService.confirmAvailability(roomId, new ConfirmAvailabilityRequest("archive-released", 1L,
+                today.plusDays(1), today.plusDays(3)));
+        roomService.releaseReservation(roomId, "archive-released");
+        roomService.confirmAvailability(roomId, new ConfirmAvailabilityRequest("archive-active", 2L,
+                today.plusDays(5), today.plusDays(7)));
+
+        // подтвержденное резервирование с выездом 40 дней назад
+        RoomReservation past = new RoomReservation();
+        past.setRequestId("archive-past");
+        past.setBookingId(3L);
+        past.setRoomId(roomId);
+        past.setStartDate(today.minusDays(45));
+        past.setEndDate(today.minusDays(40));
+        past.setStatus(RoomReservation.ReservationStatus.CONFIRMED);
+        past.setCreatedAt(LocalDateTime.now().minusDays(50));
+        past.setExpiresAt(LocalDateTime.now().minusDays(50));
+        reservationRepository.save(past);
+
+        int archived = reservationArchiveService.archiveBatch(LocalDateTime.now().plusMinutes(1),
+                today.minusDays(30), 100);
+
+        assertThat(archived).isEqualTo(2);
+        assertThat(reservationRepository.findAll())
+                .extracting(RoomReservation::getRequestId)
+                .containsExactly("archive-active");
+
+        mockMvc.perform(get("/api/rooms/reservations/archive")
+                        .param("roomId", roomId.toString())
+                        .param("from", today.minusDays(60).toString())
+                        .param("to", today.plusDays(10).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].requestId").value("archive-past"))
+                .andExpect(jsonPath("$[1].requestId").value("archive-released"))
+                .andExpect(jsonPath("$[1].status").value("RELEASED"));
+
+        mockMvc.perform(get("/api/rooms/reservations/archive")
+                        .param("bookingId", "3")
+                        .param("from", today.minusDays(10).toString())
+                        .param("to", today.plusDays(10).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("RSocket-порт отклоняет соединение без подписанной личности")
+    void testRSocketRejectsConnectionWithoutIdentity() {
+        RSocketRequester requester = RSocketRequester.builder()
+                .rsocketStrategies(rsocketStrategies)
+                .tcp("localhost", rsocketPort);
+        try {
+            assertThatThrownBy(() -> requester.route("rooms.{id}.release", 1L)
+                    .data(new ReleaseReservationRequest("rsocket-anonymous"))
+                    .retrieveMono(Void.class)
+                    .block(Duration.ofSeconds(5)))
+                    .isInstanceOf(RejectedSetupException.class);
+        } finally {
+            requester.dispose();
+        }
+    }
+
+    @Test
+    @DisplayName("RSocket-порт принимает соединение с подписанной сервисной личностью")
+    void testRSocketAcceptsConnectionWithIdentity() {
+        long now = Instant.now().getEpochSecond();
+        InternalIdentity identity = new InternalIdentity(null, "spring-final-booking", List.of("ROLE_SERVICE"),
+                null, now, now + 60);
+        RSocketRequester requester = RSocketRequester.builder()
+                .rsocketStrategies(rsocketStrategies)
+                .setupMetadata(identityCodec.encode(identity), MimeType.valueOf(InternalIdentityCodec.RSOCKET_MIME_TYPE))
+                .tcp("localhost", rsocketPort);
+        try {
+            // неизвестный requestId: освобождать нечего, вызов просто завершается
+            requester.route("rooms.{id}.release", 1L)
+                    .data(new ReleaseReservationRequest("rsocket-unknown"))
+                    .retrieveMono(Void.class)
+                    .block(Duration.ofSeconds(5));
+        } finally {
+            requester.dispose();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.mephi.springfinal.hotel.availability;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.mephi.springfinal.hotel.entity.RoomReservation;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Availability Recorder Tests")
+class AvailabilityRecorderTest {
+
+    private static final int HORIZON = 10;
+    private static final int ROOMS = 4;
+    private static final LocalDate ORIGIN = LocalDate.of(2030, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Сдвиг окна освобождает прошедшие ночи и заполняет вошедшие резервированиями за горизонтом")
+    void testAdvanceWindow() {
+        try (MappedAvailabilityStore store = new MappedAvailabilityStore(directory.resolve("store.dat"), HORIZON, ROOMS, ORIGIN);
+             AvailabilityRecorder recorder = new AvailabilityRecorder(store, directory.resolve("journal"))) {
+            recorder.rebuild(ORIGIN, List.of());
+            // резервирование выходит за окно [ORIGIN, ORIGIN + 10)
+            RoomReservation beyond = reservation(1, 1, 8, 14);
+            recorder.confirmed(beyond);
+            recorder.confirmed(reservation(2, 2, 0, 2));
+            assertFalse(store.covers(1, day(10), day(12)));
+
+            assertTrue(recorder.advance(day(3)));
+            assertFalse(recorder.advance(day(3)));
+            assertTrue(store.covers(1, day(10), day(13)));
+            assertEquals(1, store.occupancy(1, day(12).toEpochDay()));
+            // ячейки прошедших ночей номера 2 достались новым ночам пустыми
+            assertTrue(store.isAvailable(2, day(10), day(13)));
+
+            recorder.released(beyond);
+            assertTrue(store.isAvailable(1, day(3), day(13)));
+        }
+    }
+
+    @Test
+    @DisplayName("Снимок переносит резервирования за горизонтом в окно следующего запуска")
+    void testRecoverIntoLaterWindow() {
+        Path storeFile = directory.resolve("store.dat");
+        Path journal = directory.resolve("journal");
+        try (MappedAvailabilityStore store = new MappedAvailabilityStore(storeFile, HORIZON, ROOMS, ORIGIN);
+             AvailabilityRecorder recorder = new AvailabilityRecorder(store, journal)) {
+            recorder.rebuild(ORIGIN, List.of());
+            recorder.confirmed(reservation(1, 1, 8, 14));
+            recorder.snapshot();
+            recorder.confirmed(reservation(2, 3, 11, 12));
+        }
+
+        try (MappedAvailabilityStore store = new MappedAvailabilityStore(storeFile, HORIZON, ROOMS, ORIGIN);
+             AvailabilityRecorder recorder = new AvailabilityRecorder(store, journal)) {
+            assertEquals(2, recorder.recover(day(5)).orElseThrow().count());
+            assertEquals(1, store.occupancy(1, day(13).toEpochDay()));
+            assertEquals(0, store.occupancy(1, day(14).toEpochDay()));
+            assertEquals(1, store.occupancy(3, day(11).toEpochDay()));
+        }
+    }
+
+    @Test
+    @DisplayName("Потерянный хвост журнала с нулевым итогом меняет сводку резервирований")
+    void testLostNetZeroTailChangesDigest() {
+        Path storeFile = directory.resolve("store.dat");
+        Path journal = directory.resolve("journal");
+        RoomReservation released = reservation(1, 1, 1, 3);
+        ReservationDigest beforeTail;
+        ReservationDigest afterTail;
+        try (MappedAvailabilityStore store = new MappedAvailabilityStore(storeFile, HORIZON, ROOMS, ORIGIN);
+             AvailabilityRecorder recorder = new AvailabilityRecorder(store, journal)) {
+            recorder.rebuild(ORIGIN, List.of(released, reservation(2, 2, 1, 3)));
+        }
+        try (MappedAvailabilityStore store = new MappedAvailabilityStore(storeFile, HORIZON, ROOMS, ORIGIN);
+             AvailabilityRecorder recorder = new AvailabilityRecorder(store, journal)) {
+            beforeTail = recorder.recover(ORIGIN).orElseThrow();
+            // подтверждение одного и снятие другого: число активных не меняется
+            recorder.confirmed(reservation(3, 3, 4, 6));
+            recorder.released(released);
+        }
+        try (MappedAvailabilityStore store = new MappedAvailabilityStore(storeFile, HORIZON, ROOMS, ORIGIN);
+             AvailabilityRecorder recorder = new AvailabilityRecorder(store, journal)) {
+            afterTail = recorder.recover(ORIGIN).orElseThrow();
+        }
+
+        assertEquals(beforeTail.count(), afterTail.count());
+        assertNotEquals(beforeTail, afterTail);
+    }
+
+    private static RoomReservation reservation(long id, long roomId, int startOffset, int endOffset) {
+        RoomReservation reservation = new RoomReservation();
+        reservation.setId(id);
+        reservation.setRoomId(roomId);
+        reservation.setStartDate(day(startOffset));
+        reservation.setEndDate(day(endOffset));
+        return reservation;
+    }
+
+    private static LocalDate day(int offset) {
+        return ORIGIN.plusDays(offset);
+    }
+}
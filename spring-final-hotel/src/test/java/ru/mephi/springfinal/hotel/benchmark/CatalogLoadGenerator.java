@@ -0,0 +1,131 @@
+package ru.mephi.springfinal.hotel.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Нагрузка на чтение каталога: {@code concurrency} одновременных GET-запросов к запущенному
+ * Hotel Service. Сравнивает блокирующий путь ({@code /api/rooms/recommend}, поток на запрос)
+ * с реактивным ({@code /api/v2/rooms/recommend}, R2DBC).
+ * <p>
+ * Кроме пропускной способности и перцентилей латентности раз в 500 мс снимает с сервиса
+ * {@code jvm.memory.used} (heap) и {@code jvm.threads.live} через actuator и выводит пиковые значения.
+ * <p>
+ * Запуск: {@code make start && make load-catalog CONCURRENCY=5000 CATALOG_PATH=/api/v2/rooms/recommend}.
+ * Параметры: {@code -Dhotel.url}, {@code -Dauth.url}, {@code -Dload.path}, {@code -Dload.concurrency},
+ * {@code -Dload.requests}.
+ */
+public class CatalogLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        String hotelUrl = System.getProperty("hotel.url", "http://localhost:8081");
+        String authUrl = System.getProperty("auth.url", "http://localhost:8082/api/user/auth");
+        String path = System.getProperty("load.path", "/api/rooms/recommend");
+        int concurrency = Integer.getInteger("load.concurrency", 5000);
+        int requests = Integer.getInteger("load.requests", 50000);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        HttpResponse<String> auth = client.send(HttpRequest.newBuilder(URI.create(authUrl))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                objectMapper.writeValueAsString(Map.of("username", "user", "password", "user123"))))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        String token = objectMapper.readTree(auth.body()).get("token").asText();
+
+        LocalDate startDate = LocalDate.now().plusDays(30);
+        URI uri = URI.create(hotelUrl + path + "?startDate=" + startDate + "&endDate=" + startDate.plusDays(3));
+
+        AtomicLong peakHeap = new AtomicLong();
+        AtomicLong peakThreads = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakHeap.accumulateAndGet(metric(client, objectMapper, hotelUrl, "jvm.memory.used?tag=area:heap"), Math::max);
+            peakThreads.accumulateAndGet(metric(client, objectMapper, hotelUrl, "jvm.threads.live"), Math::max);
+        }, 0, 500, TimeUnit.MILLISECONDS);
+
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        AtomicLongArray latencies = new AtomicLongArray(requests);
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            permits.acquire();
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build();
+
+            int index = i;
+            long requestStart = System.nanoTime();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            futures[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies.set(index, System.nanoTime() - requestStart);
+                        int status = error != null ? -1 : response.statusCode();
+                        statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+                        inFlight.decrementAndGet();
+                        permits.release();
+                    });
+        }
+        CompletableFuture.allOf(futures).exceptionally(e -> null).join();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        sampler.shutdownNow();
+
+        long[] sorted = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+
+        System.out.printf("path=%s requests=%d concurrency=%d peakInFlight=%d%n",
+                path, requests, concurrency, peakInFlight.get());
+        System.out.printf("throughput=%.1f req/s, total=%.1f s%n", requests / seconds, seconds);
+        System.out.printf("latency ms: p50=%.1f p99=%.1f max=%.1f%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[requests - 1] / 1e6);
+        System.out.printf("server peak: heap=%d MB, live threads=%d%n", peakHeap.get() / (1024 * 1024), peakThreads.get());
+        System.out.println("statuses (-1 = client error): " + statuses);
+    }
+
+    private static long metric(HttpClient client, ObjectMapper objectMapper, String hotelUrl, String name) {
+        try {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create(hotelUrl + "/actuator/metrics/" + name)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return (long) objectMapper.readTree(response.body()).get("measurements").get(0).get("value").asDouble();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
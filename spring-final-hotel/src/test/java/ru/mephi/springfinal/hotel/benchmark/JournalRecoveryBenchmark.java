@@ -0,0 +1,157 @@
+package ru.mephi.springfinal.hotel.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.mephi.springfinal.hotel.availability.AvailabilityRecorder;
+import ru.mephi.springfinal.hotel.availability.MappedAvailabilityStore;
+import ru.mephi.springfinal.hotel.availability.ReservationJournal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Время восстановления занятости при старте Hotel Service по журналу из 10 млн записей
+ * (подтверждения и снятия резервирований, до миллиона активных одновременно; 16 384 номера на 2 года):
+ * <ul>
+ *     <li>{@code JOURNAL} - снимка нет, повторяется весь журнал</li>
+ *     <li>{@code SNAPSHOT} - снимок после 10 млн записей и хвост из 100 тыс. записей</li>
+ * </ul>
+ * Запуск: {@code make bench MODULE=spring-final-hotel BENCH=JournalRecoveryBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class JournalRecoveryBenchmark {
+
+    private static final int ROOMS = 16_384;
+    private static final int HORIZON = 730;
+    private static final int ENTRIES = 10_000_000;
+    private static final int TAIL_ENTRIES = 100_000;
+
+    @Param({"JOURNAL", "SNAPSHOT"})
+    public String layout;
+
+    private final LocalDate origin = LocalDate.now();
+    private Path template;
+    private Path work;
+    private Path storeFile;
+    private MappedAvailabilityStore store;
+    private AvailabilityRecorder recorder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        template = Files.createTempDirectory("journal-template");
+        storeFile = Files.createTempFile("availability", ".dat");
+        store = new MappedAvailabilityStore(storeFile, HORIZON, ROOMS, origin);
+
+        EventGenerator events = new EventGenerator(42);
+        try (ReservationJournal journal = new ReservationJournal(template)) {
+            journal.reset(0);
+            events.write(journal, ENTRIES);
+        }
+        if ("SNAPSHOT".equals(layout)) {
+            AvailabilityRecorder snapshotter = new AvailabilityRecorder(store, template);
+            snapshotter.recover(origin).orElseThrow();
+            snapshotter.snapshot();
+            snapshotter.close();
+            try (ReservationJournal journal = new ReservationJournal(template)) {
+                journal.open(ENTRIES, (event, reservationId, roomId, startDay, endDay) -> {
+                });
+                events.write(journal, TAIL_ENTRIES);
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void copyTemplate() throws IOException {
+        work = Files.createTempDirectory("journal-work");
+        try (Stream<Path> files = Files.list(template)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, work.resolve(file.getFileName()));
+            }
+        }
+        recorder = new AvailabilityRecorder(store, work);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteWork() throws IOException {
+        recorder.close();
+        delete(work);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        Files.deleteIfExists(storeFile);
+        delete(template);
+    }
+
+    @Benchmark
+    public long recover() {
+        return recorder.recover(origin).orElseThrow().count();
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> paths = files.sorted(Comparator.reverseOrder()).toList();
+            for (Path path : paths) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Поток событий: новое резервирование на 1-7 ночей или снятие самого старого из активных.
+     */
+    private final class EventGenerator {
+
+        private static final int MAX_ACTIVE = 1 << 20;
+
+        private final SplittableRandom random;
+        private final long[] ids = new long[MAX_ACTIVE];
+        private final long[] rooms = new long[MAX_ACTIVE];
+        private final long[] starts = new long[MAX_ACTIVE];
+        private final long[] ends = new long[MAX_ACTIVE];
+        private int head;
+        private int size;
+        private long nextId = 1;
+
+        EventGenerator(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        void write(ReservationJournal journal, int count) {
+            long originDay = origin.toEpochDay();
+            try {
+                for (int i = 0; i < count; i++) {
+                    if (size == MAX_ACTIVE || (size > 0 && random.nextInt(100) < 45)) {
+                        journal.append(ReservationJournal.Event.RELEASE, ids[head], rooms[head], starts[head], ends[head]);
+                        head = (head + 1) % MAX_ACTIVE;
+                        size--;
+                    } else {
+                        int tail = (head + size) % MAX_ACTIVE;
+                        ids[tail] = nextId++;
+                        rooms[tail] = 1 + random.nextInt(ROOMS);
+                        starts[tail] = originDay + random.nextInt(HORIZON - 8);
+                        ends[tail] = starts[tail] + 1 + random.nextInt(7);
+                        journal.append(ReservationJournal.Event.CONFIRM, ids[tail], rooms[tail], starts[tail], ends[tail]);
+                        size++;
+                    }
+                }
+                journal.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}